@@ -0,0 +1,39 @@
+package coinnavigator;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the JMH benchmark suite.
+ *
+ * Accepts the normal JMH command line (e.g. `DatabaseBenchmark -p listSize=1000`), but unless
+ * told otherwise writes machine-readable results to bench-results.json so runs can be diffed
+ * between releases, and attaches the GC profiler so allocation rates are always reported.
+ */
+public class Benchmarks {
+
+    private static final String DEFAULT_RESULT_FILE = "bench-results.json";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder opts = new OptionsBuilder().parent(cli);
+
+        if (!cli.getResultFormat().hasValue()) {
+            opts.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            opts.result(DEFAULT_RESULT_FILE);
+        }
+        if (cli.getProfilers().isEmpty()) {
+            opts.addProfiler(GCProfiler.class);
+        }
+
+        new Runner(opts.build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package coinnavigator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH micro-benchmarks for the in-memory Coin/Controller hot paths:
+ * reflective attribute access, toString, and the parse-and-validate step of createCoinInList.
+ *
+ * Benchmarks.main attaches the GC profiler by default, so every result also carries
+ * gc.alloc.rate / gc.alloc.rate.norm (bytes per op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoinBenchmark {
+
+    /** Which attribute the get/setAttributeValue benchmarks touch (String, int and double paths). */
+    @State(Scope.Benchmark)
+    public static class AttrState {
+        @Param({"name", "date", "weight"})
+        public String attr;
+    }
+
+    private File dbFile;
+    private Controller controller;
+    private Coin coin;
+    private Map<String, String> validFields;
+    private Map<String, String> invalidFields;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // parseCoin never touches the database, but a Controller always owns one.
+        dbFile = Files.createTempFile("coins-bench", ".db").toFile();
+        controller = new Controller(new Database("jdbc:sqlite:" + dbFile.getAbsolutePath()));
+
+        coin = new Coin();
+        coin.setName("Morgan Dollar");
+        coin.setDate(1921);
+        coin.setGrade("MS-63");
+        coin.setDiameter(38.1);
+        coin.setThickness(2.4);
+        coin.setEdge("Reeded");
+        coin.setWeight(26.73);
+        coin.setComposition("Silver");
+        coin.setDenomination("$1");
+
+        validFields = new HashMap<>();
+        for (String a : Coin.getAttributeNamesInOrder()) {
+            validFields.put(a, coin.getAttributeValue(a));
+        }
+        invalidFields = new HashMap<>(validFields);
+        invalidFields.put("date", "nineteen-twenty-one");
+        invalidFields.put("weight", "heavy");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        controller.shutdown();
+        dbFile.delete();
+    }
+
+    @Benchmark
+    public String getAttributeValue(AttrState s) {
+        return coin.getAttributeValue(s.attr);
+    }
+
+    @Benchmark
+    public Coin setAttributeValue(AttrState s) {
+        coin.setAttributeValue(s.attr, validFields.get(s.attr));
+        return coin;
+    }
+
+    @Benchmark
+    public List<String> getAttributeNamesInOrder() {
+        return Coin.getAttributeNamesInOrder();
+    }
+
+    @Benchmark
+    public String coinToString() {
+        return coin.toString();
+    }
+
+    @Benchmark
+    public Coin parseValidCoin() {
+        return controller.parseCoin(validFields, new Controller.ValidationResult());
+    }
+
+    @Benchmark
+    public Coin parseInvalidCoin() {
+        return controller.parseCoin(invalidFields, new Controller.ValidationResult());
+    }
+}
@@ -0,0 +1,272 @@
+package coinnavigator;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Deterministic, seedable generator of realistic Coin records for load and scale testing.
+ *
+ * Coins are drawn from a small catalog of real coin types (denomination, composition, nominal
+ * diameter/thickness/weight, edge, mintage years); grades follow the Sheldon scale and wear
+ * shaves a little weight off circulated coins.  The same seed always yields the same coins,
+ * including their UUIDs.
+ *
+ * Output goes either straight into a Database list (batched transactions) or into a CSV file,
+ * streaming in chunks so tens of millions of rows never sit in memory at once.
+ *
+ * Usage:
+ *   CoinGenerator --count 1000000 [--seed 42] [--images] (--db /path/coins.db [--list Owned] | --csv out.csv)
+ */
+public class CoinGenerator {
+
+    private static final int CHUNK = 10_000;
+
+    // ─── CATALOG ───────────────────────────────────────────────────────────────────
+    private record CoinType(String name, String denomination, String composition, double diameter,
+                            double thickness, double weight, String edge, int firstYear, int lastYear,
+                            Color metal) {}
+
+    private static final Color SILVER = new Color(192, 192, 200);
+    private static final Color GOLD = new Color(212, 175, 55);
+    private static final Color COPPER = new Color(184, 115, 51);
+    private static final Color NICKEL = new Color(160, 160, 150);
+
+    private static final CoinType[] CATALOG = {
+            new CoinType("Morgan Dollar", "$1", "90% Silver", 38.1, 2.4, 26.73, "Reeded", 1878, 1921, SILVER),
+            new CoinType("Peace Dollar", "$1", "90% Silver", 38.1, 2.4, 26.73, "Reeded", 1921, 1935, SILVER),
+            new CoinType("Walking Liberty Half", "50¢", "90% Silver", 30.6, 2.15, 12.5, "Reeded", 1916, 1947, SILVER),
+            new CoinType("Kennedy Half", "50¢", "Copper-Nickel Clad", 30.6, 2.15, 11.34, "Reeded", 1971, 2024, NICKEL),
+            new CoinType("Washington Quarter", "25¢", "90% Silver", 24.3, 1.75, 6.25, "Reeded", 1932, 1964, SILVER),
+            new CoinType("Mercury Dime", "10¢", "90% Silver", 17.9, 1.35, 2.5, "Reeded", 1916, 1945, SILVER),
+            new CoinType("Buffalo Nickel", "5¢", "Copper-Nickel", 21.2, 1.95, 5.0, "Plain", 1913, 1938, NICKEL),
+            new CoinType("Indian Head Cent", "1¢", "Bronze", 19.05, 1.5, 3.11, "Plain", 1864, 1909, COPPER),
+            new CoinType("Lincoln Wheat Cent", "1¢", "Bronze", 19.0, 1.52, 3.11, "Plain", 1909, 1958, COPPER),
+            new CoinType("Saint-Gaudens Double Eagle", "$20", "90% Gold", 34.0, 2.4, 33.44, "Lettered", 1907, 1933, GOLD),
+            new CoinType("American Silver Eagle", "$1", ".999 Silver", 40.6, 2.98, 31.1, "Reeded", 1986, 2024, SILVER),
+            new CoinType("Sovereign", "£1", "22k Gold", 22.05, 1.52, 7.98, "Reeded", 1817, 2024, GOLD),
+            new CoinType("Krugerrand", "1 oz", "22k Gold", 32.77, 2.84, 33.93, "Reeded", 1967, 2024, GOLD),
+            new CoinType("Silver Maple Leaf", "$5", ".9999 Silver", 38.0, 3.29, 31.11, "Reeded", 1988, 2024, SILVER),
+            new CoinType("2 Euro", "€2", "Bimetallic", 25.75, 2.2, 8.5, "Lettered", 2002, 2024, NICKEL),
+    };
+
+    // Sheldon scale: numeric grade → adjectival prefix
+    private static final int[] SHELDON = {1, 2, 3, 4, 6, 8, 10, 12, 15, 20, 25, 30, 35, 40, 45, 50, 53, 55, 58,
+            60, 61, 62, 63, 64, 65, 66, 67, 68, 69, 70};
+
+    private static String sheldonPrefix(int grade) {
+        if (grade >= 60) return "MS";
+        if (grade >= 50) return "AU";
+        if (grade >= 40) return "XF";
+        if (grade >= 20) return "VF";
+        if (grade >= 12) return "F";
+        if (grade >= 8) return "VG";
+        if (grade >= 4) return "G";
+        if (grade == 3) return "AG";
+        if (grade == 2) return "FR";
+        return "PO";
+    }
+
+    // ─── STATE ─────────────────────────────────────────────────────────────────────
+    private final Random rnd;
+    private final boolean images;
+    private final Map<String, byte[]> pngCache = new HashMap<>();
+
+    /**
+     * @param seed   same seed → same sequence of coins
+     * @param images also attach synthetic obverse/inverse PNGs to every coin
+     */
+    public CoinGenerator(long seed, boolean images) {
+        this.rnd = new Random(seed);
+        this.images = images;
+    }
+
+    /** Generates the next coin in the sequence. */
+    public Coin next() {
+        CoinType type = CATALOG[rnd.nextInt(CATALOG.length)];
+        Coin coin = new Coin(new UUID(rnd.nextLong(), rnd.nextLong()));
+
+        int year = type.firstYear() + rnd.nextInt(type.lastYear() - type.firstYear() + 1);
+        boolean proof = rnd.nextInt(20) == 0;
+        int grade = proof ? 60 + rnd.nextInt(11) : pickGrade();
+
+        coin.setName(proof ? type.name() + " (Proof)" : type.name());
+        coin.setDate(year);
+        coin.setGrade(formatGrade(proof ? "PF" : sheldonPrefix(grade), grade));
+        coin.setDenomination(type.denomination());
+        coin.setComposition(type.composition());
+        coin.setEdge(type.edge());
+        coin.setDiameter(round(type.diameter() + rnd.nextGaussian() * 0.05, 2));
+        coin.setThickness(round(type.thickness() + rnd.nextGaussian() * 0.03, 2));
+        // circulated coins lose up to ~3% of their weight to wear
+        double wear = (70 - grade) / 70.0 * 0.03 * rnd.nextDouble();
+        coin.setWeight(round(type.weight() * (1 - wear) + rnd.nextGaussian() * 0.02, 3));
+
+        if (images) {
+            coin.setObverseBytes(png(type, year, true));
+            coin.setInverseBytes(png(type, year, false));
+        }
+        return coin;
+    }
+
+    /** Picks a Sheldon grade, bell-shaped around AU-58 like a typical collection. */
+    private int pickGrade() {
+        int idx = (int) Math.round(18 + rnd.nextGaussian() * 7);
+        return SHELDON[Math.max(0, Math.min(SHELDON.length - 1, idx))];
+    }
+
+    /** Grades are free text in the app, so mix the spellings people actually use. */
+    private String formatGrade(String prefix, int grade) {
+        return switch (rnd.nextInt(20)) {
+            case 0 -> "N/A";
+            case 1, 2, 3 -> prefix + grade;
+            case 4, 5 -> prefix + " " + grade;
+            case 6 -> prefix;
+            default -> prefix + "-" + grade;
+        };
+    }
+
+    private static double round(double v, int places) {
+        double scale = Math.pow(10, places);
+        return Math.round(v * scale) / scale;
+    }
+
+    // ─── OUTPUT ────────────────────────────────────────────────────────────────────
+
+    /** Generates `count` coins straight into `listName` (created if missing), CHUNK rows per transaction. */
+    public void writeToList(Database db, String listName, long count) {
+        db.createList(listName);
+        List<Coin> chunk = new ArrayList<>(CHUNK);
+        for (long i = 0; i < count; i++) {
+            chunk.add(next());
+            if (chunk.size() == CHUNK) {
+                db.insertCoins(listName, chunk);
+                chunk.clear();
+                progress(i + 1, count);
+            }
+        }
+        db.insertCoins(listName, chunk);
+    }
+
+    /** Generates `count` coins into a CSV file (id + every attribute; images are not written). */
+    public void writeToCsv(Path file, long count) throws IOException {
+        List<String> attrs = Coin.getAttributeNamesInOrder();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("id," + String.join(",", attrs));
+            out.newLine();
+            for (long i = 0; i < count; i++) {
+                Coin c = next();
+                out.write(c.getId().toString());
+                for (String attr : attrs) {
+                    out.write(',');
+                    out.write(csv(c.getAttributeValue(attr)));
+                }
+                out.newLine();
+                if ((i + 1) % CHUNK == 0) {
+                    progress(i + 1, count);
+                }
+            }
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static void progress(long done, long total) {
+        if (total >= 1_000_000 && done % 1_000_000 == 0) {
+            System.err.printf("  %,d / %,d%n", done, total);
+        }
+    }
+
+    // ─── SYNTHETIC IMAGES ──────────────────────────────────────────────────────────
+
+    /** A 256×256 PNG of a plain disc in the coin's metal; cached per type/year/side. */
+    private byte[] png(CoinType type, int year, boolean obverse) {
+        String key = type.name() + year + obverse;
+        return pngCache.computeIfAbsent(key, k -> renderPng(type, year, obverse));
+    }
+
+    private static byte[] renderPng(CoinType type, int year, boolean obverse) {
+        int size = 256;
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(type.metal());
+            g.fillOval(8, 8, size - 16, size - 16);
+            g.setColor(type.metal().darker());
+            g.setStroke(new BasicStroke(6));
+            g.drawOval(8, 8, size - 16, size - 16);
+            g.setFont(new Font(Font.SERIF, Font.BOLD, 36));
+            String text = obverse ? String.valueOf(year) : type.denomination();
+            FontMetrics fm = g.getFontMetrics();
+            g.drawString(text, (size - fm.stringWidth(text)) / 2, size / 2 + fm.getAscent() / 3);
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(img, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // ─── COMMAND LINE ──────────────────────────────────────────────────────────────
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        long count = 10_000;
+        long seed = 42;
+        boolean images = false;
+        String dbPath = null;
+        String csvPath = null;
+        String listName = "Owned";
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--count" -> count = Long.parseLong(args[++i].replace("_", ""));
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--images" -> images = true;
+                case "--db" -> dbPath = args[++i];
+                case "--list" -> listName = args[++i];
+                case "--csv" -> csvPath = args[++i];
+                default -> {
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        if ((dbPath == null) == (csvPath == null)) {
+            System.err.println("Usage: CoinGenerator --count N [--seed S] [--images] "
+                    + "(--db /path/coins.db [--list NAME] | --csv out.csv)");
+            System.exit(2);
+        }
+
+        CoinGenerator gen = new CoinGenerator(seed, images);
+        long start = System.nanoTime();
+        if (dbPath != null) {
+            try (Database db = new Database("jdbc:sqlite:" + dbPath)) {
+                gen.writeToList(db, listName, count);
+            }
+        } else {
+            gen.writeToCsv(Paths.get(csvPath), count);
+        }
+        System.err.printf("Generated %,d coins in %.1f s%n", count, (System.nanoTime() - start) / 1e9);
+    }
+}
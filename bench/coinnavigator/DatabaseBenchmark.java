@@ -0,0 +1,125 @@
+package coinnavigator;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the persistence layer (Database CRUD + Controller.searchCoins).
+ *
+ * Every trial gets its own temporary SQLite file, pre-filled with `listSize` coins from
+ * CoinGenerator (fixed seed).  With `withImages` every coin also carries synthetic obverse and
+ * inverse PNGs (a few KiB each, so 1M rows need several GB of temp disk).
+ *
+ * Run via Benchmarks.main (writes JSON results) or any JMH launcher.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseBenchmark {
+
+    private static final String LIST = "Bench";
+    private static final String OTHER_LIST = "BenchOther";
+    private static final String INSERT_LIST = "BenchInsert";
+    private static final int BATCH = 10_000;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int listSize;
+
+    @Param({"false", "true"})
+    public boolean withImages;
+
+    private File dbFile;
+    private Database db;
+    private Controller controller;
+    private CoinGenerator generator;
+    private Coin[] coins;          // everything that was loaded into LIST, for random picks
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dbFile = Files.createTempFile("coins-bench", ".db").toFile();
+        db = new Database("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        db.createList(LIST);
+        db.createList(OTHER_LIST);
+        db.createList(INSERT_LIST);
+        controller = new Controller(db);
+
+        generator = new CoinGenerator(42, withImages);
+        coins = new Coin[listSize];
+        List<Coin> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < listSize; i++) {
+            Coin c = generator.next();
+            coins[i] = c;
+            batch.add(c);
+            if (batch.size() == BATCH) {
+                db.insertCoins(LIST, batch);
+                batch.clear();
+            }
+        }
+        db.insertCoins(LIST, batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+        dbFile.delete();
+    }
+
+    @Benchmark
+    public void insertCoin() {
+        Coin c = generator.next();
+        db.insertCoin(INSERT_LIST, c, c.getObverseBytes(), c.getInverseBytes());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Coin> getAllCoins() {
+        return db.getAllCoins(LIST);
+    }
+
+    @Benchmark
+    public Coin getCoinById() {
+        return db.getCoinById(LIST, randomCoin().getId().toString());
+    }
+
+    @Benchmark
+    public void updateCoin() {
+        Coin c = randomCoin();
+        c.setWeight(ThreadLocalRandom.current().nextDouble(1.0, 40.0));
+        db.updateCoin(LIST, c);
+    }
+
+    /** Moves a random coin to another list and back again, so the fixture stays intact (two moves per op). */
+    @Benchmark
+    public void moveCoinRoundTrip() {
+        Coin c = randomCoin();
+        db.moveCoin(LIST, OTHER_LIST, c);
+        db.moveCoin(OTHER_LIST, LIST, c);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void searchCoinsByName(Blackhole bh) {
+        bh.consume(controller.searchCoins(LIST, "name", "morgan"));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void searchCoinsByDate(Blackhole bh) {
+        bh.consume(controller.searchCoins(LIST, "date", "1921"));
+    }
+
+    private Coin randomCoin() {
+        return coins[ThreadLocalRandom.current().nextInt(coins.length)];
+    }
+}
@@ -0,0 +1,204 @@
+package coinnavigator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Hot backups of the database, taken while the application keeps running (see
+ * Database.backupTo), into backup.dir as STEM-YYYYMMDD-HHMMSS.db, or .db.gz with
+ * -Dcoinnavigator.backup.compress=true, where STEM is the database file's name without its
+ * extension ("coins").  backup.dir defaults to ~/.coinnavigator/backups, in a subdirectory per
+ * database other than ~/coins.db (see Database.dataDir); list() and pruning only ever see this
+ * database's own backups, even in a directory shared with others.
+ *
+ * Every copy is checked with integrity_check before it is kept – a backup that would not
+ * restore is deleted and reported instead – and only the newest backup.keep (7) are kept.
+ * restore() checks the file the same way before it touches the live database.  Maintenance
+ * also takes one every backup.everyHours while the database is idle, if that is set.
+ */
+public final class Backups {
+
+    private static final Metrics.OperationStats CREATE = Metrics.op("Backups.create");
+    private static final Metrics.OperationStats RESTORE = Metrics.op("Backups.restore");
+
+    private static final int PAGES_PER_STEP = Config.getInt("backup.pagesPerStep", 1024);
+    private static final long PAUSE_MILLIS = Config.getLong("backup.pauseMillis", 10);
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /** One backup file; `created` is taken from its name. */
+    public record Info(Path file, long bytes, Instant created, boolean compressed) {}
+
+    private final Database db;
+    private final Path dir;
+    private final String prefix;     // "coins-" for coins.db
+    private final Pattern name;      // the names of this database's backups
+    private final int keep;
+    private final boolean compress;
+    private final long everyMillis;
+
+    public Backups(Database db, Path dir, int keep, boolean compress, long everyMillis) {
+        this.db = db;
+        this.dir = dir;
+        this.prefix = (db.getFile() == null ? "coins" : Database.stem(db.getFile())) + "-";
+        this.name = Pattern.compile(Pattern.quote(prefix) + "(\\d{8}-\\d{6})\\.db(\\.gz)?");
+        this.keep = keep;
+        this.compress = compress;
+        this.everyMillis = everyMillis;
+    }
+
+    /** Backups as configured by -Dcoinnavigator.backup.* (dir, keep, compress, everyHours). */
+    public static Backups fromConfig(Database db) {
+        Path dir = Paths.get(Config.getString("backup.dir", db.dataDir("backups").toString()));
+        return new Backups(db, dir, Math.max(1, Config.getInt("backup.keep", 7)),
+                Config.getBoolean("backup.compress", false),
+                Config.getLong("backup.everyHours", 0) * 3_600_000L);
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    /** How often Maintenance should take a backup (0 = never). */
+    long getEveryMillis() {
+        return everyMillis;
+    }
+
+    /**
+     * Copies the live database to a new backup file, checks the copy, compresses it if so
+     * configured, then deletes all but the newest `keep` backups.
+     *
+     * @throws IOException if the copy could not be made or failed its check (nothing is kept then)
+     */
+    public Info create() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(dir);
+        String stamp = LocalDateTime.now().format(STAMP);
+        Path plain = dir.resolve(prefix + stamp + ".db");
+        Path part = dir.resolve(plain.getFileName() + ".part");
+        Path gz = dir.resolve(plain.getFileName() + ".gz");
+        Path target = compress ? gz : plain;
+        try {
+            if (Files.exists(target)) {
+                throw new IOException(target.getFileName() + " already exists; try again in a second");
+            }
+            Files.deleteIfExists(part);
+            if (db.backupTo(part, PAGES_PER_STEP, PAUSE_MILLIS) < 0) {
+                throw new IOException("the database could not be copied (see the log)");
+            }
+            String problem = Database.verifyFile(part);
+            if (problem != null) {
+                throw new IOException("the copy failed its check: " + problem);
+            }
+            if (compress) {
+                try (InputStream in = Files.newInputStream(part);
+                     OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz), 1 << 16)) {
+                    in.transferTo(out);
+                }
+                CREATE.addBytesRead(Files.size(part));
+                Files.delete(part);
+            } else {
+                CREATE.addBytesRead(Files.size(part));
+                Files.move(part, plain, StandardCopyOption.ATOMIC_MOVE);
+            }
+            CREATE.addBytesWritten(Files.size(target));
+            prune();
+            return info(target);
+        } catch (IOException | RuntimeException e) {
+            CREATE.error();
+            Files.deleteIfExists(part);
+            if (compress) Files.deleteIfExists(gz);
+            throw e;
+        } finally {
+            CREATE.record(start);
+        }
+    }
+
+    /** Every backup of this database in the directory, newest first. */
+    public List<Info> list() throws IOException {
+        List<Info> backups = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return backups;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (name.matcher(file.getFileName().toString()).matches()) {
+                    backups.add(info(file));
+                }
+            }
+        }
+        backups.sort(Comparator.comparing(Info::created).reversed());
+        return backups;
+    }
+
+    /**
+     * Replaces the live database with `file` (a backup, compressed or not), after checking it.
+     * Writes wait while it is copied in; callers must drop anything cached from the old data.
+     *
+     * @throws IOException if the file is unreadable or fails its check (the database is untouched),
+     *                     or if the restore itself failed
+     */
+    public void restore(Path file) throws IOException {
+        long start = System.nanoTime();
+        boolean compressed = file.getFileName().toString().endsWith(".gz");
+        Path plain = file;
+        try {
+            if (compressed) {
+                plain = Files.createTempFile(Files.isDirectory(dir) ? dir : file.toAbsolutePath().getParent(),
+                        "restore-", ".db");
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 1 << 16)) {
+                    Files.copy(in, plain, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            String problem = Database.verifyFile(plain);
+            if (problem != null) {
+                throw new IOException(file.getFileName() + " cannot be restored: " + problem);
+            }
+            if (db.restoreFrom(plain, PAGES_PER_STEP) < 0) {
+                throw new IOException("the restore failed (see the log); the database is unchanged");
+            }
+            RESTORE.addBytesRead(Files.size(plain));
+        } catch (IOException | RuntimeException e) {
+            RESTORE.error();
+            throw e;
+        } finally {
+            if (compressed && plain != file) {
+                Files.deleteIfExists(plain);
+            }
+            RESTORE.record(start);
+        }
+    }
+
+    /** Deletes all but the newest `keep` backups of this database. */
+    private void prune() throws IOException {
+        List<Info> backups = list();
+        for (Info old : backups.subList(Math.min(keep, backups.size()), backups.size())) {
+            Files.deleteIfExists(old.file());
+        }
+    }
+
+    private Info info(Path file) throws IOException {
+        Matcher m = name.matcher(file.getFileName().toString());
+        Instant created = m.matches()
+                ? LocalDateTime.parse(m.group(1), STAMP).atZone(ZoneId.systemDefault()).toInstant()
+                : Files.getLastModifiedTime(file).toInstant();
+        return new Info(file, Files.size(file), created, file.getFileName().toString().endsWith(".gz"));
+    }
+}
@@ -0,0 +1,42 @@
+package coinnavigator;
+
+/**
+ * One committed change, as published by Controller to its change listeners.
+ *
+ * `coin` is the coin as written (for COIN_DELETED: as it was before); it is null for the
+ * LIST_* types.  For COIN_MOVED, `listName` is the destination and `fromList` the source;
+ * `fromList` is null for every other type.
+ */
+public record ChangeEvent(Type type, String listName, Coin coin, String fromList) {
+
+    public enum Type { COIN_INSERTED, COIN_UPDATED, COIN_DELETED, COIN_MOVED, LIST_CREATED, LIST_DELETED }
+
+    public static ChangeEvent coinInserted(String listName, Coin coin) {
+        return new ChangeEvent(Type.COIN_INSERTED, listName, coin, null);
+    }
+
+    public static ChangeEvent coinUpdated(String listName, Coin coin) {
+        return new ChangeEvent(Type.COIN_UPDATED, listName, coin, null);
+    }
+
+    public static ChangeEvent coinDeleted(String listName, Coin coin) {
+        return new ChangeEvent(Type.COIN_DELETED, listName, coin, null);
+    }
+
+    public static ChangeEvent coinMoved(String fromList, String toList, Coin coin) {
+        return new ChangeEvent(Type.COIN_MOVED, toList, coin, fromList);
+    }
+
+    public static ChangeEvent listCreated(String listName) {
+        return new ChangeEvent(Type.LIST_CREATED, listName, null, null);
+    }
+
+    public static ChangeEvent listDeleted(String listName) {
+        return new ChangeEvent(Type.LIST_DELETED, listName, null, null);
+    }
+
+    /** True if this event adds, changes or removes rows of `list`. */
+    public boolean touches(String list) {
+        return list != null && (list.equals(listName) || list.equals(fromList));
+    }
+}
@@ -1,3 +1,5 @@
+package coinnavigator;
+
 import javafx.scene.image.Image;
 import java.util.*;
 import java.lang.reflect.Field;
@@ -0,0 +1,93 @@
+package coinnavigator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Aggregates of one list: coin count and weight, overall and per denomination, composition,
+ * year and decade.
+ *
+ * They come from the `stats` table, which triggers on every list table keep current on each
+ * insert, update and delete (see Schema), so reading them is one small query however big the
+ * list is – nothing is ever recounted from the coins themselves.
+ */
+public final class CollectionStats {
+
+    /** Coins in one group: `weighed` of them have a weight, `totalWeight` in all. */
+    public record Bucket(long count, double totalWeight, long weighed) {
+        static final Bucket EMPTY = new Bucket(0, 0, 0);
+
+        /** Mean weight of the coins that have one (0 if none has). */
+        public double averageWeight() {
+            return weighed == 0 ? 0 : totalWeight / weighed;
+        }
+
+        Bucket plus(Bucket other) {
+            return new Bucket(count + other.count, totalWeight + other.totalWeight, weighed + other.weighed);
+        }
+    }
+
+    private final String listName;
+    private final Bucket total;
+    private final Map<String, Bucket> byDenomination;
+    private final Map<String, Bucket> byComposition;
+    private final SortedMap<Integer, Bucket> byYear;
+
+    CollectionStats(String listName, Bucket total, Map<String, Bucket> byDenomination,
+                    Map<String, Bucket> byComposition, SortedMap<Integer, Bucket> byYear) {
+        this.listName = listName;
+        this.total = total;
+        this.byDenomination = Collections.unmodifiableMap(byDenomination);
+        this.byComposition = Collections.unmodifiableMap(byComposition);
+        this.byYear = Collections.unmodifiableSortedMap(byYear);
+    }
+
+    public String getListName() { return listName; }
+    public long getCount() { return total.count(); }
+    public double getTotalWeight() { return total.totalWeight(); }
+    public double getAverageWeight() { return total.averageWeight(); }
+    public Bucket getTotal() { return total; }
+    /** Keyed by denomination ("" = none given). */
+    public Map<String, Bucket> getByDenomination() { return byDenomination; }
+    /** Keyed by composition ("" = none given). */
+    public Map<String, Bucket> getByComposition() { return byComposition; }
+    /** Date histogram, keyed by year (0 = none given). */
+    public SortedMap<Integer, Bucket> getByYear() { return byYear; }
+
+    /** The year histogram folded into decades (1880 = 1880–1889). */
+    public SortedMap<Integer, Bucket> getByDecade() {
+        SortedMap<Integer, Bucket> decades = new TreeMap<>();
+        byYear.forEach((year, b) -> decades.merge(Math.floorDiv(year, 10) * 10, b, Bucket::plus));
+        return decades;
+    }
+
+    /** Plain-text report: totals, then each breakdown with its largest groups first. */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s: %d coin(s), total weight %.2f, average weight %.2f%n",
+                listName, total.count(), total.totalWeight(), total.averageWeight()));
+        section(sb, "Denomination", byDenomination);
+        section(sb, "Composition", byComposition);
+        Map<String, Bucket> decades = new TreeMap<>();
+        getByDecade().forEach((decade, b) -> decades.put(decade == 0 ? "" : decade + "s", b));
+        section(sb, "Decade", decades);
+        return sb.toString();
+    }
+
+    private static void section(StringBuilder sb, String title, Map<String, Bucket> buckets) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+        sb.append(title).append(':').append(System.lineSeparator());
+        List<Map.Entry<String, Bucket>> entries = new ArrayList<>(buckets.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().count(), a.getValue().count()));
+        for (Map.Entry<String, Bucket> e : entries) {
+            sb.append(String.format("  %-20s %8d   avg weight %.2f%n",
+                    e.getKey().isEmpty() ? "(none)" : e.getKey(), e.getValue().count(), e.getValue().averageWeight()));
+        }
+    }
+}
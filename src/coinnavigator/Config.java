@@ -0,0 +1,36 @@
+package coinnavigator;
+
+/**
+ * Tuning switches, read from JVM system properties prefixed with "coinnavigator."
+ * (e.g. -Dcoinnavigator.sql.trace=true).  Anything unset or unparsable falls back to the default.
+ */
+public final class Config {
+
+    private static final String PREFIX = "coinnavigator.";
+
+    private Config() {}
+
+    public static String getString(String key, String def) {
+        String v = System.getProperty(PREFIX + key);
+        return v == null || v.isBlank() ? def : v.trim();
+    }
+
+    public static boolean getBoolean(String key, boolean def) {
+        String v = getString(key, null);
+        return v == null ? def : Boolean.parseBoolean(v);
+    }
+
+    public static long getLong(String key, long def) {
+        String v = getString(key, null);
+        if (v == null) return def;
+        try {
+            return Long.parseLong(v.replace("_", ""));
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    public static int getInt(String key, int def) {
+        return (int) getLong(key, def);
+    }
+}
@@ -0,0 +1,92 @@
+package coinnavigator;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A small pool of read connections for Database.  Connections are opened lazily, up to `size`;
+ * further borrowers wait for one to come back.  In WAL mode every reader sees the last committed
+ * state without blocking (or being blocked by) the writer.
+ */
+final class ConnectionPool implements AutoCloseable {
+
+    /** Opens a new connection. */
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final Semaphore slots;
+    private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    ConnectionPool(ConnectionFactory factory, int size) {
+        this.factory = factory;
+        this.slots = new Semaphore(size, true);
+    }
+
+    /** A connection for the caller's exclusive use until the Lease is closed. */
+    Lease borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Database is closed");
+        }
+        slots.acquireUninterruptibly();
+        Connection conn = idle.poll();
+        try {
+            if (conn == null || conn.isClosed()) {
+                conn = factory.open();
+            }
+        } catch (SQLException e) {
+            slots.release();
+            throw e;
+        }
+        return new Lease(conn);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection conn;
+        while ((conn = idle.poll()) != null) {
+            closeQuietly(conn);
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // already unusable
+        }
+    }
+
+    /** A borrowed connection; closing the lease hands the connection back to the pool. */
+    final class Lease implements AutoCloseable {
+        private final Connection conn;
+
+        private Lease(Connection conn) {
+            this.conn = conn;
+        }
+
+        Connection conn() {
+            return conn;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (closed || !conn.getAutoCommit()) {
+                    closeQuietly(conn);      // never hand on a connection left inside a transaction
+                } else {
+                    idle.offer(conn);
+                }
+            } catch (SQLException e) {
+                closeQuietly(conn);
+            } finally {
+                slots.release();
+            }
+        }
+    }
+}
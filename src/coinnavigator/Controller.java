@@ -0,0 +1,1428 @@
+package coinnavigator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.prefs.Preferences;
+import java.util.stream.Stream;
+
+/**
+ * Controller for CoinNavigator.
+ *
+ *  – Delegates to Database for CRUD on multiple “lists.”
+ *  – Holds no per-call state: errors come back in each call's Result, so one Controller can be
+ *    shared by many threads (GUI, PTUI, HttpApi requests).
+ *  – Serializes operations per list with striped read/write locks.
+ *  – Exposes coin‐attribute metadata so the GUI can build forms/tables dynamically.
+ *  – Remembers the last‐opened list across restarts via java.util.prefs.Preferences.
+ *  – Optionally serves listCoins() from memory-mapped snapshots (see SnapshotStore).
+ *  – Fuzzy search (MatchMode.FUZZY) over in-memory trigram indexes (see TrigramIndex), kept
+ *    current from the database's change log (Database.getChangesSince).
+ *  – Publishes a ChangeEvent for every committed change to its change listeners, so views can
+ *    patch themselves instead of re-reading whole lists.
+ *  – Imports coin photos on a worker pool (see ImageIngestor and attachImages) and serves
+ *    them from an off-heap cache (see ImageCache and getImage); coins are read without them.
+ *  – Optionally buffers coin writes made through the *Async methods (see WriteBehind); every
+ *    read and every synchronous write flushes that buffer first, so callers always read
+ *    their own writes.
+ */
+public class Controller {
+
+    private final Database db;
+    private final SnapshotStore snapshots;     // null unless -Dcoinnavigator.snapshot=true
+    private final WriteBehind writeBehind;     // null unless -Dcoinnavigator.writeBehind=true
+    private final Maintenance maintenance;     // null if -Dcoinnavigator.maintenance=false
+    private final Backups backups;
+    private final List<Consumer<ChangeEvent>> changeListeners = new CopyOnWriteArrayList<>();
+
+    // ─── Fuzzy search indexes ──────────────────────────────────────────────────────
+    // One TrigramIndex per (list, text attribute), built on the first fuzzy search of it.  Each
+    // index remembers the change-log seq it reflects; before a search it replays the log from
+    // there (see fuzzyIndex/catchUp), whoever wrote – this process or another.  It is rebuilt
+    // only if the log has a gap (trimmed), the list was deleted and re-created, or so much of it
+    // changed that a fresh scan is cheaper.
+    private static final List<String> TEXT_ATTRIBUTES = List.of("name", "grade", "edge", "composition", "denomination");
+    private static final int FUZZY_LIMIT = Config.getInt("search.fuzzyLimit", 100);
+    private final Map<String, TrigramIndex> fuzzyIndexes = new ConcurrentHashMap<>();
+    private static final int CATCH_UP_BATCH = 1000;     // change-log entries per query
+
+    // searchAllLists fans out here; as many threads as there are pooled read connections
+    private final ExecutorService searchPool = Executors.newFixedThreadPool(Config.getInt("db.readers", 4), r -> {
+        Thread t = new Thread(r, "list-search");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Decodes, scales and recompresses imported photos (see attachImages)
+    private final ImageIngestor images = new ImageIngestor();
+    private static final int IMAGE_BATCH = 32;                      // images per transaction…
+    private static final long IMAGE_BATCH_BYTES = 16L << 20;        // …or this many bytes, whichever comes first
+    private final ImageCache imageCache = new ImageCache();
+
+    // ─── Operation metrics (see Metrics) ────────────────────────────────────────────
+    private static final Metrics.OperationStats GET_LAST_OPENED_LIST = Metrics.op("Controller.getLastOpenedList");
+    private static final Metrics.OperationStats SET_LAST_OPENED_LIST = Metrics.op("Controller.setLastOpenedList");
+    private static final Metrics.OperationStats GET_ALL_LIST_NAMES = Metrics.op("Controller.getAllListNames");
+    private static final Metrics.OperationStats DELETE_LIST = Metrics.op("Controller.deleteList");
+    private static final Metrics.OperationStats CREATE_LIST = Metrics.op("Controller.createList");
+    private static final Metrics.OperationStats CREATE_COIN_IN_LIST = Metrics.op("Controller.createCoinInList");
+    private static final Metrics.OperationStats LIST_COINS = Metrics.op("Controller.listCoins");
+    private static final Metrics.OperationStats SEARCH_COINS = Metrics.op("Controller.searchCoins");
+    private static final Metrics.OperationStats SEARCH_ALL_LISTS = Metrics.op("Controller.searchAllLists");
+    private static final Metrics.OperationStats FUZZY_SEARCH = Metrics.op("Controller.fuzzySearch");
+    private static final Metrics.OperationStats BUILD_FUZZY_INDEX = Metrics.op("Controller.buildFuzzyIndex");
+    private static final Metrics.OperationStats CATCH_UP_FUZZY_INDEX = Metrics.op("Controller.catchUpFuzzyIndex");
+    private static final Metrics.OperationStats STREAM_COINS = Metrics.op("Controller.streamCoins");
+    private static final Metrics.OperationStats STREAM_COINS_BY_GRADE = Metrics.op("Controller.streamCoinsByGrade");
+    private static final Metrics.OperationStats LIST_COINS_PAGE = Metrics.op("Controller.listCoinsPage");
+    private static final Metrics.OperationStats COUNT_COINS = Metrics.op("Controller.countCoins");
+    private static final Metrics.OperationStats LIST_COINS_BY_GRADE = Metrics.op("Controller.listCoinsByGrade");
+    private static final Metrics.OperationStats LIST_COINS_SORTED = Metrics.op("Controller.listCoinsSorted");
+    private static final Metrics.OperationStats SAVE_COIN = Metrics.op("Controller.saveCoin");
+    private static final Metrics.OperationStats EDIT_COIN = Metrics.op("Controller.editCoin");
+    private static final Metrics.OperationStats DELETE_COIN = Metrics.op("Controller.deleteCoin");
+    private static final Metrics.OperationStats GET_COIN_BY_ID = Metrics.op("Controller.getCoinById");
+    private static final Metrics.OperationStats MOVE_COIN = Metrics.op("Controller.moveCoin");
+    private static final Metrics.OperationStats GET_CHANGES_SINCE = Metrics.op("Controller.getChangesSince");
+    private static final Metrics.OperationStats GET_STATS = Metrics.op("Controller.getStats");
+    private static final Metrics.OperationStats GET_LIST_COUNTS = Metrics.op("Controller.getListCounts");
+    private static final Metrics.OperationStats ATTACH_IMAGES = Metrics.op("Controller.attachImages");
+    private static final Metrics.OperationStats GET_IMAGE = Metrics.op("Controller.getImage");
+    private static final Metrics.OperationStats BACKUP = Metrics.op("Controller.backup");
+    private static final Metrics.OperationStats RESTORE_BACKUP = Metrics.op("Controller.restoreBackup");
+    private static final Metrics.OperationStats GET_COIN_ATTRIBUTE_NAMES = Metrics.op("Controller.getCoinAttributeNames");
+
+    // ─── Per-list locks ────────────────────────────────────────────────────────────
+    // Striped, so a list always maps to the same lock without keeping one alive per list name.
+    // Reads share a list's lock; writes and compound operations hold it exclusively, and
+    // moveCoin takes both stripes in index order so two opposite moves cannot deadlock.
+    private static final int LOCK_STRIPES = 32;
+    private final ReentrantReadWriteLock[] listLocks = new ReentrantReadWriteLock[LOCK_STRIPES];
+    {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            listLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    private int stripe(String listName) {
+        return Math.floorMod(listName.hashCode(), LOCK_STRIPES);
+    }
+
+    private <T> T readLocked(String listName, Supplier<T> work) {
+        Lock lock = listLocks[stripe(listName)].readLock();
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T writeLocked(String listName, Supplier<T> work) {
+        Lock lock = listLocks[stripe(listName)].writeLock();
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Holds the write locks of both lists (each stripe once, lower index first). */
+    private <T> T writeLocked(String listA, String listB, Supplier<T> work) {
+        int a = stripe(listA), b = stripe(listB);
+        Lock first = listLocks[Math.min(a, b)].writeLock();
+        Lock second = listLocks[Math.max(a, b)].writeLock();
+        first.lock();
+        try {
+            if (a == b) {
+                return work.get();
+            }
+            second.lock();
+            try {
+                return work.get();
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    // ─── Preferences for “lastOpenedList” ─────────────────────────────────────────
+    // We store “lastOpenedList” under the key "lastList" in java.util.prefs.
+    // (Node name is the one userNodeForPackage() gave us before the classes moved into a package.)
+    private static final Preferences PREFS = Preferences.userRoot().node("<unnamed>");
+    private static final String LAST_LIST_KEY = "lastList";
+
+    /**
+     * Return the name of the last‐opened list (as saved in Preferences).
+     * If no value is saved, returns null.
+     */
+    public String getLastOpenedList() {
+        long start = System.nanoTime();
+        try {
+            return PREFS.get(LAST_LIST_KEY, null);
+        } finally {
+            GET_LAST_OPENED_LIST.record(start);
+        }
+    }
+
+    /**
+     * Remember that `listName` was the last‐opened list. Written to Preferences immediately.
+     */
+    public void setLastOpenedList(String listName) {
+        long start = System.nanoTime();
+        try {
+            if (listName != null) {
+                PREFS.put(LAST_LIST_KEY, listName);
+            }
+        } finally {
+            SET_LAST_OPENED_LIST.record(start);
+        }
+    }
+    // ────────────────────────────────────────────────────────────────────────────────
+
+    // ─── Constructor ───────────────────────────────────────────────────────────────
+    public Controller() {
+        this(new Database());
+    }
+
+    /** Builds a Controller on top of an existing Database (e.g. a temporary file in the benchmarks). */
+    public Controller(Database db) {
+        this.db = db;
+        this.snapshots = SnapshotStore.fromConfig(db);
+        this.writeBehind = Config.getBoolean("writeBehind", false)
+                ? new WriteBehind(db, Config.getLong("writeBehind.windowMillis", 10),
+                                  Config.getInt("writeBehind.maxOps", 256))
+                : null;
+        this.backups = Backups.fromConfig(db);
+        this.maintenance = Maintenance.fromConfig(db, backups);
+    }
+
+    /**
+     * Commits buffered writes, writes snapshots for lists with unsaved changes and closes the
+     * database; call once on exit.
+     */
+    public void shutdown() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+        searchPool.shutdownNow();
+        images.shutdown();
+        if (maintenance != null) {
+            maintenance.close();
+        }
+        if (snapshots != null) {
+            snapshots.flush();
+        }
+        db.close();
+    }
+
+    private void changed(String listName) {
+        if (snapshots != null) {
+            snapshots.noteChange(listName);
+        }
+    }
+
+    /**
+     * Registers `listener` for every ChangeEvent from now on.  Events are delivered on the thread
+     * that committed the change (for write-behind writes, the flushing thread), after the commit
+     * and outside any list lock; listeners must be quick and hand UI work to their own thread.
+     */
+    public void addChangeListener(Consumer<ChangeEvent> listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Consumer<ChangeEvent> listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void publish(ChangeEvent event) {
+        for (Consumer<ChangeEvent> listener : changeListeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                e.printStackTrace();       // one broken listener must not stop the others
+            }
+        }
+    }
+
+    private static String indexKey(String listName, String attr) {
+        return listName + '\u0000' + attr;
+    }
+
+    private static String readOnly(String listName) {
+        return "\"" + listName + "\" is in a read-only archive";
+    }
+
+    /** Commits every write made through the *Async methods so far; returns once it is durable. */
+    public void flushWrites() {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    // ─── LIST MANAGEMENT ───────────────────────────────────────────────────────────
+
+    /** Archive files mounted read-only (-Dcoinnavigator.db.attach), alias → file; see Database. */
+    public Map<String, Path> getArchives() {
+        return db.getArchives();
+    }
+
+    /**
+     * Return all saved list names (e.g. “Owned”, “Wishlist”, plus any custom ones).
+     */
+    public List<String> getAllListNames() {
+        long start = System.nanoTime();
+        try {
+            return db.getAllListNames();
+        } finally {
+            GET_ALL_LIST_NAMES.record(start);
+        }
+    }
+
+    /**
+     * Delete a list with the given name unless it is a protected list ("Owned" or "Wishlist").
+     *
+     * @return a failed Result (with the reason) if the list was protected or could not be deleted
+     */
+    public Result deleteList(String listName) {
+        long start = System.nanoTime();
+        try {
+            if (listName == null) {
+                return Result.failure("No list given");
+            }
+            if (listName.equalsIgnoreCase("Owned") || listName.equalsIgnoreCase("Wishlist")) {
+                return Result.failure("Cannot delete Owned or Wishlist");
+            }
+            if (db.isArchiveList(listName)) {
+                return Result.failure(readOnly(listName));
+            }
+            flushWrites();
+            Result deleted = writeLocked(listName, () -> {
+                if (!db.deleteList(listName)) {
+                    return Result.failure("Failed to delete \"" + listName + "\"");
+                }
+                if (snapshots != null) {
+                    snapshots.dropList(listName);
+                }
+                TEXT_ATTRIBUTES.forEach(attr -> fuzzyIndexes.remove(indexKey(listName, attr)));
+                return Result.ok();
+            });
+            if (deleted.isOk()) {
+                publish(ChangeEvent.listDeleted(listName));
+            }
+            return deleted;
+        } finally {
+            DELETE_LIST.record(start);
+        }
+    }
+
+    /**
+     * Called when the user clicks “+” to make a brand‐new list.
+     * Persist it in metadata (and implicitly, a new table is created).
+     * A name starting with an archive's alias and a dot is refused: it would name a list of that archive.
+     */
+    public Result createList(String listName) {
+        long start = System.nanoTime();
+        try {
+            if (listName != null && db.isArchiveList(listName)) {
+                return Result.failure(readOnly(listName));
+            }
+            if (!writeLocked(listName, () -> db.createList(listName))) {
+                return Result.failure("Failed to create \"" + listName + "\"");
+            }
+            publish(ChangeEvent.listCreated(listName));
+            return Result.ok();
+        } finally {
+            CREATE_LIST.record(start);
+        }
+    }
+
+    // ─── COIN CRUD ─────────────────────────────────────────────────────────────────
+
+    /**
+     * Creates a new Coin in the specified list/table (validates inputs).
+     * Required fields are: name, date, grade.
+     *
+     * @param listName  the name of the table into which this coin should be inserted
+     * @param rawFields a map of raw‐string inputs keyed by attribute name, e.g.
+     *                  "name", "date", "grade", "diameter", "thickness", "edge", "weight", "composition", "denomination"
+     *
+     * @return a ValidationResult: if valid, `getCreatedId()` is non‐null; otherwise
+     *         `getErrors()` holds one or more FieldError objects and `getMessages()` one or more plain‐text messages.
+     */
+    public ValidationResult createCoinInList(String listName, Map<String, String> rawFields) {
+        long start = System.nanoTime();
+        try {
+            ValidationResult result = new ValidationResult();
+
+            if (db.isArchiveList(listName)) {
+                result.addMessage(readOnly(listName));
+                return result;
+            }
+            Coin coin = parseCoin(rawFields, result);
+            if (coin == null) {
+                return result;
+            }
+
+            flushWrites();
+            // Insert into exactly the table named `listName`:
+            boolean inserted = writeLocked(listName, () -> db.insertCoin(listName, coin, null, null));
+            if (!inserted) {
+                result.addMessage("Failed to save the coin to \"" + listName + "\"");
+                return result;
+            }
+            changed(listName);
+            publish(ChangeEvent.coinInserted(listName, coin));
+
+            result.setCreatedId(coin.getId());
+            return result;
+        } finally {
+            CREATE_COIN_IN_LIST.record(start);
+        }
+    }
+
+    /**
+     * createCoinInList without waiting for the commit (see saveCoinAsync).  Validation happens
+     * right away: an invalid coin gives an already completed future.
+     */
+    public CompletableFuture<ValidationResult> createCoinInListAsync(String listName, Map<String, String> rawFields) {
+        if (writeBehind == null || db.isArchiveList(listName)) {
+            return CompletableFuture.completedFuture(createCoinInList(listName, rawFields));
+        }
+        long start = System.nanoTime();
+        try {
+            ValidationResult result = new ValidationResult();
+            Coin coin = parseCoin(rawFields, result);
+            if (coin == null) {
+                return CompletableFuture.completedFuture(result);
+            }
+            return writeBehind.submit(new Database.CoinWrite(Database.CoinWrite.Kind.INSERT, listName, coin))
+                    .thenApply(ok -> {
+                        if (!ok) {
+                            result.addMessage("Failed to save the coin to \"" + listName + "\"");
+                            return result;
+                        }
+                        changed(listName);
+                        publish(ChangeEvent.coinInserted(listName, coin));
+                        result.setCreatedId(coin.getId());
+                        return result;
+                    });
+        } finally {
+            CREATE_COIN_IN_LIST.record(start);
+        }
+    }
+
+    /**
+     * Parse-and-validate half of createCoinInList: turns raw strings into a new Coin.
+     * Errors go into `result`; returns null if anything was invalid.
+     */
+    Coin parseCoin(Map<String, String> rawFields, ValidationResult result) {
+        // Pull all raw strings (may be empty):
+        String name           = rawFields.getOrDefault("name", "").trim();
+        String dateText       = rawFields.getOrDefault("date", "").trim();
+        String gradeText      = rawFields.getOrDefault("grade", "").trim();
+
+        // The rest come from Coin.getAttributeNamesInOrder(), but we are only parsing numerics below:
+        String diameterText   = rawFields.getOrDefault("diameter", "").trim();
+        String thicknessText  = rawFields.getOrDefault("thickness", "").trim();
+        String edge           = rawFields.getOrDefault("edge", "").trim();
+        String weightText     = rawFields.getOrDefault("weight", "").trim();
+        String composition    = rawFields.getOrDefault("composition", "").trim();
+        String denomination   = rawFields.getOrDefault("denomination", "").trim();
+
+        // 1) Required: name, date, grade (all three must be nonempty)
+        if (name.isEmpty() || dateText.isEmpty() || gradeText.isEmpty()) {
+            result.addError("name, date, or grade", "required");
+            result.addMessage("Invalid input for name, date, or grade; all are required");
+        }
+
+        // 2) Validate date only if nonempty
+        int dateVal = 0;
+        if (!dateText.isEmpty()) {
+            try {
+                dateVal = Integer.parseInt(dateText);
+            } catch (NumberFormatException e) {
+                result.addError("date", "Integer");
+                result.addMessage("Invalid input for date; a(n) Integer is required");
+            }
+        }
+
+        // 3) Validate diameter if provided
+        double diameterVal = 0.0;
+        if (!diameterText.isEmpty()) {
+            try {
+                diameterVal = Double.parseDouble(diameterText);
+            } catch (NumberFormatException e) {
+                result.addError("diameter", "Double");
+                result.addMessage("Invalid input for diameter; a(n) Double is required");
+            }
+        }
+
+        // 4) Validate thickness if provided
+        double thicknessVal = 0.0;
+        if (!thicknessText.isEmpty()) {
+            try {
+                thicknessVal = Double.parseDouble(thicknessText);
+            } catch (NumberFormatException e) {
+                result.addError("thickness", "Double");
+                result.addMessage("Invalid input for thickness; a(n) Double is required");
+            }
+        }
+
+        // 5) Validate weight if provided
+        double weightVal = 0.0;
+        if (!weightText.isEmpty()) {
+            try {
+                weightVal = Double.parseDouble(weightText);
+            } catch (NumberFormatException e) {
+                result.addError("weight", "Double");
+                result.addMessage("Invalid input for weight; a(n) Double is required");
+            }
+        }
+
+        // If any validation errors so far, bail out:
+        if (!result.isValid()) {
+            return null;
+        }
+
+        // 6) All validation passed → construct Coin object:
+        Coin coin = new Coin();
+        coin.setName(name);
+        coin.setDate(dateVal);
+        coin.setGrade(gradeText);
+        coin.setDiameter(diameterVal);
+        coin.setThickness(thicknessVal);
+        coin.setEdge(edge);
+        coin.setWeight(weightVal);
+        coin.setComposition(composition);
+        coin.setDenomination(denomination);
+        return coin;
+    }
+
+    /** Returns all coins in the given list (from its snapshot when that is still current). */
+    public List<Coin> listCoins(String listName) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return readLocked(listName, () -> {
+                if (snapshots != null) {
+                    List<Coin> cached = snapshots.load(listName);
+                    if (cached != null) {
+                        return cached;
+                    }
+                }
+                return db.getAllCoins(listName);
+            });
+        } finally {
+            LIST_COINS.record(start);
+        }
+    }
+
+    /**
+     * One page of a list, in insertion order, without image bytes.
+     *
+     * @param limit  maximum number of coins to return
+     * @param offset number of coins to skip
+     */
+    public List<Coin> listCoinsPage(String listName, int limit, long offset) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return readLocked(listName, () -> db.getCoinsPage(listName, limit, offset));
+        } finally {
+            LIST_COINS_PAGE.record(start);
+        }
+    }
+
+    /**
+     * One page of the coins graded `minGrade`…`maxGrade` on the Sheldon scale (parse user input
+     * such as "MS-63" with Grade.parseBound), best grade first.  An indexed range scan, so
+     * "MS-63 or better" costs the same in a list of a hundred coins or a million.
+     */
+    public List<Coin> listCoinsByGrade(String listName, int minGrade, int maxGrade, int limit, long offset) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return readLocked(listName, () -> db.getCoinsByGrade(listName, minGrade, maxGrade, limit, offset));
+        } finally {
+            LIST_COINS_BY_GRADE.record(start);
+        }
+    }
+
+    /**
+     * Every coin graded `minGrade`…`maxGrade`, best first, handed to `sink` as it is read – the
+     * whole range in one scan, for exports.  No list lock is held, as in streamCoins.
+     *
+     * @return the number of coins passed to `sink`
+     */
+    public long streamCoinsByGrade(String listName, int minGrade, int maxGrade, Consumer<Coin> sink) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return db.streamCoinsByGrade(listName, minGrade, maxGrade, sink);
+        } finally {
+            STREAM_COINS_BY_GRADE.record(start);
+        }
+    }
+
+    /**
+     * One page of a list sorted by `order` (see SortKey.parse), sorted and cut in the database,
+     * so a top-K over a huge list loads only K coins.  With a non-null `attr` only coins matching
+     * `value` (as in searchCoins with MatchMode.CONTAINS) are included – "the ten heaviest
+     * silver coins" is {@code listCoinsSorted(list, "composition", "silver", SortKey.parse("weight:desc"), 10, 0)}.
+     */
+    public List<Coin> listCoinsSorted(String listName, String attr, String value, List<SortKey> order,
+                                      int limit, long offset) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return readLocked(listName, () -> db.getCoinsSorted(listName, attr, value, order, limit, offset));
+        } finally {
+            LIST_COINS_SORTED.record(start);
+        }
+    }
+
+    /** listCoinsSorted over the whole list. */
+    public List<Coin> listCoinsSorted(String listName, List<SortKey> order, int limit, long offset) {
+        return listCoinsSorted(listName, null, null, order, limit, offset);
+    }
+
+    /** Number of coins in the given list. */
+    public long countCoins(String listName) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return readLocked(listName, () -> db.countCoins(listName));
+        } finally {
+            COUNT_COINS.record(start);
+        }
+    }
+
+    /**
+     * Search within a given list by attribute/value (partial match for name).
+     * Numeric attributes must match exactly.
+     *
+     * @param listName which table to query
+     * @param attr     attribute name (e.g. "name", "date", "diameter", etc.)
+     * @param value    text to search for (partial for strings, exact for numerics)
+     */
+    public List<Coin> searchCoins(String listName, String attr, String value) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            // the same SQL filter as searchAllLists, so both find the same coins
+            return readLocked(listName, () -> db.searchCoins(listName, attr, value, Integer.MAX_VALUE));
+        } finally {
+            SEARCH_COINS.record(start);
+        }
+    }
+
+    /**
+     * searchCoins with an explicit match mode.  FUZZY applies to the text attributes (name, grade,
+     * edge, composition, denomination) and returns up to coinnavigator.search.fuzzyLimit (100)
+     * coins, closest first; numeric attributes still match exactly.
+     */
+    public List<Coin> searchCoins(String listName, String attr, String value, MatchMode mode) {
+        if (mode != MatchMode.FUZZY || !TEXT_ATTRIBUTES.contains(attr)) {
+            return searchCoins(listName, attr, value);
+        }
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return readLocked(listName, () -> {
+                List<TrigramIndex.Hit> hits = fuzzyIndex(listName, attr).search(value, FUZZY_LIMIT);
+                List<String> ids = hits.stream().map(h -> h.id().toString()).toList();
+                Map<String, Coin> coins = db.getCoinsByIds(listName, ids);
+                List<Coin> ranked = new ArrayList<>(ids.size());
+                for (String id : ids) {
+                    Coin c = coins.get(id);
+                    if (c != null) ranked.add(c);
+                }
+                return ranked;
+            });
+        } finally {
+            FUZZY_SEARCH.record(start);
+        }
+    }
+
+    /**
+     * The fuzzy index of `listName`/`attr`: built on first use, afterwards brought up to date from
+     * the change log (rebuilt only if the list was re-created or too much changed).  Caller holds
+     * the read lock.
+     */
+    private TrigramIndex fuzzyIndex(String listName, String attr) {
+        String key = indexKey(listName, attr);
+        long latest = db.getLatestChangeSeq();
+        TrigramIndex index = fuzzyIndexes.get(key);
+        if (index != null && (index.getSeq() == latest || catchUp(listName, attr, index, latest))) {
+            return index;
+        }
+        long start = System.nanoTime();
+        try {
+            TrigramIndex built = new TrigramIndex();
+            // seq read before the scan: a change racing with it is replayed by the next catch-up
+            built.setSeq(latest);
+            long rows = db.streamCoins(listName, c -> built.put(c.getId(), c.getAttributeValue(attr)));
+            fuzzyIndexes.put(key, built);
+            BUILD_FUZZY_INDEX.addRowsRead(rows);
+            return built;
+        } finally {
+            BUILD_FUZZY_INDEX.record(start);
+        }
+    }
+
+    /**
+     * Re-reads the coins of `listName` named in the change log after the index's seq and applies
+     * them to `index`.  Replaying a change is harmless, since each coin is re-read as it is now.
+     *
+     * @return false (index untouched) if a rebuild is due instead
+     */
+    private boolean catchUp(String listName, String attr, TrigramIndex index, long latest) {
+        long start = System.nanoTime();
+        try {
+            long seq = index.getSeq();
+            Set<String> touched = new LinkedHashSet<>();
+            while (seq < latest) {
+                List<Database.Change> changes = db.getChangesSince(seq, CATCH_UP_BATCH);
+                if (changes.isEmpty()) {
+                    break;
+                }
+                if (changes.get(0).seq() != seq + 1) {
+                    return false;                                   // log trimmed past the index's seq
+                }
+                for (Database.Change change : changes) {
+                    seq = change.seq();
+                    if (!change.listName().equals(listName)) continue;
+                    if (change.coinId() == null) {
+                        return false;                               // list deleted or re-created
+                    }
+                    touched.add(change.coinId());
+                }
+                if (touched.size() > Math.max(CATCH_UP_BATCH, index.size() / 4)) {
+                    return false;                                   // a fresh scan is cheaper
+                }
+            }
+            List<String> ids = new ArrayList<>(touched);
+            for (int from = 0; from < ids.size(); from += 500) {
+                List<String> chunk = ids.subList(from, Math.min(ids.size(), from + 500));
+                Map<String, Coin> current = db.getCoinsByIds(listName, chunk);
+                for (String id : chunk) {
+                    Coin coin = current.get(id);
+                    if (coin == null) {
+                        index.remove(UUID.fromString(id));
+                    } else {
+                        index.put(coin.getId(), coin.getAttributeValue(attr));
+                    }
+                }
+            }
+            index.setSeq(seq);
+            CATCH_UP_FUZZY_INDEX.addRowsRead(ids.size());
+            return true;
+        } finally {
+            CATCH_UP_FUZZY_INDEX.record(start);
+        }
+    }
+
+    /**
+     * searchCoins over every list at once.  The per-list queries run in parallel (each on its own
+     * pooled read connection) and filter in SQL; results carry the list they came from.  Once
+     * `limit` matches are in, lists still waiting are skipped, so a few quick hits answer
+     * "do I already own this?" without scanning the rest.
+     *
+     * @param limit at most this many matches (fewer lists may be searched when it is reached)
+     * @return matches ordered by list (getAllListNames order), then insertion order
+     */
+    public List<ListMatch> searchAllLists(String attr, String value, int limit) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            List<String> lists = db.getAllListNames();
+            AtomicInteger found = new AtomicInteger();
+            CompletionService<List<ListMatch>> done = new ExecutorCompletionService<>(searchPool);
+            List<Future<List<ListMatch>>> tasks = new ArrayList<>();
+            for (String list : lists) {
+                tasks.add(done.submit(() -> {
+                    if (found.get() >= limit) {
+                        return List.of();
+                    }
+                    List<Coin> coins = readLocked(list, () -> db.searchCoins(list, attr, value, limit));
+                    found.addAndGet(coins.size());
+                    return coins.stream().map(c -> new ListMatch(list, c)).toList();
+                }));
+            }
+
+            List<ListMatch> matches = new ArrayList<>();
+            try {
+                for (int i = 0; i < tasks.size() && matches.size() < limit; i++) {
+                    matches.addAll(done.take().get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                SEARCH_ALL_LISTS.error();
+                e.getCause().printStackTrace();
+            } finally {
+                tasks.forEach(t -> t.cancel(false));
+            }
+
+            Map<String, Integer> order = new HashMap<>();
+            for (int i = 0; i < lists.size(); i++) {
+                order.put(lists.get(i), i);
+            }
+            matches.sort(Comparator.comparingInt(m -> order.get(m.listName())));   // stable: rowid order kept
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        } finally {
+            SEARCH_ALL_LISTS.record(start);
+        }
+    }
+
+    /**
+     * Streaming form of listCoins/searchCoins for large lists: every coin of `listName` that
+     * matches attr/value (all of them when attr is null) is handed to `sink` as it is read.
+     * Coins arrive without image bytes.  No list lock is held (a slow consumer would stall
+     * writers); SQLite's read transaction already gives the stream a consistent view.
+     *
+     * @return the number of coins passed to `sink`
+     */
+    public long streamCoins(String listName, String attr, String value, Consumer<Coin> sink) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return db.streamCoins(listName, attr, value, sink);
+        } finally {
+            STREAM_COINS.record(start);
+        }
+    }
+
+    /**
+     * streamCoins for a consumer that may stall, such as a network client: coins are read
+     * `chunk` at a time and handed over between reads, so no pooled read connection or WAL
+     * snapshot is held while `sink` runs (see Database.streamCoinsChunked).
+     */
+    public long streamCoins(String listName, String attr, String value, int chunk, Consumer<Coin> sink) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return db.streamCoinsChunked(listName, attr, value, chunk, sink);
+        } finally {
+            STREAM_COINS.record(start);
+        }
+    }
+
+    /** Persist edits to an existing Coin in the given list. */
+    public Result saveCoin(String listName, Coin coin) {
+        long start = System.nanoTime();
+        try {
+            if (db.isArchiveList(listName)) {
+                return Result.failure(readOnly(listName));
+            }
+            flushWrites();
+            if (!writeLocked(listName, () -> db.updateCoin(listName, coin))) {
+                return Result.failure("Failed to save \"" + coin.getName() + "\"");
+            }
+            changed(listName);
+            publish(ChangeEvent.coinUpdated(listName, coin));
+            return Result.ok();
+        } finally {
+            SAVE_COIN.record(start);
+        }
+    }
+
+    /**
+     * saveCoin without waiting for the commit: with write-behind enabled the edit is buffered
+     * (and merged with further edits of the same coin) and the future completes once it is
+     * durable.  Without write-behind this is saveCoin, already completed.
+     */
+    public CompletableFuture<Result> saveCoinAsync(String listName, Coin coin) {
+        if (writeBehind == null || db.isArchiveList(listName)) {
+            return CompletableFuture.completedFuture(saveCoin(listName, coin));
+        }
+        long start = System.nanoTime();
+        try {
+            return writeBehind.submit(new Database.CoinWrite(Database.CoinWrite.Kind.UPDATE, listName, coin))
+                    .thenApply(ok -> committed(ok, listName, coin, false, "Failed to save \"" + coin.getName() + "\""));
+        } finally {
+            SAVE_COIN.record(start);
+        }
+    }
+
+    /** Result of a buffered write of `coin` once its flush is done; marks the list changed if it was applied. */
+    private Result committed(boolean ok, String listName, Coin coin, boolean deleted, String failure) {
+        if (!ok) {
+            return Result.failure(failure);
+        }
+        changed(listName);
+        publish(deleted ? ChangeEvent.coinDeleted(listName, coin) : ChangeEvent.coinUpdated(listName, coin));
+        return Result.ok();
+    }
+
+    /**
+     * Validates and applies a partial edit (attribute name → raw string) to `coin`, then saves it.
+     * Same rules as createCoinInList: name, date and grade may not be blanked, numerics must parse.
+     * On any error nothing is changed and `getErrors()`/`getMessages()` say why.
+     */
+    public ValidationResult editCoin(String listName, Coin coin, Map<String, String> rawFields) {
+        long start = System.nanoTime();
+        try {
+            ValidationResult result = new ValidationResult();
+            if (db.isArchiveList(listName)) {
+                result.addMessage(readOnly(listName));
+                return result;
+            }
+            List<String> attrs = Coin.getAttributeNamesInOrder();
+            for (Map.Entry<String, String> e : rawFields.entrySet()) {
+                String attr = e.getKey();
+                String value = e.getValue() == null ? "" : e.getValue().trim();
+                if (!attrs.contains(attr)) {
+                    result.addError(attr, "attribute");
+                    result.addMessage("Unknown attribute " + attr);
+                    continue;
+                }
+                if (value.isEmpty() && (attr.equals("name") || attr.equals("date") || attr.equals("grade"))) {
+                    result.addError(attr, "required");
+                    result.addMessage("Invalid input for " + attr + "; it is required");
+                    continue;
+                }
+                try {
+                    switch (attr) {
+                        case "date" -> Integer.parseInt(value);
+                        case "diameter", "thickness", "weight" -> {
+                            if (!value.isEmpty()) Double.parseDouble(value);
+                        }
+                        default -> { }
+                    }
+                } catch (NumberFormatException ex) {
+                    String type = attr.equals("date") ? "Integer" : "Double";
+                    result.addError(attr, type);
+                    result.addMessage("Invalid input for " + attr + "; a(n) " + type + " is required");
+                }
+            }
+            if (!result.isValid()) {
+                return result;
+            }
+
+            // edit a copy: `coin` (often a row on screen) only takes the new values once they are saved
+            Coin edited = new Coin(coin.getId());
+            for (String attr : attrs) {
+                edited.setAttributeValue(attr, coin.getAttributeValue(attr));
+            }
+            for (Map.Entry<String, String> e : rawFields.entrySet()) {
+                String value = e.getValue() == null ? "" : e.getValue().trim();
+                // a blank optional numeric means 0, as in parseCoin
+                boolean numeric = List.of("diameter", "thickness", "weight").contains(e.getKey());
+                edited.setAttributeValue(e.getKey(), value.isEmpty() && numeric ? "0" : value);
+            }
+
+            flushWrites();
+            boolean saved = writeLocked(listName, () -> {
+                if (!db.updateCoin(listName, edited)) {
+                    return false;
+                }
+                for (String attr : rawFields.keySet()) {
+                    coin.setAttributeValue(attr, edited.getAttributeValue(attr));
+                }
+                return true;
+            });
+            if (!saved) {
+                result.addMessage("Failed to save \"" + coin.getName() + "\"");
+                return result;
+            }
+            changed(listName);
+            publish(ChangeEvent.coinUpdated(listName, coin));
+            return result;
+        } finally {
+            EDIT_COIN.record(start);
+        }
+    }
+
+    /** Delete a Coin from the given list. */
+    public Result deleteCoin(String listName, Coin coin) {
+        long start = System.nanoTime();
+        try {
+            if (db.isArchiveList(listName)) {
+                return Result.failure(readOnly(listName));
+            }
+            flushWrites();
+            if (!writeLocked(listName, () -> db.deleteCoin(listName, coin.getId().toString()))) {
+                return Result.failure("Failed to delete \"" + coin.getName() + "\"");
+            }
+            changed(listName);
+            publish(ChangeEvent.coinDeleted(listName, coin));
+            return Result.ok();
+        } finally {
+            DELETE_COIN.record(start);
+        }
+    }
+
+    /** deleteCoin without waiting for the commit (see saveCoinAsync). */
+    public CompletableFuture<Result> deleteCoinAsync(String listName, Coin coin) {
+        if (writeBehind == null || db.isArchiveList(listName)) {
+            return CompletableFuture.completedFuture(deleteCoin(listName, coin));
+        }
+        long start = System.nanoTime();
+        try {
+            return writeBehind.submit(new Database.CoinWrite(Database.CoinWrite.Kind.DELETE, listName, coin))
+                    .thenApply(ok -> committed(ok, listName, coin, true, "Failed to delete \"" + coin.getName() + "\""));
+        } finally {
+            DELETE_COIN.record(start);
+        }
+    }
+
+    /** Look up a Coin by its UUID in the given list. */
+    public Coin getCoinById(String listName, String id) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return readLocked(listName, () -> db.getCoinById(listName, id));
+        } finally {
+            GET_COIN_BY_ID.record(start);
+        }
+    }
+
+    /**
+     * Move a Coin from one list to another (one database transaction, both lists locked).
+     *
+     * @param fromList the source table name
+     * @param toList the destination table name
+     * @param coin the Coin to move
+     * @return a failed Result (with the reason) if the coin was not moved
+     */
+    public Result moveCoin(String fromList, String toList, Coin coin) {
+        long start = System.nanoTime();
+        try {
+            if (fromList == null || toList == null || coin == null || fromList.equals(toList)) {
+                return Result.failure("Invalid move operation");
+            }
+            if (db.isArchiveList(fromList) || db.isArchiveList(toList)) {
+                return Result.failure(readOnly(db.isArchiveList(fromList) ? fromList : toList));
+            }
+            flushWrites();
+            // Database.moveCoin copies the stored row, so image bytes survive even when `coin` came from a snapshot
+            if (!writeLocked(fromList, toList, () -> db.moveCoin(fromList, toList, coin))) {
+                return Result.failure("Failed to move coin to \"" + toList + "\"");
+            }
+            changed(fromList);
+            changed(toList);
+            publish(ChangeEvent.coinMoved(fromList, toList, coin));
+            return Result.ok();
+        } finally {
+            MOVE_COIN.record(start);
+        }
+    }
+
+    // ─── IMAGES ────────────────────────────────────────────────────────────────────
+
+    /** Sets one side of `coin` from an image file (see attachImages). */
+    public ImageImportResult attachImage(String listName, Coin coin, ImageIngestor.Side side, Path file) {
+        return attachImages(listName, List.of(new ImageIngestor.Job(file, coin.getId().toString(), side)));
+    }
+
+    /**
+     * Imports every image file in `dir` into the coin of `listName` it is named after – the
+     * coin's id or name, optionally followed by a side: "Morgan Dollar_back.jpg",
+     * "Morgan Dollar.jpg" (obverse).  A name must belong to exactly one coin of the list; files
+     * that match no coin are reported, not imported.
+     */
+    public ImageImportResult attachImageFolder(String listName, Path dir) {
+        ImageImportResult result = new ImageImportResult();
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(dir)) {
+            files = entries.filter(Files::isRegularFile).filter(ImageIngestor::isImageFile).sorted().toList();
+        } catch (IOException e) {
+            result.addMessage("Cannot read folder " + dir + ": " + e.getMessage());
+            return result;
+        }
+
+        Set<String> ids = new HashSet<>();
+        Map<String, List<String>> idsByName = new HashMap<>();
+        streamCoins(listName, null, null, c -> {
+            ids.add(c.getId().toString());
+            idsByName.computeIfAbsent(c.getName().toLowerCase(), n -> new ArrayList<>()).add(c.getId().toString());
+        });
+        List<ImageIngestor.Job> jobs = new ArrayList<>();
+        for (Path file : files) {
+            ImageIngestor.FileKey key = ImageIngestor.FileKey.of(file);
+            List<String> named = idsByName.getOrDefault(key.key().toLowerCase(), List.of());
+            String id = ids.contains(key.key().toLowerCase()) ? key.key().toLowerCase()
+                    : named.size() == 1 ? named.get(0) : null;
+            if (id == null) {
+                result.addMessage(file.getFileName() + ": " + (named.isEmpty()
+                        ? "no coin with that id or name in " + listName
+                        : named.size() + " coins are named \"" + key.key() + "\""));
+            } else {
+                jobs.add(new ImageIngestor.Job(file, id, key.side()));
+            }
+        }
+        ImageImportResult imported = attachImages(listName, jobs);
+        imported.getMessages().forEach(result::addMessage);
+        result.attached = imported.attached;
+        return result;
+    }
+
+    /**
+     * Processes the image files of `jobs` on the image worker pool (see ImageIngestor) and
+     * stores them as they finish, IMAGE_BATCH per transaction, so decoding and writing overlap.
+     * Blocks until done: call it off the FX thread.  Publishes COIN_UPDATED for each coin.
+     */
+    public ImageImportResult attachImages(String listName, List<ImageIngestor.Job> jobs) {
+        long start = System.nanoTime();
+        try {
+            ImageImportResult result = new ImageImportResult();
+            if (db.isArchiveList(listName)) {
+                result.addMessage(readOnly(listName));
+                return result;
+            }
+            flushWrites();
+            List<Database.ImageWrite> batch = new ArrayList<>();
+            try {
+                images.run(jobs, new ImageIngestor.Sink() {
+                    private long bytes;
+
+                    @Override
+                    public void processed(ImageIngestor.Job job, byte[] png) {
+                        batch.add(new Database.ImageWrite(job.coinId(), job.side() == ImageIngestor.Side.OBVERSE, png));
+                        bytes += png.length;
+                        if (batch.size() >= IMAGE_BATCH || bytes >= IMAGE_BATCH_BYTES) {
+                            writeImages(listName, batch, result);
+                            bytes = 0;
+                        }
+                    }
+
+                    @Override
+                    public void failed(ImageIngestor.Job job, Throwable error) {
+                        result.addMessage(job.file().getFileName() + ": " + error.getMessage());
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.addMessage("Image import interrupted");
+            }
+            writeImages(listName, batch, result);
+            return result;
+        } finally {
+            ATTACH_IMAGES.record(start);
+        }
+    }
+
+    /**
+     * One side's PNG of a coin, as a lease on a read-only view of it (see ImageCache): decode or
+     * send it, then close the lease.  Misses are read from the database and cached off-heap.
+     * The cache follows the change log, so it never serves an image that has since been
+     * replaced or deleted, by this process or another.
+     *
+     * @return null if the coin does not exist or has no such image
+     */
+    public ImageCache.Lease getImage(String listName, String coinId, ImageIngestor.Side side) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            long seq = syncImageCache();
+            boolean obverse = side == ImageIngestor.Side.OBVERSE;
+            ImageCache.Key key = new ImageCache.Key(listName, coinId, obverse);
+            ImageCache.Lease lease = imageCache.get(key);
+            if (lease == null) {
+                byte[] png = readLocked(listName, () -> db.getImage(listName, coinId, obverse));
+                if (png == null) {
+                    return null;
+                }
+                lease = imageCache.put(key, png, seq);
+            }
+            GET_IMAGE.addBytesRead(lease.buffer().remaining());
+            return lease;
+        } finally {
+            GET_IMAGE.record(start);
+        }
+    }
+
+    /**
+     * Drops the cached images of every coin in the change log since the cache's seq (all of a
+     * list's for a list-level entry); returns the seq the cache now reflects.  After a long
+     * absence, or a gap in the log, it is cheaper and safer to start over.
+     */
+    private long syncImageCache() {
+        long latest = db.getLatestChangeSeq();
+        synchronized (imageCache) {
+            long seq = imageCache.getSeq();
+            if (seq < 0) {
+                imageCache.clear();
+                seq = latest;
+            }
+            for (int batch = 0; seq < latest; batch++) {
+                List<Database.Change> changes = db.getChangesSince(seq, CATCH_UP_BATCH);
+                if (changes.isEmpty() || batch == 10 || changes.get(0).seq() != seq + 1) {
+                    imageCache.clear();
+                    seq = latest;
+                    break;
+                }
+                for (Database.Change change : changes) {
+                    seq = change.seq();
+                    if (change.coinId() == null) {
+                        imageCache.invalidateList(change.listName());
+                    } else {
+                        imageCache.invalidate(change.listName(), change.coinId());
+                    }
+                }
+            }
+            imageCache.setSeq(seq);
+            return seq;
+        }
+    }
+
+    /** Writes and empties `batch`, then publishes the updated coins. */
+    private void writeImages(String listName, List<Database.ImageWrite> batch, ImageImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        boolean[] applied = writeLocked(listName, () -> db.updateImages(listName, batch));
+        Set<String> updated = new LinkedHashSet<>();
+        for (int i = 0; i < applied.length; i++) {
+            if (applied[i]) {
+                result.attached++;
+                updated.add(batch.get(i).coinId());
+            } else {
+                result.addMessage("Could not save an image of coin " + batch.get(i).coinId() + " in " + listName);
+            }
+        }
+        batch.clear();
+        if (!updated.isEmpty()) {
+            changed(listName);
+            Map<String, Coin> coins = readLocked(listName, () -> db.getCoinsByIds(listName, new ArrayList<>(updated)));
+            coins.values().forEach(c -> publish(ChangeEvent.coinUpdated(listName, c)));
+        }
+    }
+
+    // ─── STATISTICS ────────────────────────────────────────────────────────────────
+
+    /**
+     * Counts and weights of `listName`, overall and per denomination, composition, year and
+     * decade.  Kept current by the database on every write, so this never scans the list.
+     *
+     * @return null if there is no such list
+     */
+    public CollectionStats getStats(String listName) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return db.getStats(listName);
+        } finally {
+            GET_STATS.record(start);
+        }
+    }
+
+    /** Coin count of every list (list name → count), in one small query. */
+    public Map<String, Long> getListCounts() {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            return db.getListCounts();
+        } finally {
+            GET_LIST_COUNTS.record(start);
+        }
+    }
+
+    // ─── CHANGE LOG ────────────────────────────────────────────────────────────────
+
+    /**
+     * Up to `limit` change-log entries after `seq`, oldest first (see Database.getChangesSince):
+     * for caches and exporters that sync incrementally instead of re-reading whole lists.
+     */
+    public List<Database.Change> getChangesSince(long seq, int limit) {
+        long start = System.nanoTime();
+        try {
+            flushWrites();
+            List<Database.Change> changes = db.getChangesSince(seq, limit);
+            GET_CHANGES_SINCE.addRowsRead(changes.size());
+            return changes;
+        } finally {
+            GET_CHANGES_SINCE.record(start);
+        }
+    }
+
+    /** The newest change-log seq; sync from here to see only what changes next. */
+    public long getLatestChangeSeq() {
+        flushWrites();
+        return db.getLatestChangeSeq();
+    }
+
+    /** Timing/row/byte metrics for every Controller and Database operation, as a text table. */
+    public String getMetricsReport() {
+        return Metrics.report() + imageCache.summary() + (maintenance == null ? "" : maintenance.summary());
+    }
+
+    // ─── MAINTENANCE ───────────────────────────────────────────────────────────────
+
+    /** What each background maintenance task has done since start-up (empty if it is switched off). */
+    public List<Maintenance.TaskStatus> getMaintenanceStatus() {
+        return maintenance == null ? List.of() : maintenance.getStatus();
+    }
+
+    /**
+     * Runs every maintenance task now (see Maintenance), without waiting for the database to be
+     * idle, and returns its summary; null if maintenance is switched off.
+     */
+    public String runMaintenance() {
+        flushWrites();
+        return maintenance == null ? null : maintenance.runNow();
+    }
+
+    /** Returns the list of attribute names (in order) for display/search. */
+    public List<String> getCoinAttributeNames() {
+        long start = System.nanoTime();
+        try {
+            return Coin.getAttributeNamesInOrder();
+        } finally {
+            GET_COIN_ATTRIBUTE_NAMES.record(start);
+        }
+    }
+
+
+    // ─── BACKUP / RESTORE ──────────────────────────────────────────────────────────
+
+    /** Takes a hot backup now (see Backups); the result holds the new file, or why there is none. */
+    public BackupResult backup() {
+        long start = System.nanoTime();
+        BackupResult result = new BackupResult();
+        try {
+            flushWrites();
+            result.backup = backups.create();
+        } catch (IOException e) {
+            BACKUP.error();
+            result.addMessage("Backup failed: " + e.getMessage());
+        } finally {
+            BACKUP.record(start);
+        }
+        return result;
+    }
+
+    /** Existing backups, newest first (empty if the folder cannot be read). */
+    public List<Backups.Info> listBackups() {
+        try {
+            return backups.list();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+
+    /**
+     * Replaces the whole database with the backup `file`, once it has passed its check.  Holds
+     * every list lock meanwhile and then drops everything cached from the old data (fuzzy
+     * indexes, images, snapshots); open views should reload their lists.
+     */
+    public Result restoreBackup(Path file) {
+        long start = System.nanoTime();
+        flushWrites();
+        List<String> before = db.getAllListNames();
+        for (ReentrantReadWriteLock l : listLocks) {
+            l.writeLock().lock();
+        }
+        try {
+            backups.restore(file);
+            fuzzyIndexes.clear();
+            synchronized (imageCache) {
+                imageCache.clear();
+                imageCache.setSeq(-1);
+            }
+            if (snapshots != null) {
+                Set<String> lists = new LinkedHashSet<>(before);
+                lists.addAll(db.getAllListNames());
+                lists.forEach(snapshots::dropList);
+            }
+            return Result.ok();
+        } catch (IOException e) {
+            RESTORE_BACKUP.error();
+            return Result.failure("Restore failed: " + e.getMessage());
+        } finally {
+            for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+                listLocks[i].writeLock().unlock();
+            }
+            RESTORE_BACKUP.record(start);
+        }
+    }
+
+    // ─── RESULT / FIELD‐ERROR / VALIDATION CLASSES ────────────────────────────────
+
+    /** One hit of searchAllLists: a coin (without image bytes) and the list it is in. */
+    public record ListMatch(String listName, Coin coin) {}
+
+    /** Outcome of one Controller call: ok, or the plain‐text messages saying why not. */
+    public static class Result {
+        private final List<String> messages = new ArrayList<>();
+
+        public static Result ok() { return new Result(); }
+        public static Result failure(String message) {
+            Result r = new Result();
+            r.addMessage(message);
+            return r;
+        }
+
+        public List<String> getMessages() { return messages; }
+        public boolean isOk() { return messages.isEmpty(); }
+        public void addMessage(String message) { messages.add(message); }
+    }
+
+    public static class FieldError {
+        private final String field;
+        private final String expectedType;
+
+        public FieldError(String field, String expectedType) {
+            this.field = field;
+            this.expectedType = expectedType;
+        }
+        public String getField() { return field; }
+        public String getExpectedType() { return expectedType; }
+    }
+
+    public static class ImageImportResult extends Result {
+        private int attached;
+
+        /** Number of images stored (one per coin side). */
+        public int getAttached() { return attached; }
+    }
+
+    public static class BackupResult extends Result {
+        private Backups.Info backup;
+
+        /** The new backup file, or null if it failed. */
+        public Backups.Info getBackup() { return backup; }
+    }
+
+    public static class ValidationResult extends Result {
+        private final List<FieldError> errors = new ArrayList<>();
+        private UUID createdId;
+
+        public List<FieldError> getErrors() { return errors; }
+        public boolean isValid() { return errors.isEmpty() && isOk(); }
+        public UUID getCreatedId() { return createdId; }
+        public void setCreatedId(UUID id) { this.createdId = id; }
+        public void addError(String field, String expectedType) {
+            errors.add(new FieldError(field, expectedType));
+        }
+    }
+}
@@ -0,0 +1,1975 @@
+package coinnavigator;
+
+import org.sqlite.SQLiteConnection;
+import org.sqlite.core.DB;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Database class to manage Coin objects using SQLite.
+ * Now supports multiple “lists” (each list = its own table).
+ *
+ * The file runs in WAL mode.  Reads borrow a connection from a small pool and run
+ * concurrently; every write is queued to a single writer thread (see WriteQueue), which
+ * commits whatever has piled up in one transaction.  Write methods still block until
+ * their own change is committed.
+ *
+ * Every coin insert/update/delete (by triggers, so also from other processes) and every list
+ * created or deleted is appended to a change log; see getChangesSince.
+ */
+public class Database implements AutoCloseable {
+
+    // ─── Operation metrics (see Metrics) ────────────────────────────────────────────
+    private static final Metrics.OperationStats BOOTSTRAP_SCHEMA = Metrics.op("Database.bootstrapSchema");
+    private static final Metrics.OperationStats CREATE_LIST = Metrics.op("Database.createList");
+    private static final Metrics.OperationStats GET_ALL_LIST_NAMES = Metrics.op("Database.getAllListNames");
+    private static final Metrics.OperationStats GET_CHANGE_COUNTER = Metrics.op("Database.getChangeCounter");
+    private static final Metrics.OperationStats GET_CHANGES_SINCE = Metrics.op("Database.getChangesSince");
+    private static final Metrics.OperationStats GET_LATEST_CHANGE_SEQ = Metrics.op("Database.getLatestChangeSeq");
+    private static final Metrics.OperationStats GET_IDENTITY = Metrics.op("Database.getIdentity");
+    private static final Metrics.OperationStats GET_STATS = Metrics.op("Database.getStats");
+    private static final Metrics.OperationStats GET_LIST_COUNTS = Metrics.op("Database.getListCounts");
+    private static final Metrics.OperationStats INSERT_COIN = Metrics.op("Database.insertCoin");
+    private static final Metrics.OperationStats INSERT_COINS = Metrics.op("Database.insertCoins");
+    private static final Metrics.OperationStats GET_COIN_BY_ID = Metrics.op("Database.getCoinById");
+    private static final Metrics.OperationStats GET_COINS_BY_IDS = Metrics.op("Database.getCoinsByIds");
+    private static final Metrics.OperationStats GET_IMAGE = Metrics.op("Database.getImage");
+    private static final Metrics.OperationStats GET_ALL_COINS = Metrics.op("Database.getAllCoins");
+    private static final Metrics.OperationStats STREAM_COINS = Metrics.op("Database.streamCoins");
+    private static final Metrics.OperationStats STREAM_COINS_BY_GRADE = Metrics.op("Database.streamCoinsByGrade");
+    private static final Metrics.OperationStats GET_COINS_PAGE = Metrics.op("Database.getCoinsPage");
+    private static final Metrics.OperationStats COUNT_COINS = Metrics.op("Database.countCoins");
+    private static final Metrics.OperationStats SEARCH_COINS = Metrics.op("Database.searchCoins");
+    private static final Metrics.OperationStats GET_COINS_BY_GRADE = Metrics.op("Database.getCoinsByGrade");
+    private static final Metrics.OperationStats GET_COINS_SORTED = Metrics.op("Database.getCoinsSorted");
+    private static final Metrics.OperationStats UPDATE_COIN = Metrics.op("Database.updateCoin");
+    private static final Metrics.OperationStats DELETE_COIN = Metrics.op("Database.deleteCoin");
+    private static final Metrics.OperationStats MOVE_COIN = Metrics.op("Database.moveCoin");
+    private static final Metrics.OperationStats DELETE_LIST = Metrics.op("Database.deleteList");
+    private static final Metrics.OperationStats UPDATE_IMAGES = Metrics.op("Database.updateImages");
+    private static final Metrics.OperationStats APPLY_WRITES = Metrics.op("Database.applyWrites");
+    private static final Metrics.OperationStats GET_STORAGE_STATS = Metrics.op("Database.getStorageStats");
+    private static final Metrics.OperationStats ANALYZE = Metrics.op("Database.analyze");
+    private static final Metrics.OperationStats INCREMENTAL_VACUUM = Metrics.op("Database.incrementalVacuum");
+    private static final Metrics.OperationStats VACUUM = Metrics.op("Database.enableIncrementalVacuum");
+    private static final Metrics.OperationStats CHECKPOINT = Metrics.op("Database.checkpoint");
+    private static final Metrics.OperationStats QUICK_CHECK = Metrics.op("Database.quickCheck");
+    private static final Metrics.OperationStats TRIM_CHANGES = Metrics.op("Database.trimChanges");
+    private static final Metrics.OperationStats GET_MAINTENANCE_RUNS = Metrics.op("Database.getMaintenanceRuns");
+    private static final Metrics.OperationStats RECORD_MAINTENANCE_RUN = Metrics.op("Database.recordMaintenanceRun");
+    private static final Metrics.OperationStats BACKUP = Metrics.op("Database.backup");
+    private static final Metrics.OperationStats RESTORE = Metrics.op("Database.restore");
+    private static final Metrics.OperationStats VERIFY_FILE = Metrics.op("Database.verifyFile");
+    private static final Metrics.OperationStats ATTACH_ARCHIVE = Metrics.op("Database.attachArchive");
+
+    // coins.db under the user's home directory, unless -Dcoinnavigator.db.path says otherwise:
+    private static final String DEFAULT_PATH = System.getProperty("user.home") + File.separator + "coins.db";
+    private static final String DB_URL = "jdbc:sqlite:" + Config.getString("db.path", DEFAULT_PATH);
+
+    // Archive files to mount read-only next to it: -Dcoinnavigator.db.attach=alias=path,alias=path
+    private static final Pattern ALIAS = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    // SQLite waits this long for a lock held by another process before reporting SQLITE_BUSY;
+    // the writer then retries the whole group commit a few more times with a short backoff.
+    private static final int BUSY_TIMEOUT_MILLIS = Config.getInt("db.busyTimeoutMillis", 5000);
+    private static final int MAX_ATTEMPTS = Config.getInt("db.busyRetries", 3) + 1;
+    private static final int READERS = Config.getInt("db.readers", 4);
+    private static final int GROUP_COMMIT_MAX = Config.getInt("db.groupCommitMax", 256);
+
+    private final String dbUrl;
+    private final DurabilityProfile profile;
+    private final Properties connectionProps = new Properties();
+    private final SqlTrace trace = new SqlTrace();
+    private final Map<String, Path> archives = new LinkedHashMap<>();    // alias → file, as attached
+    private final Map<String, UUID> identities = new ConcurrentHashMap<>();    // schema → its file's id
+    private final ConnectionPool readers;
+    private final WriteQueue writer;
+    private volatile long lastUse = System.nanoTime();    // last read or write, not counting maintenance
+
+    /** Opens the configured database (db.path) and mounts the configured archives (db.attach). */
+    public Database() {
+        this(DB_URL, DurabilityProfile.fromConfig(), parseArchives(Config.getString("db.attach", "")));
+    }
+
+    /**
+     * Opens (or creates) the database at the given JDBC URL instead of ~/coins.db.
+     * Used by the benchmarks to run against a throw-away file.
+     */
+    public Database(String dbUrl) {
+        this(dbUrl, DurabilityProfile.fromConfig());
+    }
+
+    /** Opens the database at `dbUrl` with an explicit durability profile. */
+    public Database(String dbUrl, DurabilityProfile profile) {
+        this(dbUrl, profile, Map.of());
+    }
+
+    /**
+     * Opens the database at `dbUrl` and mounts each of `archives` (alias → file) read-only
+     * beside it; see attachArchive.
+     */
+    public Database(String dbUrl, DurabilityProfile profile, Map<String, Path> archives) {
+        this.dbUrl = dbUrl;
+        this.profile = profile;
+        connectionProps.setProperty("busy_timeout", Integer.toString(BUSY_TIMEOUT_MILLIS));
+        // WAL: readers see the last commit and never wait for the writer (nor it for them).
+        connectionProps.setProperty("journal_mode", "WAL");
+        connectionProps.setProperty("synchronous", profile.getSynchronous());
+        connectionProps.setProperty("cache_size", Integer.toString(-profile.getCacheKiB()));
+
+        // Create/upgrade the schema (metadata table + default lists) only if user_version says so.
+        bootstrapSchema();
+        archives.forEach(this::attachArchive);
+
+        readers = new ConnectionPool(this::connect, READERS);
+        writer = new WriteQueue(this::connect, GROUP_COMMIT_MAX, MAX_ATTEMPTS);
+        writer.start();
+    }
+
+    /** SQL trace / slow-query log settings for this database (adjustable at runtime). */
+    public SqlTrace getSqlTrace() {
+        return trace;
+    }
+
+    public DurabilityProfile getDurabilityProfile() {
+        return profile;
+    }
+
+    /** The database file, absolute; null for a URL that names no file (":memory:"). */
+    public Path getFile() {
+        String name = dbUrl.substring("jdbc:sqlite:".length());
+        if (name.startsWith("file:")) {
+            name = name.substring("file:".length());
+        }
+        int query = name.indexOf('?');
+        if (query >= 0) {
+            name = name.substring(0, query);
+        }
+        return name.isEmpty() || name.startsWith(":memory:") ? null : Paths.get(name).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Where files kept for this database go by default (`kind` = "snapshots", "backups"):
+     * ~/.coinnavigator/KIND for ~/coins.db, else a subdirectory of it named after this file
+     * (stem plus a hash of its path), so two databases never share one.
+     */
+    public Path dataDir(String kind) {
+        Path base = Paths.get(System.getProperty("user.home"), ".coinnavigator", kind);
+        Path file = getFile();
+        if (file == null || file.equals(Paths.get(DEFAULT_PATH).toAbsolutePath().normalize())) {
+            return base;
+        }
+        return base.resolve(stem(file) + "-" + Integer.toHexString(file.toString().hashCode()));
+    }
+
+    /** A file's name without its extension: "coins" for coins.db. */
+    static String stem(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /** Opens a new connection to this database, with the archives attached. */
+    private Connection connect() throws SQLException {
+        Connection conn = DriverManager.getConnection(dbUrl, connectionProps);
+        if (profile.getMmapBytes() > 0) {
+            // not among the driver's connection properties, so set it per connection here
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA mmap_size = " + profile.getMmapBytes());
+            }
+        }
+        for (Map.Entry<String, Path> archive : archives.entrySet()) {
+            try (PreparedStatement pstmt = conn.prepareStatement("ATTACH DATABASE ? AS \"" + archive.getKey() + "\"")) {
+                pstmt.setString(1, archive.getValue().toUri() + "?mode=ro");
+                pstmt.execute();
+            }
+        }
+        return conn;
+    }
+
+    // ─── Archives ──────────────────────────────────────────────────────────────────
+    // An archive is another CoinNavigator database file – cold lists kept out of the main file,
+    // so its page cache and indexes hold only what is in use.  Every connection ATTACHes it
+    // read-only; its lists show up as "alias.List" in getAllListNames and can be read, searched,
+    // sorted and counted like any other (in the same queries), but not written.  To change an
+    // archive, open it on its own (-Dcoinnavigator.db.path).  While mounted it should not change.
+
+    /** Parses "alias=path,alias=path" (db.attach); entries with a bad alias are reported and skipped. */
+    static Map<String, Path> parseArchives(String spec) {
+        Map<String, Path> parsed = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int eq = entry.indexOf('=');
+            String alias = eq < 0 ? "" : entry.substring(0, eq).trim();
+            if (!ALIAS.matcher(alias).matches() || alias.equalsIgnoreCase("main") || alias.equalsIgnoreCase("temp")) {
+                System.err.println("db.attach: \"" + entry.trim() + "\" is not alias=path (alias: letters, digits, _)");
+                continue;
+            }
+            parsed.put(alias, Paths.get(entry.substring(eq + 1).trim()));
+        }
+        return parsed;
+    }
+
+    /**
+     * Readies `file` to be mounted as `alias`: it must exist and be a CoinNavigator database
+     * (user_version 1 or later) this version can read; one from an older version is migrated first (the only time it is written), and it
+     * is switched out of WAL so read-only connections need no -shm file.  A file that does not
+     * qualify is reported and left out.
+     */
+    private void attachArchive(String alias, Path file) {
+        long start = System.nanoTime();
+        try {
+            if (!Files.isRegularFile(file)) {
+                System.err.println("db.attach: " + alias + ": " + file + " does not exist");
+                return;
+            }
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file);
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+                int version = Schema.userVersion(conn);
+                if (version < 1) {
+                    // empty, or some other SQLite database: bootstrapping would turn it into ours
+                    System.err.println("db.attach: " + alias + ": " + file + " is not a CoinNavigator database");
+                    return;
+                }
+                if (version > Schema.CURRENT_VERSION) {
+                    System.err.println("db.attach: " + alias + ": " + file + " is from a newer version of CoinNavigator");
+                    return;
+                }
+                Schema.bootstrap(conn);
+                stmt.execute("PRAGMA journal_mode = DELETE");
+            }
+            archives.put(alias, file.toAbsolutePath());
+        } catch (SQLException e) {
+            ATTACH_ARCHIVE.error();
+            e.printStackTrace();
+        } finally {
+            ATTACH_ARCHIVE.record(start);
+        }
+    }
+
+    /** Mounted archives, alias → file. */
+    public Map<String, Path> getArchives() {
+        return Collections.unmodifiableMap(archives);
+    }
+
+    /** True for a list of a mounted archive ("alias.List"), which is read-only. */
+    public boolean isArchiveList(String listName) {
+        return archiveOf(listName) != null;
+    }
+
+    /** The alias of the archive `listName` belongs to, or null for a list of the main file. */
+    private String archiveOf(String listName) {
+        int dot = listName.indexOf('.');
+        return dot > 0 && archives.containsKey(listName.substring(0, dot)) ? listName.substring(0, dot) : null;
+    }
+
+    /** The SQL name of a list's table: "List", or "alias"."List" for a list of an archive. */
+    private String table(String listName) {
+        String alias = archiveOf(listName);
+        return alias == null ? '"' + listName + '"'
+                : '"' + alias + "\".\"" + listName.substring(alias.length() + 1) + '"';
+    }
+
+    /**
+     * `format` over the main file, then over every archive, as one UNION ALL.  In it, %1$s goes
+     * before a list-name column (prefixing "alias." in an archive) and %2$s before a table name.
+     */
+    private String acrossFiles(String format) {
+        StringBuilder sb = new StringBuilder(String.format(format, "", ""));
+        for (String alias : archives.keySet()) {
+            sb.append(" UNION ALL ").append(String.format(format, "'" + alias + ".' || ", '"' + alias + "\"."));
+        }
+        return sb.toString();
+    }
+
+    /** Borrows a read connection; close the lease to give it back. */
+    private ConnectionPool.Lease read() throws SQLException {
+        lastUse = System.nanoTime();
+        return readers.borrow();
+    }
+
+    /** Queues a write and waits for it to commit (see WriteQueue.execute). */
+    private void write(WriteQueue.Work work) throws SQLException {
+        lastUse = System.nanoTime();
+        writer.execute(work);
+    }
+
+    /** How often a group commit was re-run because another process held the database lock. */
+    public long getBusyRetries() {
+        return writer.getBusyRetries();
+    }
+
+    /**
+     * Finishes every queued write, then closes the writer and the read connections.
+     * The Database cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        writer.close();
+        readers.close();
+    }
+
+    /**
+     * Checks `PRAGMA user_version` and applies any pending migrations in one transaction
+     * (see Schema).  On an up-to-date file this is one connection and one query – no DDL.
+     */
+    private void bootstrapSchema() {
+        long start = System.nanoTime();
+        try (Connection conn = connect()) {
+            int applied = Schema.bootstrap(conn);
+            trace.record(conn, "PRAGMA user_version /* " + applied + " migration(s) applied */", 0, applied, start);
+        } catch (SQLException e) {
+            BOOTSTRAP_SCHEMA.error();
+            e.printStackTrace();
+        } finally {
+            BOOTSTRAP_SCHEMA.record(start);
+        }
+    }
+
+    /**
+     * Creates a brand‐new list (table) named listName, if it doesn't already exist,
+     * then records that listName into the metadata table “lists” – both in one transaction.
+     *
+     * @return false if the database reported an error
+     */
+    public boolean createList(String listName) {
+        long start = System.nanoTime();
+        try {
+            write(conn -> {
+                long t = System.nanoTime();
+                Schema.createList(conn, listName);
+                trace.record(conn, Schema.listTableDdl(listName), 1, 1, t);
+            });
+            CREATE_LIST.addRowsWritten(1);
+            return true;
+        } catch (SQLException e) {
+            CREATE_LIST.error();
+            e.printStackTrace();
+            return false;
+        } finally {
+            CREATE_LIST.record(start);
+        }
+    }
+
+    /**
+     * Returns the list's change counter: bumped (by triggers) on every insert, update or delete
+     * in that list, from this or any other process.  -1 if the list does not exist.
+     */
+    public long getChangeCounter(String listName) {
+        String alias = archiveOf(listName);
+        String sql = alias == null ? "SELECT changes FROM lists WHERE name = ?"
+                : "SELECT changes FROM \"" + alias + "\".lists WHERE name = ?";
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            pstmt.setString(1, alias == null ? listName : listName.substring(alias.length() + 1));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                long changes = rs.next() ? rs.getLong(1) : -1;
+                trace.record(lease.conn(), sql, 1, changes < 0 ? 0 : 1, start);
+                return changes;
+            }
+        } catch (SQLException e) {
+            GET_CHANGE_COUNTER.error();
+            e.printStackTrace();
+            return -1;
+        } finally {
+            GET_CHANGE_COUNTER.record(start);
+        }
+    }
+
+    /**
+     * The random id of the file that holds `listName` (the main file, or the list's archive),
+     * written once by migration 8; null on error.  Snapshots are stamped with it.
+     */
+    public UUID getIdentity(String listName) {
+        String alias = archiveOf(listName);
+        String schema = alias == null ? "main" : alias;
+        UUID known = identities.get(schema);
+        if (known != null) {
+            return known;
+        }
+        String sql = "SELECT id FROM \"" + schema + "\".identity";
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             Statement stmt = lease.conn().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            UUID id = rs.next() ? UUID.fromString(rs.getString(1)) : null;
+            trace.record(lease.conn(), sql, 0, id == null ? 0 : 1, start);
+            if (id != null) {
+                identities.put(schema, id);
+            }
+            return id;
+        } catch (SQLException | IllegalArgumentException e) {
+            GET_IDENTITY.error();
+            e.printStackTrace();
+            return null;
+        } finally {
+            GET_IDENTITY.record(start);
+        }
+    }
+
+    // ─── Change log ────────────────────────────────────────────────────────────────
+
+    /**
+     * One change-log entry.  `coinId` is null for LIST_CREATED / LIST_DELETED.  A coin moved
+     * between lists shows up as a DELETE in one and an INSERT in the other.
+     */
+    public record Change(long seq, String listName, String coinId, Op op) {
+        public enum Op { INSERT, UPDATE, DELETE, LIST_CREATED, LIST_DELETED }
+    }
+
+    /**
+     * Up to `limit` change-log entries after `seq`, oldest first.  Entries are written by triggers
+     * in the same transaction as the change, so this sees writes from any process; start from
+     * getLatestChangeSeq() and pass the last seq seen to continue.  Seqs are consecutive, but
+     * Maintenance trims old entries: if the first one returned is not `seq` + 1, entries were
+     * lost and the reader has to start over from the tables themselves.
+     */
+    public List<Change> getChangesSince(long seq, int limit) {
+        List<Change> changes = new ArrayList<>();
+        String sql = "SELECT seq, list, coin_id, op FROM changes WHERE seq > ? ORDER BY seq LIMIT ?";
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            pstmt.setLong(1, seq);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(new Change(rs.getLong(1), rs.getString(2), rs.getString(3),
+                            Change.Op.valueOf(rs.getString(4).toUpperCase())));
+                }
+            }
+            trace.record(lease.conn(), sql, 2, changes.size(), start);
+            GET_CHANGES_SINCE.addRowsRead(changes.size());
+        } catch (SQLException e) {
+            GET_CHANGES_SINCE.error();
+            e.printStackTrace();
+        } finally {
+            GET_CHANGES_SINCE.record(start);
+        }
+        return changes;
+    }
+
+    /** The seq of the newest change-log entry, 0 if there is none (or on error, -1). */
+    public long getLatestChangeSeq() {
+        String sql = "SELECT IFNULL(MAX(seq), 0) FROM changes";
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             Statement stmt = lease.conn().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            long seq = rs.next() ? rs.getLong(1) : 0;
+            trace.record(lease.conn(), sql, 0, 1, start);
+            return seq;
+        } catch (SQLException e) {
+            GET_LATEST_CHANGE_SEQ.error();
+            e.printStackTrace();
+            return -1;
+        } finally {
+            GET_LATEST_CHANGE_SEQ.record(start);
+        }
+    }
+
+    // ─── Maintenance (see Maintenance) ─────────────────────────────────────────────
+    // These run on behalf of the maintenance thread, so they do not count as use of the
+    // database (getIdleMillis), and the writes among them go to the writer queue like any other.
+
+    /** Milliseconds since the last read or write through this Database, maintenance aside. */
+    long getIdleMillis() {
+        return (System.nanoTime() - lastUse) / 1_000_000;
+    }
+
+    /**
+     * Size of the file in pages and how much of it is free (on the freelist), its auto_vacuum
+     * mode (0 none, 1 full, 2 incremental) and the extent of the change log.
+     */
+    public record StorageStats(long pageSize, long pages, long freePages, int autoVacuum,
+                               long changeLogEntries, long latestChangeSeq) {
+        public long fileBytes() { return pageSize * pages; }
+        public long freeBytes() { return pageSize * freePages; }
+    }
+
+    /** The current StorageStats, or null on error. */
+    StorageStats getStorageStats() {
+        String sql = "SELECT IFNULL(MAX(seq) - MIN(seq) + 1, 0), IFNULL(MAX(seq), 0) FROM changes";
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = readers.borrow();
+             Statement stmt = lease.conn().createStatement()) {
+            long pageSize = pragmaLong(stmt, "page_size");
+            long pages = pragmaLong(stmt, "page_count");
+            long free = pragmaLong(stmt, "freelist_count");
+            int autoVacuum = (int) pragmaLong(stmt, "auto_vacuum");
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                rs.next();
+                trace.record(lease.conn(), sql, 0, 1, start);
+                return new StorageStats(pageSize, pages, free, autoVacuum, rs.getLong(1), rs.getLong(2));
+            }
+        } catch (SQLException e) {
+            GET_STORAGE_STATS.error();
+            e.printStackTrace();
+            return null;
+        } finally {
+            GET_STORAGE_STATS.record(start);
+        }
+    }
+
+    private static long pragmaLong(Statement stmt, String pragma) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Refreshes the query planner's statistics (sqlite_stat1).  analysis_limit bounds the rows
+     * sampled per index, so this stays fast however large the lists grow.
+     *
+     * @return false if the database reported an error
+     */
+    boolean analyze(int analysisLimit) {
+        return runAlone(ANALYZE, "PRAGMA analysis_limit = " + analysisLimit, "ANALYZE main");
+    }
+
+    /**
+     * Returns up to `pages` freelist pages to the file system (auto_vacuum=INCREMENTAL only).
+     *
+     * @return pages released, or -1 on error
+     */
+    long incrementalVacuum(int pages) {
+        long start = System.nanoTime();
+        long[] freed = new long[1];
+        try {
+            writer.executeAlone(conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    long before = pragmaLong(stmt, "freelist_count");
+                    long t = System.nanoTime();
+                    stmt.execute("PRAGMA incremental_vacuum(" + pages + ")");
+                    freed[0] = before - pragmaLong(stmt, "freelist_count");
+                    trace.record(conn, "PRAGMA incremental_vacuum(" + pages + ")", 0, (int) freed[0], t);
+                }
+            });
+            return freed[0];
+        } catch (SQLException e) {
+            INCREMENTAL_VACUUM.error();
+            e.printStackTrace();
+            return -1;
+        } finally {
+            INCREMENTAL_VACUUM.record(start);
+        }
+    }
+
+    /**
+     * Switches a file created without auto_vacuum to INCREMENTAL, which takes a full VACUUM:
+     * the whole file is rewritten, and writes wait for it.  Reads carry on (WAL).
+     *
+     * @return false if the database reported an error
+     */
+    boolean enableIncrementalVacuum() {
+        return runAlone(VACUUM, "PRAGMA auto_vacuum = INCREMENTAL", "VACUUM");
+    }
+
+    /** Outcome of a WAL checkpoint: `busy` if it could not finish, WAL size and pages copied back. */
+    public record CheckpointResult(boolean busy, int walPages, int checkpointedPages) {}
+
+    /**
+     * Copies the WAL back into the database file and truncates it, so it does not stay at its
+     * high-water mark.  Waits (busy_timeout) for readers still on old pages.
+     *
+     * @return the result, or null on error
+     */
+    CheckpointResult checkpoint() {
+        // TRUNCATE reports 0 frames once it has reset the WAL, so count them with PASSIVE first
+        String passive = "PRAGMA main.wal_checkpoint(PASSIVE)";
+        String truncate = "PRAGMA main.wal_checkpoint(TRUNCATE)";
+        long start = System.nanoTime();
+        CheckpointResult[] result = new CheckpointResult[1];
+        try {
+            writer.executeAlone(conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    long t = System.nanoTime();
+                    int walPages;
+                    int checkpointed;
+                    try (ResultSet rs = stmt.executeQuery(passive)) {
+                        rs.next();
+                        walPages = rs.getInt(2);
+                        checkpointed = rs.getInt(3);
+                    }
+                    trace.record(conn, passive, 0, 1, t);
+                    t = System.nanoTime();
+                    try (ResultSet rs = stmt.executeQuery(truncate)) {
+                        rs.next();
+                        result[0] = new CheckpointResult(rs.getInt(1) != 0, walPages, checkpointed);
+                    }
+                    trace.record(conn, truncate, 0, 1, t);
+                }
+            });
+            return result[0];
+        } catch (SQLException e) {
+            CHECKPOINT.error();
+            e.printStackTrace();
+            return null;
+        } finally {
+            CHECKPOINT.record(start);
+        }
+    }
+
+    /**
+     * PRAGMA quick_check on a connection of its own (it reads the whole file): "ok", or the
+     * problems found, one per line (at most `maxErrors`); null if it could not run.
+     */
+    String quickCheck(int maxErrors) {
+        String sql = "PRAGMA main.quick_check(" + maxErrors + ")";
+        long start = System.nanoTime();
+        try (Connection conn = connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            List<String> lines = new ArrayList<>();
+            while (rs.next()) {
+                lines.add(rs.getString(1));
+            }
+            trace.record(conn, sql, 0, lines.size(), start);
+            return String.join(System.lineSeparator(), lines);
+        } catch (SQLException e) {
+            QUICK_CHECK.error();
+            e.printStackTrace();
+            return null;
+        } finally {
+            QUICK_CHECK.record(start);
+        }
+    }
+
+    /**
+     * Deletes all but the newest `keep` change-log entries.  Readers of the log that fall this
+     * far behind see a gap in seq and must start over (see getChangesSince).
+     *
+     * @return entries deleted, or -1 on error
+     */
+    long trimChanges(long keep) {
+        String sql = "DELETE FROM changes WHERE seq <= (SELECT MAX(seq) FROM changes) - ?";
+        long start = System.nanoTime();
+        long[] deleted = new long[1];
+        try {
+            writer.execute(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    long t = System.nanoTime();
+                    pstmt.setLong(1, keep);
+                    deleted[0] = pstmt.executeUpdate();
+                    trace.record(conn, sql, 1, (int) deleted[0], t);
+                }
+            });
+            TRIM_CHANGES.addRowsWritten(deleted[0]);
+            return deleted[0];
+        } catch (SQLException e) {
+            TRIM_CHANGES.error();
+            e.printStackTrace();
+            return -1;
+        } finally {
+            TRIM_CHANGES.record(start);
+        }
+    }
+
+    /** When a maintenance task last ran (epoch millis), and the change-log seq at the time. */
+    public record MaintenanceRun(long lastRun, long lastSeq) {}
+
+    /** Every maintenance task's last run, by task name (empty on error). */
+    Map<String, MaintenanceRun> getMaintenanceRuns() {
+        Map<String, MaintenanceRun> runs = new HashMap<>();
+        String sql = "SELECT task, last_run, last_seq FROM maintenance";
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = readers.borrow();
+             Statement stmt = lease.conn().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                runs.put(rs.getString(1), new MaintenanceRun(rs.getLong(2), rs.getLong(3)));
+            }
+            trace.record(lease.conn(), sql, 0, runs.size(), start);
+        } catch (SQLException e) {
+            GET_MAINTENANCE_RUNS.error();
+            e.printStackTrace();
+        } finally {
+            GET_MAINTENANCE_RUNS.record(start);
+        }
+        return runs;
+    }
+
+    /** Records that `task` ran at `lastRun`, with the change log at `lastSeq`. */
+    void recordMaintenanceRun(String task, MaintenanceRun run) {
+        String sql = "INSERT OR REPLACE INTO maintenance(task, last_run, last_seq) VALUES(?, ?, ?)";
+        long start = System.nanoTime();
+        try {
+            writer.execute(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    long t = System.nanoTime();
+                    pstmt.setString(1, task);
+                    pstmt.setLong(2, run.lastRun());
+                    pstmt.setLong(3, run.lastSeq());
+                    trace.record(conn, sql, 3, pstmt.executeUpdate(), t);
+                }
+            });
+        } catch (SQLException e) {
+            RECORD_MAINTENANCE_RUN.error();
+            e.printStackTrace();
+        } finally {
+            RECORD_MAINTENANCE_RUN.record(start);
+        }
+    }
+
+    /** Runs `sqls` in order on the writer's connection, outside any transaction. */
+    private boolean runAlone(Metrics.OperationStats op, String... sqls) {
+        long start = System.nanoTime();
+        try {
+            writer.executeAlone(conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    for (String sql : sqls) {
+                        long t = System.nanoTime();
+                        stmt.execute(sql);
+                        trace.record(conn, sql, 0, 0, t);
+                    }
+                }
+            });
+            return true;
+        } catch (SQLException e) {
+            op.error();
+            e.printStackTrace();
+            return false;
+        } finally {
+            op.record(start);
+        }
+    }
+
+    // ─── Backup / restore (see Backups) ────────────────────────────────────────────
+
+    /**
+     * Copies this database into the new file `dest` with SQLite's online backup API, on a
+     * connection of its own: `pagesPerStep` pages at a time, with `pauseMillis` between steps.
+     *
+     * The copy runs inside one read transaction, so under WAL it is of a single snapshot:
+     * writers carry on (their commits are simply not in the copy) and never make SQLite start
+     * the copy over, however long it takes.
+     *
+     * @return pages copied, or -1 if the copy failed (`dest` may then be incomplete)
+     */
+    long backupTo(Path dest, int pagesPerStep, long pauseMillis) {
+        long start = System.nanoTime();
+        int[] pages = new int[1];
+        try (Connection conn = connect();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("BEGIN");
+            try {
+                stmt.executeQuery("SELECT COUNT(*) FROM lists").close();     // starts the read: pins the snapshot
+                DB.ProgressObserver observer = (remaining, pageCount) -> {
+                    pages[0] = pageCount;
+                    if (pauseMillis > 0 && remaining > 0) {
+                        try {
+                            Thread.sleep(pauseMillis);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                };
+                // busy only while another process holds an exclusive lock: retry for about busy_timeout
+                int rc = conn.unwrap(SQLiteConnection.class).getDatabase().backup("main", dest.toString(), observer,
+                        100, BUSY_TIMEOUT_MILLIS / 100, pagesPerStep);
+                if (rc != 0 && rc != 101) {                                 // SQLITE_OK, SQLITE_DONE
+                    throw new SQLException("backup failed with SQLite result code " + rc, null, rc);
+                }
+            } finally {
+                stmt.execute("COMMIT");
+            }
+            // a backup is one self-contained file: no -wal/-shm beside it whenever it is opened
+            try (Connection copy = DriverManager.getConnection("jdbc:sqlite:" + dest);
+                 Statement s = copy.createStatement()) {
+                s.execute("PRAGMA journal_mode = DELETE");
+            }
+            trace.record(conn, "/* backup to " + dest + " */", 0, pages[0], start);
+            BACKUP.addRowsRead(pages[0]);
+            return pages[0];
+        } catch (SQLException e) {
+            BACKUP.error();
+            e.printStackTrace();
+            return -1;
+        } finally {
+            BACKUP.record(start);
+        }
+    }
+
+    /**
+     * Replaces the whole content of this database with the SQLite file `src` (see verifyFile),
+     * through the writer's connection, so queued writes wait and then apply to the restored
+     * data; then migrates it if it is from an older version (see Schema).
+     *
+     * @return pages copied, or -1 if it failed (the database is then unchanged)
+     */
+    long restoreFrom(Path src, int pagesPerStep) {
+        long start = System.nanoTime();
+        int[] pages = new int[1];
+        try {
+            writer.executeAlone(conn -> {
+                long t = System.nanoTime();
+                int rc = conn.unwrap(SQLiteConnection.class).getDatabase().restore("main", src.toString(),
+                        (remaining, pageCount) -> pages[0] = pageCount, 100, BUSY_TIMEOUT_MILLIS / 100, pagesPerStep);
+                if (rc != 0 && rc != 101) {
+                    throw new SQLException("restore failed with SQLite result code " + rc, null, rc);
+                }
+                trace.record(conn, "/* restore from " + src + " */", 0, pages[0], t);
+                Schema.bootstrap(conn);
+            });
+            identities.clear();      // the restored file may come from another database
+            RESTORE.addRowsWritten(pages[0]);
+            return pages[0];
+        } catch (SQLException e) {
+            RESTORE.error();
+            e.printStackTrace();
+            return -1;
+        } finally {
+            RESTORE.record(start);
+        }
+    }
+
+    /**
+     * Checks that `file` is a sound CoinNavigator database: PRAGMA integrity_check passes, and
+     * its schema version is one this build can open (1 to CURRENT_VERSION).  It only reads the
+     * file; an older one is migrated after it has been restored (see restoreFrom).
+     *
+     * @return null if it is, else what is wrong
+     */
+    static String verifyFile(Path file) {
+        long start = System.nanoTime();
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement stmt = conn.createStatement()) {
+            List<String> problems = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery("PRAGMA integrity_check(10)")) {
+                while (rs.next()) {
+                    problems.add(rs.getString(1));
+                }
+            }
+            if (!problems.equals(List.of("ok"))) {
+                return "integrity check failed: " + String.join("; ", problems);
+            }
+            int version = Schema.userVersion(conn);
+            if (version < 1 || version > Schema.CURRENT_VERSION) {
+                return "schema version " + version + " (this version of CoinNavigator reads 1 to "
+                        + Schema.CURRENT_VERSION + ")";
+            }
+            return null;
+        } catch (SQLException e) {
+            VERIFY_FILE.error();
+            return "not a readable database: " + e.getMessage();
+        } finally {
+            VERIFY_FILE.record(start);
+        }
+    }
+
+    // ─── Statistics ────────────────────────────────────────────────────────────────
+
+    /**
+     * The aggregates of `listName` (see CollectionStats), read from the trigger-maintained
+     * `stats` table: cost depends on the number of distinct groups, not of coins.
+     *
+     * @return null if the list does not exist or the database reported an error
+     */
+    public CollectionStats getStats(String listName) {
+        String alias = archiveOf(listName);
+        String sql = String.format("SELECT dim, key, n, weight_sum, weighed FROM %sstats WHERE list = ? AND (n > 0 OR dim = 'total')",
+                alias == null ? "" : '"' + alias + "\".");
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            pstmt.setString(1, alias == null ? listName : listName.substring(alias.length() + 1));
+            CollectionStats.Bucket total = null;
+            Map<String, CollectionStats.Bucket> byDenomination = new HashMap<>();
+            Map<String, CollectionStats.Bucket> byComposition = new HashMap<>();
+            SortedMap<Integer, CollectionStats.Bucket> byYear = new TreeMap<>();
+            int rows = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                    String key = rs.getString(2);
+                    CollectionStats.Bucket b = new CollectionStats.Bucket(rs.getLong(3), rs.getDouble(4), rs.getLong(5));
+                    switch (rs.getString(1)) {
+                        case "total" -> total = b;
+                        case "denomination" -> byDenomination.put(key, b);
+                        case "composition" -> byComposition.put(key, b);
+                        case "year" -> byYear.put(Integer.parseInt(key), b);
+                        default -> { }
+                    }
+                }
+            }
+            trace.record(lease.conn(), sql, 1, rows, start);
+            GET_STATS.addRowsRead(rows);
+            return total == null ? null
+                    : new CollectionStats(listName, total, byDenomination, byComposition, byYear);
+        } catch (SQLException e) {
+            GET_STATS.error();
+            e.printStackTrace();
+            return null;
+        } finally {
+            GET_STATS.record(start);
+        }
+    }
+
+    /** Coin count of every list (archives' too), from the `stats` tables (one row per list). */
+    public Map<String, Long> getListCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        String sql = acrossFiles("SELECT %1$slist, n FROM %2$sstats WHERE dim = 'total'");
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             Statement stmt = lease.conn().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                counts.put(rs.getString(1), rs.getLong(2));
+            }
+            trace.record(lease.conn(), sql, 0, counts.size(), start);
+            GET_LIST_COUNTS.addRowsRead(counts.size());
+        } catch (SQLException e) {
+            GET_LIST_COUNTS.error();
+            e.printStackTrace();
+        } finally {
+            GET_LIST_COUNTS.record(start);
+        }
+        return counts;
+    }
+
+    /** Returns all list names (i.e. all entries in “lists”), then those of each archive as "alias.List". */
+    public List<String> getAllListNames() {
+        List<String> result = new ArrayList<>();
+        String sql = acrossFiles("SELECT %1$sname FROM %2$slists");
+
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             Statement stmt = lease.conn().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String name = rs.getString("name");
+                result.add(name);
+                GET_ALL_LIST_NAMES.addBytesRead(name.length());
+            }
+            trace.record(lease.conn(), sql, 0, result.size(), start);
+            GET_ALL_LIST_NAMES.addRowsRead(result.size());
+        } catch (SQLException e) {
+            GET_ALL_LIST_NAMES.error();
+            e.printStackTrace();
+        } finally {
+            GET_ALL_LIST_NAMES.record(start);
+        }
+        return result;
+    }
+
+    /**
+     * Insert a new Coin into the specified list/table.
+     *
+     * @param listName      the table to insert into (e.g. "Owned" or "Wishlist" or any custom name)
+     * @param coin          the Coin object
+     * @param obverseBytes  raw PNG bytes for obverse (may be null)
+     * @param inverseBytes  raw PNG bytes for inverse (may be null)
+     * @return false if the database reported an error
+     */
+    public boolean insertCoin(String listName, Coin coin, byte[] obverseBytes, byte[] inverseBytes) {
+        String sql = insertSql(listName);
+
+        long start = System.nanoTime();
+        int[] rows = new int[1];
+        try {
+            write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    bindInsert(pstmt, coin, obverseBytes, inverseBytes);
+                    long t = System.nanoTime();
+                    rows[0] = pstmt.executeUpdate();
+                    trace.record(conn, sql, 13, rows[0], t);
+                }
+            });
+            // counted once committed: a retried group runs this work again
+            INSERT_COIN.addRowsWritten(rows[0]);
+            INSERT_COIN.addBytesWritten(approxBytes(coin, obverseBytes, inverseBytes));
+            return true;
+        } catch (SQLException e) {
+            INSERT_COIN.error();
+            e.printStackTrace();
+            return false;
+        } finally {
+            INSERT_COIN.record(start);
+        }
+    }
+
+    /**
+     * Insert many coins into the specified list/table in a single transaction.
+     * Image bytes are taken from each Coin (getObverseBytes / getInverseBytes).
+     *
+     * @param listName the table to insert into
+     * @param coins    the coins to insert
+     * @return false if the database reported an error (then none were inserted)
+     */
+    public boolean insertCoins(String listName, List<Coin> coins) {
+        String sql = insertSql(listName);
+
+        long start = System.nanoTime();
+        try {
+            write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (Coin coin : coins) {
+                        bindInsert(pstmt, coin, coin.getObverseBytes(), coin.getInverseBytes());
+                        pstmt.addBatch();
+                    }
+                    long t = System.nanoTime();
+                    pstmt.executeBatch();
+                    trace.record(conn, sql, 13 * coins.size(), coins.size(), t);
+                }
+            });
+            long bytes = 0;
+            for (Coin coin : coins) {
+                bytes += approxBytes(coin, coin.getObverseBytes(), coin.getInverseBytes());
+            }
+            INSERT_COINS.addRowsWritten(coins.size());
+            INSERT_COINS.addBytesWritten(bytes);
+            return true;
+        } catch (SQLException e) {
+            INSERT_COINS.error();
+            e.printStackTrace();
+            return false;
+        } finally {
+            INSERT_COINS.record(start);
+        }
+    }
+
+    private static String insertSql(String listName) {
+        return String.format("""
+            INSERT INTO "%s" (
+                id, name, date, thickness, diameter,
+                grade, composition, denomination, edge, weight,
+                obverse_png, inverse_png, grade_num
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """, listName);
+    }
+
+    /**
+     * Every list-table column except the two image BLOBs: coins are always read without their
+     * images, which are fetched one at a time with getImage when something shows them.
+     */
+    private static final String FIELD_COLUMNS =
+            "id, name, date, thickness, diameter, grade, composition, denomination, edge, weight";
+
+    /** Builds a Coin (without image bytes) from the current row of a `SELECT FIELD_COLUMNS`. */
+    private static Coin readCoinFields(ResultSet rs) throws SQLException {
+        Coin coin = new Coin(UUID.fromString(rs.getString("id")));
+        coin.setName(rs.getString("name"));
+        coin.setDate(rs.getInt("date"));
+        coin.setThickness(rs.getDouble("thickness"));
+        coin.setDiameter(rs.getDouble("diameter"));
+        coin.setGrade(rs.getString("grade"));
+        coin.setComposition(rs.getString("composition"));
+        coin.setDenomination(rs.getString("denomination"));
+        coin.setEdge(rs.getString("edge"));
+        coin.setWeight(rs.getDouble("weight"));
+        return coin;
+    }
+
+    /** Rough payload size of one coin row (text chars + numerics + BLOBs), for the metrics only. */
+    private static long approxBytes(Coin coin, byte[] obverseBytes, byte[] inverseBytes) {
+        long bytes = 36 + 4 + 3 * 8;   // id, date, three REAL columns
+        bytes += length(coin.getName()) + length(coin.getGrade()) + length(coin.getComposition())
+                + length(coin.getDenomination()) + length(coin.getEdge());
+        if (obverseBytes != null) bytes += obverseBytes.length;
+        if (inverseBytes != null) bytes += inverseBytes.length;
+        return bytes;
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    private static void bindInsert(PreparedStatement pstmt, Coin coin,
+                                   byte[] obverseBytes, byte[] inverseBytes) throws SQLException {
+        pstmt.setString(1, coin.getId().toString());
+        pstmt.setString(2, coin.getName());
+        pstmt.setInt(3, coin.getDate());
+        pstmt.setDouble(4, coin.getThickness());
+        pstmt.setDouble(5, coin.getDiameter());
+        pstmt.setString(6, coin.getGrade());
+        pstmt.setString(7, coin.getComposition());
+        pstmt.setString(8, coin.getDenomination());
+        pstmt.setString(9, coin.getEdge());
+        pstmt.setDouble(10, coin.getWeight());
+        pstmt.setBytes(11, obverseBytes);
+        pstmt.setBytes(12, inverseBytes);
+        bindGradeNum(pstmt, 13, coin);
+    }
+
+    /** grade_num for `coin`: its Sheldon number, or NULL if the grade text is not one. */
+    private static void bindGradeNum(PreparedStatement pstmt, int index, Coin coin) throws SQLException {
+        int n = Grade.parse(coin.getGrade());
+        if (n > 0) {
+            pstmt.setInt(index, n);
+        } else {
+            pstmt.setNull(index, Types.INTEGER);
+        }
+    }
+
+    /**
+     * Retrieve a Coin by its UUID from a specified list/table.
+     *
+     * @param listName the table to query
+     * @param id       the UUID of the coin as a string
+     * @return the Coin object (without image bytes, see getImage) if found, otherwise null
+     */
+    public Coin getCoinById(String listName, String id) {
+        String sql = String.format("SELECT %s FROM %s WHERE id = ?", FIELD_COLUMNS, table(listName));
+
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+
+            pstmt.setString(1, id);
+            long t = System.nanoTime();
+            ResultSet rs = pstmt.executeQuery();
+            boolean found = rs.next();
+            trace.record(lease.conn(), sql, 1, found ? 1 : 0, t);
+            if (found) {
+                Coin coin = readCoinFields(rs);
+                GET_COIN_BY_ID.addRowsRead(1);
+                GET_COIN_BY_ID.addBytesRead(approxBytes(coin, null, null));
+                return coin;
+            }
+        } catch (SQLException e) {
+            GET_COIN_BY_ID.error();
+            e.printStackTrace();
+        } finally {
+            GET_COIN_BY_ID.record(start);
+        }
+        return null;
+    }
+
+    /**
+     * Several coins of one list by id, in one query, without image bytes.
+     *
+     * @return id → coin for every id that exists in the list
+     */
+    public Map<String, Coin> getCoinsByIds(String listName, List<String> ids) {
+        Map<String, Coin> coins = new HashMap<>();
+        if (ids.isEmpty()) {
+            return coins;
+        }
+        String sql = String.format("SELECT %s FROM %s WHERE id IN (%s)",
+                FIELD_COLUMNS, table(listName), String.join(",", Collections.nCopies(ids.size(), "?")));
+
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setString(i + 1, ids.get(i));
+            }
+            long bytes = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Coin coin = readCoinFields(rs);
+                    coins.put(coin.getId().toString(), coin);
+                    bytes += approxBytes(coin, null, null);
+                }
+            }
+            trace.record(lease.conn(), sql, ids.size(), coins.size(), start);
+            GET_COINS_BY_IDS.addRowsRead(coins.size());
+            GET_COINS_BY_IDS.addBytesRead(bytes);
+        } catch (SQLException e) {
+            GET_COINS_BY_IDS.error();
+            e.printStackTrace();
+        } finally {
+            GET_COINS_BY_IDS.record(start);
+        }
+        return coins;
+    }
+
+    /**
+     * The stored PNG of one side of a coin.
+     *
+     * @return the bytes, or null if the coin does not exist or has no such image
+     */
+    public byte[] getImage(String listName, String id, boolean obverse) {
+        String sql = String.format("SELECT %s FROM %s WHERE id = ?", obverse ? "obverse_png" : "inverse_png", table(listName));
+
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            pstmt.setString(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                byte[] png = rs.next() ? rs.getBytes(1) : null;
+                trace.record(lease.conn(), sql, 1, png == null ? 0 : 1, start);
+                if (png != null) {
+                    GET_IMAGE.addRowsRead(1);
+                    GET_IMAGE.addBytesRead(png.length);
+                }
+                return png;
+            }
+        } catch (SQLException e) {
+            GET_IMAGE.error();
+            e.printStackTrace();
+        } finally {
+            GET_IMAGE.record(start);
+        }
+        return null;
+    }
+
+    /**
+     * Retrieve all coins in a given list/table.
+     *
+     * @param listName the table to query
+     * @return a list of all Coin objects from that table, without image bytes (see getImage)
+     */
+    public List<Coin> getAllCoins(String listName) {
+        List<Coin> coins = new ArrayList<>();
+        String sql = String.format("SELECT %s FROM %s", FIELD_COLUMNS, table(listName));
+
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             Statement stmt = lease.conn().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            long bytes = 0;
+            while (rs.next()) {
+                Coin coin = readCoinFields(rs);
+                coins.add(coin);
+                bytes += approxBytes(coin, null, null);
+            }
+            trace.record(lease.conn(), sql, 0, coins.size(), start);
+            GET_ALL_COINS.addRowsRead(coins.size());
+            GET_ALL_COINS.addBytesRead(bytes);
+        } catch (SQLException e) {
+            GET_ALL_COINS.error();
+            e.printStackTrace();
+        } finally {
+            GET_ALL_COINS.record(start);
+        }
+        return coins;
+    }
+
+    /**
+     * Hands every coin of a list to `sink`, one row at a time, straight off the cursor.
+     * Image BLOBs are not read, and nothing is collected, so memory stays flat however
+     * large the list is.
+     *
+     * @param listName the table to query
+     * @param sink     called once per row, on the calling thread
+     * @return the number of coins streamed
+     */
+    public long streamCoins(String listName, Consumer<Coin> sink) {
+        return streamCoins(listName, null, null, sink);
+    }
+
+    /**
+     * streamCoins of only the coins whose `attr` matches `value`, filtered in SQL by the
+     * searchCoins rule; all of them when attr is null.
+     *
+     * @return the number of coins streamed; 0 for an unknown attribute or a non-numeric value
+     *         for a numeric one
+     */
+    public long streamCoins(String listName, String attr, String value, Consumer<Coin> sink) {
+        boolean filtered = attr != null;
+        if (filtered && !Coin.getAttributeNamesInOrder().contains(attr)) {
+            return 0;
+        }
+        String sql = String.format("SELECT %s FROM %s%s", FIELD_COLUMNS, table(listName),
+                filtered ? " WHERE " + matchClause(attr) : "");
+
+        long start = System.nanoTime();
+        long rows = 0;
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            if (filtered) {
+                bindMatch(pstmt, 1, attr, value);
+            }
+            pstmt.setFetchSize(1000);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                long bytes = 0;
+                while (rs.next()) {
+                    Coin coin = readCoinFields(rs);
+                    sink.accept(coin);
+                    rows++;
+                    bytes += approxBytes(coin, null, null);
+                }
+                STREAM_COINS.addBytesRead(bytes);
+            }
+            trace.record(lease.conn(), sql, filtered ? 1 : 0, rows, start);
+            STREAM_COINS.addRowsRead(rows);
+        } catch (NumberFormatException e) {
+            // a numeric attribute never equals a non-number
+        } catch (SQLException e) {
+            STREAM_COINS.error();
+            e.printStackTrace();
+        } finally {
+            STREAM_COINS.record(start);
+        }
+        return rows;
+    }
+
+    /**
+     * streamCoins for a consumer that may stall (a network client): reads `chunk` rows at a time
+     * by rowid keyset and hands each chunk to `sink` only after the read connection is back in
+     * the pool, so a stalled consumer holds neither a pooled reader nor an open read transaction
+     * (which would keep the WAL from being checkpointed).  Each chunk is its own read: no row is
+     * skipped or repeated, but a write made during the stream may or may not show.
+     *
+     * @return the number of coins streamed
+     */
+    public long streamCoinsChunked(String listName, String attr, String value, int chunk, Consumer<Coin> sink) {
+        boolean filtered = attr != null;
+        if (filtered && !Coin.getAttributeNamesInOrder().contains(attr)) {
+            return 0;
+        }
+        String sql = String.format("SELECT rowid, %s FROM %s WHERE rowid > ?%s ORDER BY rowid LIMIT ?",
+                FIELD_COLUMNS, table(listName), filtered ? " AND " + matchClause(attr) : "");
+
+        long start = System.nanoTime();
+        long rows = 0;
+        long bytes = 0;
+        long after = Long.MIN_VALUE;
+        try {
+            while (true) {
+                List<Coin> coins = new ArrayList<>(chunk);
+                try (ConnectionPool.Lease lease = read();
+                     PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+                    int i = 1;
+                    pstmt.setLong(i++, after);
+                    if (filtered) {
+                        bindMatch(pstmt, i++, attr, value);
+                    }
+                    pstmt.setInt(i, chunk);
+                    long t = System.nanoTime();
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            after = rs.getLong(1);
+                            coins.add(readCoinFields(rs));
+                        }
+                    }
+                    trace.record(lease.conn(), sql, i, coins.size(), t);
+                }
+                for (Coin coin : coins) {
+                    sink.accept(coin);
+                    bytes += approxBytes(coin, null, null);
+                }
+                rows += coins.size();
+                if (coins.size() < chunk) {
+                    break;
+                }
+            }
+            STREAM_COINS.addRowsRead(rows);
+            STREAM_COINS.addBytesRead(bytes);
+        } catch (NumberFormatException e) {
+            // a numeric attribute never equals a non-number
+        } catch (SQLException e) {
+            STREAM_COINS.error();
+            e.printStackTrace();
+        } finally {
+            STREAM_COINS.record(start);
+        }
+        return rows;
+    }
+
+    /**
+     * One page of a list in insertion (rowid) order, without image BLOBs.
+     *
+     * @param listName the table to query
+     * @param limit    maximum number of coins
+     * @param offset   number of coins to skip
+     */
+    public List<Coin> getCoinsPage(String listName, int limit, long offset) {
+        List<Coin> coins = new ArrayList<>();
+        String sql = String.format("SELECT %s FROM %s ORDER BY rowid LIMIT ? OFFSET ?", FIELD_COLUMNS, table(listName));
+
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            pstmt.setLong(2, offset);
+            long bytes = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Coin coin = readCoinFields(rs);
+                    coins.add(coin);
+                    bytes += approxBytes(coin, null, null);
+                }
+            }
+            trace.record(lease.conn(), sql, 2, coins.size(), start);
+            GET_COINS_PAGE.addRowsRead(coins.size());
+            GET_COINS_PAGE.addBytesRead(bytes);
+        } catch (SQLException e) {
+            GET_COINS_PAGE.error();
+            e.printStackTrace();
+        } finally {
+            GET_COINS_PAGE.record(start);
+        }
+        return coins;
+    }
+
+    /** Number of coins in a list/table (0 if it cannot be read). */
+    public long countCoins(String listName) {
+        String sql = String.format("SELECT COUNT(*) FROM %s", table(listName));
+
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             Statement stmt = lease.conn().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            long count = rs.next() ? rs.getLong(1) : 0;
+            trace.record(lease.conn(), sql, 0, 1, start);
+            return count;
+        } catch (SQLException e) {
+            COUNT_COINS.error();
+            e.printStackTrace();
+        } finally {
+            COUNT_COINS.record(start);
+        }
+        return 0;
+    }
+
+    /**
+     * Coins whose grade (as a Sheldon number, see Grade) is between `minGrade` and `maxGrade`,
+     * best first – an index range scan on grade_num that stops after `limit` rows.  Coins without
+     * a recognisable grade never match.  Without image bytes.
+     */
+    public List<Coin> getCoinsByGrade(String listName, int minGrade, int maxGrade, int limit, long offset) {
+        List<Coin> coins = new ArrayList<>();
+        // (grade_num DESC, rowid DESC) is exactly the index order read backwards: no sort step
+        String sql = String.format(
+                "SELECT %s FROM %s WHERE grade_num BETWEEN ? AND ? ORDER BY grade_num DESC, rowid DESC LIMIT ? OFFSET ?",
+                FIELD_COLUMNS, table(listName));
+
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            pstmt.setInt(1, minGrade);
+            pstmt.setInt(2, maxGrade);
+            pstmt.setInt(3, limit);
+            pstmt.setLong(4, offset);
+            long bytes = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Coin coin = readCoinFields(rs);
+                    coins.add(coin);
+                    bytes += approxBytes(coin, null, null);
+                }
+            }
+            trace.record(lease.conn(), sql, 4, coins.size(), start);
+            GET_COINS_BY_GRADE.addRowsRead(coins.size());
+            GET_COINS_BY_GRADE.addBytesRead(bytes);
+        } catch (SQLException e) {
+            GET_COINS_BY_GRADE.error();
+            e.printStackTrace();
+        } finally {
+            GET_COINS_BY_GRADE.record(start);
+        }
+        return coins;
+    }
+
+    /**
+     * Every coin graded `minGrade`…`maxGrade`, best first as in getCoinsByGrade, handed to
+     * `sink` straight off one cursor: a whole range costs one index scan (no OFFSET paging)
+     * and comes from one consistent read.
+     *
+     * @return the number of coins streamed
+     */
+    public long streamCoinsByGrade(String listName, int minGrade, int maxGrade, Consumer<Coin> sink) {
+        String sql = String.format(
+                "SELECT %s FROM %s WHERE grade_num BETWEEN ? AND ? ORDER BY grade_num DESC, rowid DESC",
+                FIELD_COLUMNS, table(listName));
+
+        long start = System.nanoTime();
+        long rows = 0;
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            pstmt.setInt(1, minGrade);
+            pstmt.setInt(2, maxGrade);
+            pstmt.setFetchSize(1000);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                long bytes = 0;
+                while (rs.next()) {
+                    Coin coin = readCoinFields(rs);
+                    sink.accept(coin);
+                    rows++;
+                    bytes += approxBytes(coin, null, null);
+                }
+                STREAM_COINS_BY_GRADE.addBytesRead(bytes);
+            }
+            trace.record(lease.conn(), sql, 2, rows, start);
+            STREAM_COINS_BY_GRADE.addRowsRead(rows);
+        } catch (SQLException e) {
+            STREAM_COINS_BY_GRADE.error();
+            e.printStackTrace();
+        } finally {
+            STREAM_COINS_BY_GRADE.record(start);
+        }
+        return rows;
+    }
+
+    /**
+     * Coins of one list whose `attr` matches `value`, filtered in SQL: text attributes match as a
+     * case-insensitive substring (LIKE), numeric ones exactly.  Same rule as Controller.searchCoins,
+     * without image BLOBs, in insertion order.
+     *
+     * @param limit at most this many coins
+     * @return the matches; empty for an unknown attribute or a non-numeric value for a numeric one
+     */
+    public List<Coin> searchCoins(String listName, String attr, String value, int limit) {
+        List<Coin> coins = new ArrayList<>();
+        if (!Coin.getAttributeNamesInOrder().contains(attr)) {
+            return coins;          // attr goes into the SQL text, so only known column names
+        }
+        String sql = String.format("SELECT %s FROM %s WHERE %s ORDER BY rowid LIMIT ?",
+                FIELD_COLUMNS, table(listName), matchClause(attr));
+
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            bindMatch(pstmt, 1, attr, value);
+            pstmt.setInt(2, limit);
+            long bytes = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Coin coin = readCoinFields(rs);
+                    coins.add(coin);
+                    bytes += approxBytes(coin, null, null);
+                }
+            }
+            trace.record(lease.conn(), sql, 2, coins.size(), start);
+            SEARCH_COINS.addRowsRead(coins.size());
+            SEARCH_COINS.addBytesRead(bytes);
+        } catch (NumberFormatException e) {
+            // a numeric attribute never equals a non-number
+        } catch (SQLException e) {
+            SEARCH_COINS.error();
+            e.printStackTrace();
+        } finally {
+            SEARCH_COINS.record(start);
+        }
+        return coins;
+    }
+
+    /**
+     * One page of a list in the order of `order` (first key first), optionally filtered like
+     * searchCoins – e.g. the ten heaviest silver coins are
+     * {@code getCoinsSorted(list, "composition", "silver", List.of(SortKey.desc("weight")), 10, 0)}.
+     *
+     * Sorting and LIMIT both happen in SQLite: when the first key has an index (name, date,
+     * weight, grade) the rows are read in index order and the scan stops after offset + limit of
+     * them; otherwise SQLite's sorter keeps only the best offset + limit rows.  Either way only the
+     * page itself reaches the JVM.  Ties are broken by insertion order (in the first key's
+     * direction), so pages never overlap.  Without image BLOBs.
+     *
+     * @param attr  attribute to filter on, or null for the whole list
+     * @param order sort keys; empty means insertion order
+     * @return the page; empty for an unknown filter attribute or a non-numeric value for a numeric one
+     */
+    public List<Coin> getCoinsSorted(String listName, String attr, String value, List<SortKey> order,
+                                     int limit, long offset) {
+        List<Coin> coins = new ArrayList<>();
+        boolean filtered = attr != null;
+        if (filtered && !Coin.getAttributeNamesInOrder().contains(attr)) {
+            return coins;
+        }
+        String sql = String.format("SELECT %s FROM %s%s ORDER BY %s LIMIT ? OFFSET ?",
+                FIELD_COLUMNS, table(listName), filtered ? " WHERE " + matchClause(attr) : "", orderByClause(order));
+
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = read();
+             PreparedStatement pstmt = lease.conn().prepareStatement(sql)) {
+            int i = 1;
+            if (filtered) {
+                bindMatch(pstmt, i++, attr, value);
+            }
+            pstmt.setInt(i++, limit);
+            pstmt.setLong(i, offset);
+            long bytes = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Coin coin = readCoinFields(rs);
+                    coins.add(coin);
+                    bytes += approxBytes(coin, null, null);
+                }
+            }
+            trace.record(lease.conn(), sql, i, coins.size(), start);
+            GET_COINS_SORTED.addRowsRead(coins.size());
+            GET_COINS_SORTED.addBytesRead(bytes);
+        } catch (NumberFormatException e) {
+            // a numeric attribute never equals a non-number
+        } catch (SQLException e) {
+            GET_COINS_SORTED.error();
+            e.printStackTrace();
+        } finally {
+            GET_COINS_SORTED.record(start);
+        }
+        return coins;
+    }
+
+    // ─── Filter / sort SQL ─────────────────────────────────────────────────────────
+
+    private static boolean isNumeric(String attr) {
+        return attr.equals("date") || attr.equals("diameter")
+                || attr.equals("thickness") || attr.equals("weight");
+    }
+
+    /** WHERE condition for `attr` (a known attribute) with one parameter, bound by bindMatch. */
+    private static String matchClause(String attr) {
+        return isNumeric(attr) ? attr + " = ?" : "IFNULL(" + attr + ", '') LIKE ? ESCAPE '\\'";
+    }
+
+    /** @throws NumberFormatException if `attr` is numeric and `value` is not a number */
+    private static void bindMatch(PreparedStatement pstmt, int index, String attr, String value) throws SQLException {
+        if (!isNumeric(attr)) {
+            String escaped = value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            pstmt.setString(index, "%" + escaped + "%");
+        } else if (attr.equals("date")) {
+            pstmt.setInt(index, Integer.parseInt(value.trim()));
+        } else {
+            pstmt.setDouble(index, Double.parseDouble(value.trim()));
+        }
+    }
+
+    /**
+     * ORDER BY terms for `order`, written so the list's indexes apply: grade sorts by grade_num,
+     * name with the NOCASE collation of its index; rowid last as the tie-breaker.
+     */
+    private static String orderByClause(List<SortKey> order) {
+        StringBuilder sb = new StringBuilder();
+        for (SortKey key : order) {
+            String attr = key.attribute();
+            String term = attr.equals("grade") ? "grade_num"
+                    : isNumeric(attr) ? attr
+                    : attr + " COLLATE NOCASE";
+            sb.append(term).append(key.descending() ? " DESC, " : ", ");
+        }
+        boolean descending = !order.isEmpty() && order.get(0).descending();
+        return sb.append(descending ? "rowid DESC" : "rowid").toString();
+    }
+
+    /**
+     * Update an existing coin in a given list/table.
+     *
+     * @param listName the table to update
+     * @param coin     the Coin object with updated fields
+     * @return false if the database reported an error
+     */
+    public boolean updateCoin(String listName, Coin coin) {
+        String sql = updateSql(listName);
+
+        long start = System.nanoTime();
+        int[] rows = new int[1];
+        try {
+            write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    bindUpdate(pstmt, coin);
+                    long t = System.nanoTime();
+                    rows[0] = pstmt.executeUpdate();
+                    trace.record(conn, sql, 11, rows[0], t);
+                }
+            });
+            UPDATE_COIN.addRowsWritten(rows[0]);
+            UPDATE_COIN.addBytesWritten(approxBytes(coin, null, null));
+            return true;
+        } catch (SQLException e) {
+            UPDATE_COIN.error();
+            e.printStackTrace();
+            return false;
+        } finally {
+            UPDATE_COIN.record(start);
+        }
+    }
+
+    private static String updateSql(String listName) {
+        return String.format("""
+            UPDATE "%s" SET
+                name = ?, date = ?, thickness = ?, diameter = ?,
+                grade = ?, composition = ?, denomination = ?, edge = ?, weight = ?, grade_num = ?
+            WHERE id = ?
+            """, listName);
+    }
+
+    private static void bindUpdate(PreparedStatement pstmt, Coin coin) throws SQLException {
+        pstmt.setString(1, coin.getName());
+        pstmt.setInt(2, coin.getDate());
+        pstmt.setDouble(3, coin.getThickness());
+        pstmt.setDouble(4, coin.getDiameter());
+        pstmt.setString(5, coin.getGrade());
+        pstmt.setString(6, coin.getComposition());
+        pstmt.setString(7, coin.getDenomination());
+        pstmt.setString(8, coin.getEdge());
+        pstmt.setDouble(9, coin.getWeight());
+        bindGradeNum(pstmt, 10, coin);
+        pstmt.setString(11, coin.getId().toString());
+    }
+
+    /**
+     * Delete a coin by its UUID from a specified list/table.
+     *
+     * @param listName the table to delete from
+     * @param id       the UUID of the coin as a string
+     * @return false if the database reported an error
+     */
+    public boolean deleteCoin(String listName, String id) {
+        String sql = String.format("DELETE FROM \"%s\" WHERE id = ?", listName);
+        long start = System.nanoTime();
+        int[] rows = new int[1];
+        try {
+            write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, id);
+                    long t = System.nanoTime();
+                    rows[0] = pstmt.executeUpdate();
+                    trace.record(conn, sql, 1, rows[0], t);
+                }
+            });
+            DELETE_COIN.addRowsWritten(rows[0]);
+            return true;
+        } catch (SQLException e) {
+            DELETE_COIN.error();
+            e.printStackTrace();
+            return false;
+        } finally {
+            DELETE_COIN.record(start);
+        }
+    }
+
+    /** One coin insert, update or delete, for applyWrites(). */
+    public record CoinWrite(Kind kind, String listName, Coin coin) {
+        public enum Kind { INSERT, UPDATE, DELETE }
+    }
+
+    /**
+     * Applies many coin writes, in order, in one transaction.  Each write is isolated by its own
+     * savepoint, so one failing write (say, a list that no longer exists) does not undo the others.
+     * Inserts take their image bytes from the Coin; updates leave the stored images alone.
+     *
+     * @return per write, whether it was applied (all false if the transaction itself failed)
+     */
+    public boolean[] applyWrites(List<CoinWrite> writes) {
+        boolean[] applied = new boolean[writes.size()];
+        long start = System.nanoTime();
+        try {
+            write(conn -> {
+                Arrays.fill(applied, false);
+                Map<String, PreparedStatement> statements = new HashMap<>();
+                try (Statement savepoints = conn.createStatement()) {
+                    for (int i = 0; i < writes.size(); i++) {
+                        CoinWrite w = writes.get(i);
+                        savepoints.execute("SAVEPOINT write");
+                        try {
+                            applyWrite(conn, statements, w);
+                            savepoints.execute("RELEASE write");
+                            applied[i] = true;
+                        } catch (SQLException e) {
+                            if (WriteQueue.isBusy(e)) throw e;
+                            savepoints.execute("ROLLBACK TO write");
+                            savepoints.execute("RELEASE write");
+                            APPLY_WRITES.error();
+                            e.printStackTrace();
+                        }
+                    }
+                } finally {
+                    for (PreparedStatement pstmt : statements.values()) {
+                        pstmt.close();
+                    }
+                }
+            });
+            long written = 0, bytes = 0;
+            for (int i = 0; i < applied.length; i++) {
+                if (applied[i]) {
+                    Coin c = writes.get(i).coin();
+                    written++;
+                    bytes += writes.get(i).kind() == CoinWrite.Kind.INSERT
+                            ? approxBytes(c, c.getObverseBytes(), c.getInverseBytes())
+                            : approxBytes(c, null, null);
+                }
+            }
+            APPLY_WRITES.addRowsWritten(written);
+            APPLY_WRITES.addBytesWritten(bytes);
+        } catch (SQLException e) {
+            APPLY_WRITES.error();
+            e.printStackTrace();
+            Arrays.fill(applied, false);
+        } finally {
+            APPLY_WRITES.record(start);
+        }
+        return applied;
+    }
+
+    /** Runs one CoinWrite, reusing a prepared statement per (kind, list) within the batch. */
+    private void applyWrite(Connection conn, Map<String, PreparedStatement> statements, CoinWrite w)
+            throws SQLException {
+        String sql = switch (w.kind()) {
+            case INSERT -> insertSql(w.listName());
+            case UPDATE -> updateSql(w.listName());
+            case DELETE -> String.format("DELETE FROM \"%s\" WHERE id = ?", w.listName());
+        };
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt == null) {
+            pstmt = conn.prepareStatement(sql);
+            statements.put(sql, pstmt);
+        }
+        Coin c = w.coin();
+        int params = switch (w.kind()) {
+            case INSERT -> { bindInsert(pstmt, c, c.getObverseBytes(), c.getInverseBytes()); yield 13; }
+            case UPDATE -> { bindUpdate(pstmt, c); yield 11; }
+            case DELETE -> { pstmt.setString(1, c.getId().toString()); yield 1; }
+        };
+        long t = System.nanoTime();
+        int rows = pstmt.executeUpdate();
+        trace.record(conn, sql, params, rows, t);
+    }
+
+    /** New PNG bytes for one side of a coin, for updateImages(). */
+    public record ImageWrite(String coinId, boolean obverse, byte[] png) {}
+
+    /**
+     * Stores many coin images of one list in one transaction, touching only the image columns.
+     *
+     * @return per write, whether its coin was found and updated (all false on a database error)
+     */
+    public boolean[] updateImages(String listName, List<ImageWrite> writes) {
+        String obverseSql = String.format("UPDATE \"%s\" SET obverse_png = ? WHERE id = ?", listName);
+        String inverseSql = String.format("UPDATE \"%s\" SET inverse_png = ? WHERE id = ?", listName);
+        boolean[] applied = new boolean[writes.size()];
+
+        long start = System.nanoTime();
+        try {
+            write(conn -> {
+                Arrays.fill(applied, false);
+                try (PreparedStatement obverse = conn.prepareStatement(obverseSql);
+                     PreparedStatement inverse = conn.prepareStatement(inverseSql)) {
+                    for (int i = 0; i < writes.size(); i++) {
+                        ImageWrite w = writes.get(i);
+                        PreparedStatement pstmt = w.obverse() ? obverse : inverse;
+                        pstmt.setBytes(1, w.png());
+                        pstmt.setString(2, w.coinId());
+                        long t = System.nanoTime();
+                        int rows = pstmt.executeUpdate();
+                        trace.record(conn, w.obverse() ? obverseSql : inverseSql, 2, rows, t);
+                        applied[i] = rows > 0;
+                    }
+                }
+            });
+            long rows = 0, bytes = 0;
+            for (int i = 0; i < applied.length; i++) {
+                if (applied[i]) {
+                    rows++;
+                    bytes += writes.get(i).png().length;
+                }
+            }
+            UPDATE_IMAGES.addRowsWritten(rows);
+            UPDATE_IMAGES.addBytesWritten(bytes);
+        } catch (SQLException e) {
+            UPDATE_IMAGES.error();
+            e.printStackTrace();
+            Arrays.fill(applied, false);
+        } finally {
+            UPDATE_IMAGES.record(start);
+        }
+        return applied;
+    }
+
+    /**
+     * Moves a coin from one list/table to another, in one transaction: the stored row
+     * (with all its attributes and image bytes) is copied into `toList` and deleted from
+     * `fromList`, so the coin is never in both lists or in neither.
+     *
+     * @param fromList the source table name
+     * @param toList the destination table name
+     * @param coin the Coin to move
+     * @return false if the coin was not in `fromList` or the database reported an error
+     */
+    public boolean moveCoin(String fromList, String toList, Coin coin) {
+        String copySql = String.format("INSERT INTO \"%s\" SELECT * FROM \"%s\" WHERE id = ?", toList, fromList);
+        String deleteSql = String.format("DELETE FROM \"%s\" WHERE id = ?", fromList);
+        String id = coin.getId().toString();
+
+        long start = System.nanoTime();
+        boolean[] moved = {false};
+        try {
+            write(conn -> {
+                try (PreparedStatement copy = conn.prepareStatement(copySql);
+                     PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+                    copy.setString(1, id);
+                    long t = System.nanoTime();
+                    int copied = copy.executeUpdate();
+                    trace.record(conn, copySql, 1, copied, t);
+                    if (copied == 0) {
+                        return;      // nothing written, so nothing to undo
+                    }
+                    delete.setString(1, id);
+                    t = System.nanoTime();
+                    int deleted = delete.executeUpdate();
+                    trace.record(conn, deleteSql, 1, deleted, t);
+                    moved[0] = true;
+                }
+            });
+            if (moved[0]) {
+                MOVE_COIN.addRowsWritten(2);
+            }
+            return moved[0];
+        } catch (SQLException e) {
+            MOVE_COIN.error();
+            e.printStackTrace();
+            return false;
+        } finally {
+            MOVE_COIN.record(start);
+        }
+    }
+
+    /**
+     * Drops the entire table for listName and removes it from the “lists” metadata,
+     * in one transaction (logged as one LIST_DELETED change).
+     *
+     * @return false if the database reported an error
+     */
+    public boolean deleteList(String listName) {
+        String dropSql = String.format("DROP TABLE IF EXISTS \"%s\"", listName);
+        String removeMetaSql = "DELETE FROM lists WHERE name = ?";
+        String removeStatsSql = "DELETE FROM stats WHERE list = ?";
+
+        long start = System.nanoTime();
+        int[] rows = new int[1];
+        try {
+            write(conn -> {
+                try (Statement stmt = conn.createStatement();
+                     PreparedStatement pstmt = conn.prepareStatement(removeMetaSql);
+                     PreparedStatement stats = conn.prepareStatement(removeStatsSql)) {
+                    long t = System.nanoTime();
+                    stmt.execute(dropSql);
+                    trace.record(conn, dropSql, 0, 0, t);
+
+                    pstmt.setString(1, listName);
+                    t = System.nanoTime();
+                    rows[0] = pstmt.executeUpdate();
+                    trace.record(conn, removeMetaSql, 1, rows[0], t);
+
+                    stats.setString(1, listName);
+                    t = System.nanoTime();
+                    trace.record(conn, removeStatsSql, 1, stats.executeUpdate(), t);
+                    // DROP TABLE fires no DELETE triggers, so log the list as a whole
+                    Schema.logListChange(conn, listName, "list_deleted");
+                }
+            });
+            DELETE_LIST.addRowsWritten(rows[0]);
+            return true;
+        } catch (SQLException e) {
+            DELETE_LIST.error();
+            e.printStackTrace();
+            return false;
+        } finally {
+            DELETE_LIST.record(start);
+        }
+    }
+}
\ No newline at end of file
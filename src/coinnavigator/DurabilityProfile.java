@@ -0,0 +1,46 @@
+package coinnavigator;
+
+/**
+ * Per-connection SQLite settings, picked with -Dcoinnavigator.db.profile=durable|balanced|fast
+ * (default balanced).  All profiles run in WAL mode, so readers never block the writer.
+ *
+ *  – DURABLE:  synchronous=FULL; a committed write survives power loss.  Smallest caches.
+ *  – BALANCED: synchronous=NORMAL; in WAL mode this can lose the last commits on power loss
+ *              (never on an application crash) but cannot corrupt the file.
+ *  – FAST:     synchronous=OFF and big caches, for bulk imports and benchmarks; an OS crash
+ *              can corrupt the database.
+ */
+public enum DurabilityProfile {
+
+    // temp_store stays at its default in every profile: with temp_store=MEMORY the statement
+    // journal that triggers need inside WriteQueue's savepoints gets slower with every row.
+    //          synchronous  cache_size (KiB)  mmap_size
+    DURABLE    ("FULL",      8 * 1024,         0L),
+    BALANCED   ("NORMAL",    32 * 1024,        256L * 1024 * 1024),
+    FAST       ("OFF",       128 * 1024,       1024L * 1024 * 1024);
+
+    private final String synchronous;
+    private final int cacheKiB;
+    private final long mmapBytes;
+
+    DurabilityProfile(String synchronous, int cacheKiB, long mmapBytes) {
+        this.synchronous = synchronous;
+        this.cacheKiB = cacheKiB;
+        this.mmapBytes = mmapBytes;
+    }
+
+    public String getSynchronous() { return synchronous; }
+    /** Page cache per connection, in KiB (passed to SQLite as a negative cache_size). */
+    public int getCacheKiB() { return cacheKiB; }
+    public long getMmapBytes() { return mmapBytes; }
+
+    /** The profile named by coinnavigator.db.profile, or BALANCED. */
+    public static DurabilityProfile fromConfig() {
+        String name = Config.getString("db.profile", "balanced");
+        try {
+            return valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return BALANCED;
+        }
+    }
+}
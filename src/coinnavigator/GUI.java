@@ -1,10 +1,16 @@
+package coinnavigator;
+
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.ContextMenuEvent;
 import javafx.scene.Node;
@@ -12,11 +18,15 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
 import java.util.*;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Main JavaFX application.
@@ -32,21 +42,66 @@ public class GUI extends Application {
     private Scene mainScene;
     private String currentList;        // name of the currently selected list
     private TableView<Coin> tableView; // reference for the central TableView
+    private Node listPage;             // the built list page, shown again when the coin form closes
+
+    // Every coin of currentList, patched in place by applyChange; the table shows it unless a
+    // search result is on screen.  Only switching lists reads a whole list.
+    private final ObservableList<Coin> rows = FXCollections.observableArrayList();
+    private final RowIndex rowIndex = new RowIndex(rows);
+    private RowIndex searchIndex;      // of the search result on screen, made on its first change
+
+    // Coin count per list, shown next to each tab.  Re-read (in the background, one read per
+    // burst) after every change rather than adjusted by deltas, which would count twice the
+    // changes already in a read made while their events were still queued.
+    private final Map<String, Long> listCounts = new HashMap<>();
+    private final Map<String, Label> countLabels = new HashMap<>();
+    private boolean recounting;        // a getListCounts read is under way
+    private boolean recountAgain;      // and a change came in since it started
+
+    // Started in init() so the first table read overlaps with building the stage
+    private CompletableFuture<List<String>> prefetchedListNames;
+    private CompletableFuture<List<Coin>> prefetchedCoins;
+    private String prefetchedList;
+    private long rowsLoad;             // bumped whenever `rows` is (re)loaded; a late prefetch of an older load is dropped
+    private boolean rowsPatched;       // applyChange touched `rows` while the prefetch was still running
+
+    // Messages shown in the error area of the list page (Controller returns them per call)
+    private final List<String> errorMessages = new ArrayList<>();
 
     public static void main(String[] args) {
         launch(args);
     }
 
+    /**
+     * Runs on the launcher thread before start(): kick off loading the list names and the
+     * last-opened list in the background, so start() only has to build widgets.
+     */
+    @Override
+    public void init() {
+        prefetchedListNames = CompletableFuture.supplyAsync(controller::getAllListNames);
+        prefetchedList = controller.getLastOpenedList();
+        if (prefetchedList != null) {
+            prefetchedCoins = CompletableFuture.supplyAsync(() -> controller.listCoins(prefetchedList));
+        }
+    }
+
+    /** Runs on the JavaFX thread after the last window closes: persist any pending snapshots. */
+    @Override
+    public void stop() {
+        controller.shutdown();
+    }
+
     @Override
     public void start(Stage primaryStage) {
         rootPane = new BorderPane();
 
-        // 1) Attempt to fetch all list names; if DB is missing/corrupt, delete coins.db and recreate
+        // 1) Fetch all list names; if that fails, start with the default lists.  The database file
+        //    is never deleted here: it may be a real collection (db.path), and it is open anyway.
         List<String> allLists = new ArrayList<>();
         try {
-            allLists = controller.getAllListNames();
+            allLists = prefetchedListNames.join();
         } catch (Exception e) {
-            new File(System.getProperty("user.home") + File.separator + "coins.db").delete();
+            e.printStackTrace();
             allLists = new ArrayList<>();
         }
         if (allLists.isEmpty()) {
@@ -54,8 +109,16 @@ public class GUI extends Application {
             controller.createList("Wishlist");
             allLists = controller.getAllListNames();
         }
-        currentList = allLists.isEmpty() ? "Owned" : allLists.get(0);
+        // Reopen whatever list was open last time, if it still exists
+        String lastList = controller.getLastOpenedList();
+        if (lastList != null && allLists.contains(lastList)) {
+            currentList = lastList;
+        } else {
+            currentList = allLists.isEmpty() ? "Owned" : allLists.get(0);
+        }
+        controller.setLastOpenedList(currentList);
 
+        controller.addChangeListener(event -> Platform.runLater(() -> applyChange(event)));
         showListPage();
 
         mainScene = new Scene(rootPane, 800, 600);
@@ -65,23 +128,48 @@ public class GUI extends Application {
     }
 
     private void showListPage() {
-        controller.clearErrorBox();
+        errorMessages.clear();
 
-        // 2) Fetch all coins in currentList
-        List<Coin> coinList = controller.listCoins(currentList);
-        ObservableList<Coin> data = FXCollections.observableArrayList(coinList);
+        // 2) Fetch all coins in currentList (or pick up the startup prefetch, once)
+        if (prefetchedCoins != null && currentList.equals(prefetchedList)) {
+            rows.clear();
+            String listName = currentList;
+            long load = ++rowsLoad;
+            rowsPatched = false;
+            prefetchedCoins.whenComplete((coins, err) -> Platform.runLater(() -> {
+                if (load != rowsLoad) {
+                    return;      // another list (or a fresh read) was loaded meanwhile
+                }
+                // the prefetch may predate changes already applied to `rows`: then read again
+                rows.setAll(err == null && !rowsPatched ? coins : controller.listCoins(listName));
+            }));
+        } else {
+            rowsLoad++;
+            rows.setAll(controller.listCoins(currentList));
+        }
+        prefetchedCoins = null;
 
         // ─── Build “errorDisplay” at the top ────────────────────────────────────────
         VBox errorDisplay = new VBox(5);
         errorDisplay.setPadding(new Insets(10));
         Runnable updateErrorDisplay = () -> {
             errorDisplay.getChildren().clear();
-            for (String msg : controller.getErrorBox()) {
+            for (String msg : errorMessages) {
                 Label lbl = new Label(msg);
                 lbl.setTextFill(Color.RED);
                 errorDisplay.getChildren().add(lbl);
             }
         };
+        // Deletes are write-behind when enabled: the row goes once the delete is committed
+        // (see applyChange), a failure shows up here later
+        Consumer<Controller.Result> showLateFailure = r -> {
+            if (!r.isOk()) {
+                Platform.runLater(() -> {
+                    errorMessages.addAll(r.getMessages());
+                    updateErrorDisplay.run();
+                });
+            }
+        };
 
         // ─── Build “searchBar” ─────────────────────────────────────────────────────
         Label attrLabel = new Label("Attribute:");
@@ -93,13 +181,15 @@ public class GUI extends Application {
         TextField valueField = new TextField();
         Button searchBtn = new Button("Search");
         Button resetBtn = new Button("Reset");
+        Button searchAllBtn = new Button("Search All Lists");
+        CheckBox fuzzyBox = new CheckBox("Fuzzy");
 
         HBox searchBar = new HBox(10);
         searchBar.setPadding(new Insets(10));
-        searchBar.getChildren().addAll(attrLabel, attrBox, valueLabel, valueField, searchBtn, resetBtn);
+        searchBar.getChildren().addAll(attrLabel, attrBox, valueLabel, valueField, fuzzyBox, searchBtn, searchAllBtn, resetBtn);
 
         // ─── Build “TableView” dynamically ────────────────────────────────────────
-        tableView = new TableView<>(data);
+        tableView = new TableView<>(rows);
         tableView.setPrefWidth(600);
         tableView.setPrefHeight(400);
 
@@ -116,7 +206,7 @@ public class GUI extends Application {
         // ─── Context menu: Edit / Move / Delete ──────────────────────────────────
         MenuItem editItem = new MenuItem("Edit Coin");
         editItem.setOnAction(e -> {
-            controller.clearErrorBox();
+            errorMessages.clear();
             updateErrorDisplay.run();
             Coin selected = tableView.getSelectionModel().getSelectedItem();
             if (selected != null) {
@@ -129,7 +219,7 @@ public class GUI extends Application {
 
         MenuItem deleteItem = new MenuItem("Delete Coin");
         deleteItem.setOnAction(e -> {
-            controller.clearErrorBox();
+            errorMessages.clear();
             updateErrorDisplay.run();
             Coin selected = tableView.getSelectionModel().getSelectedItem();
             if (selected != null) {
@@ -139,15 +229,40 @@ public class GUI extends Application {
                 alert.setContentText("Delete \"" + selected.getName() + "\"?");
                 alert.showAndWait().ifPresent(resp -> {
                     if (resp == ButtonType.OK) {
-                        controller.deleteCoin(currentList, selected);
-                        data.remove(selected);
+                        controller.deleteCoinAsync(currentList, selected).thenAccept(showLateFailure);
                         updateErrorDisplay.run();
                     }
                 });
             }
         });
 
-        ContextMenu contextMenu = new ContextMenu(editItem, moveMenu, deleteItem);
+        // Photos are decoded and scaled on the image workers; the table row updates itself from
+        // the COIN_UPDATED event once they are stored
+        MenuItem obverseItem = new MenuItem("Set Obverse Photo…");
+        MenuItem reverseItem = new MenuItem("Set Reverse Photo…");
+        for (MenuItem item : List.of(obverseItem, reverseItem)) {
+            ImageIngestor.Side side = item == obverseItem ? ImageIngestor.Side.OBVERSE : ImageIngestor.Side.REVERSE;
+            item.setOnAction(e -> {
+                errorMessages.clear();
+                updateErrorDisplay.run();
+                Coin selected = tableView.getSelectionModel().getSelectedItem();
+                if (selected == null) {
+                    return;
+                }
+                FileChooser chooser = new FileChooser();
+                chooser.setTitle(item.getText().replace("…", ""));
+                chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(
+                        "Images", "*.jpg", "*.jpeg", "*.png", "*.gif", "*.bmp", "*.tif", "*.tiff"));
+                File file = chooser.showOpenDialog(tableView.getScene().getWindow());
+                if (file != null) {
+                    String list = currentList;
+                    CompletableFuture.supplyAsync(() -> controller.attachImage(list, selected, side, file.toPath()))
+                            .thenAccept(showLateFailure);
+                }
+            });
+        }
+
+        ContextMenu contextMenu = new ContextMenu(editItem, moveMenu, obverseItem, reverseItem, deleteItem);
 
         tableView.setRowFactory(tv -> {
             TableRow<Coin> row = new TableRow<>();
@@ -161,12 +276,9 @@ public class GUI extends Application {
                             MenuItem targetItem = new MenuItem(listName);
                             Coin selected = row.getItem();
                             targetItem.setOnAction(ev -> {
-                                controller.clearErrorBox();
-                                controller.moveCoin(currentList, listName, selected);
-                                // Refresh table data
-                                tableView.setItems(FXCollections.observableArrayList(
-                                    controller.listCoins(currentList)
-                                ));
+                                errorMessages.clear();
+                                errorMessages.addAll(controller.moveCoin(currentList, listName, selected).getMessages());
+                                updateErrorDisplay.run();
                             });
                             moveMenu.getItems().add(targetItem);
                         }
@@ -185,7 +297,7 @@ public class GUI extends Application {
 
         tableView.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.BACK_SPACE) {
-                controller.clearErrorBox();
+                errorMessages.clear();
                 updateErrorDisplay.run();
                 Coin selected = tableView.getSelectionModel().getSelectedItem();
                 if (selected != null) {
@@ -195,8 +307,7 @@ public class GUI extends Application {
                     alert.setContentText("Delete \"" + selected.getName() + "\"?");
                     alert.showAndWait().ifPresent(resp -> {
                         if (resp == ButtonType.OK) {
-                            controller.deleteCoin(currentList, selected);
-                            tableView.getItems().remove(selected);
+                            controller.deleteCoinAsync(currentList, selected).thenAccept(showLateFailure);
                             updateErrorDisplay.run();
                         }
                     });
@@ -207,27 +318,32 @@ public class GUI extends Application {
 
         // ─── Wire Search / Reset ───────────────────────────────────────────────────
         searchBtn.setOnAction(e -> {
-            controller.clearErrorBox();
+            errorMessages.clear();
             updateErrorDisplay.run();
             String attr = attrBox.getValue();
             String val = valueField.getText().trim();
             if (attr == null || val.isEmpty()) {
-                tableView.setItems(FXCollections.observableArrayList(
-                        controller.listCoins(currentList)
-                ));
+                tableView.setItems(rows);
             } else {
-                List<Coin> matches = controller.searchCoins(currentList, attr, val);
+                List<Coin> matches = controller.searchCoins(currentList, attr, val,
+                        fuzzyBox.isSelected() ? MatchMode.FUZZY : MatchMode.CONTAINS);
                 tableView.setItems(FXCollections.observableArrayList(matches));
             }
             updateErrorDisplay.run();
         });
 
+        searchAllBtn.setOnAction(e -> {
+            String attr = attrBox.getValue();
+            String val = valueField.getText().trim();
+            if (attr != null && !val.isEmpty()) {
+                showGlobalSearch(attr, val);
+            }
+        });
+
         resetBtn.setOnAction(e -> {
-            controller.clearErrorBox();
+            errorMessages.clear();
             updateErrorDisplay.run();
-            tableView.setItems(FXCollections.observableArrayList(
-                    controller.listCoins(currentList)
-            ));
+            tableView.setItems(rows);
             valueField.clear();
             attrBox.setValue("name");
         });
@@ -235,7 +351,7 @@ public class GUI extends Application {
         // ─── “Add Coin”, “Edit Coin”, and “Delete Database” buttons ────────────────
         Button addCoinBtn = new Button("Add Coin");
         addCoinBtn.setOnAction(e -> {
-            controller.clearErrorBox();
+            errorMessages.clear();
             updateErrorDisplay.run();
             showCoinForm(null);
         });
@@ -245,7 +361,7 @@ public class GUI extends Application {
         editCoinBtn.setOnAction(e -> {
             Coin selected = tableView.getSelectionModel().getSelectedItem();
             if (selected != null) {
-                controller.clearErrorBox();
+                errorMessages.clear();
                 updateErrorDisplay.run();
                 showCoinForm(selected);
             }
@@ -258,7 +374,7 @@ public class GUI extends Application {
 
         Button deleteListBtn = new Button("Delete Database");
         deleteListBtn.setOnAction(ev -> {
-            controller.clearErrorBox();
+            errorMessages.clear();
             updateErrorDisplay.run();
             Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
             confirm.setTitle("Confirm Delete");
@@ -268,8 +384,9 @@ public class GUI extends Application {
             if (result.isEmpty() || result.get() != ButtonType.OK) {
                 return;
             }
-            boolean success = controller.deleteList(currentList);
-            if (!success) {
+            Controller.Result deleted = controller.deleteList(currentList);
+            if (!deleted.isOk()) {
+                errorMessages.addAll(deleted.getMessages());
                 updateErrorDisplay.run();
             } else {
                 // Remove from tabBar
@@ -283,24 +400,39 @@ public class GUI extends Application {
                 for (Node node : tabBar.getChildren()) {
                     if (node instanceof ToggleButton tb && !"+".equals(tb.getText())) {
                         currentList = tb.getText();
+                        controller.setLastOpenedList(currentList);
                         tb.setSelected(true);
                         tb.setStyle("-fx-background-color: lightgray;");
                         break;
                     }
                 }
-                tableView.setItems(FXCollections.observableArrayList(
-                        controller.listCoins(currentList)
-                ));
+                loadCurrentList();
                 updateErrorDisplay.run();
             }
         });
 
-        // Layout: Add Coin | Edit Coin on left, Delete Database on right
+        Button importImagesBtn = new Button("Import Photos…");
+        importImagesBtn.setOnAction(e -> {
+            errorMessages.clear();
+            updateErrorDisplay.run();
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Folder of photos named after their coins (e.g. \"Morgan Dollar_reverse.jpg\")");
+            File dir = chooser.showDialog(tableView.getScene().getWindow());
+            if (dir != null) {
+                String list = currentList;
+                importImagesBtn.setDisable(true);
+                CompletableFuture.supplyAsync(() -> controller.attachImageFolder(list, dir.toPath()))
+                        .whenComplete((r, err) -> Platform.runLater(() -> importImagesBtn.setDisable(false)))
+                        .thenAccept(showLateFailure);
+            }
+        });
+
+        // Layout: Add Coin | Edit Coin | Import Photos on left, Delete Database on right
         HBox buttonRow = new HBox(10);
         buttonRow.setPadding(new Insets(10, 0, 0, 0));
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
-        buttonRow.getChildren().addAll(addCoinBtn, editCoinBtn, spacer, deleteListBtn);
+        buttonRow.getChildren().addAll(addCoinBtn, editCoinBtn, importImagesBtn, spacer, deleteListBtn);
 
         // ─── Combine errorDisplay, searchBar, tableView, buttonRow ────────────
         VBox combined = new VBox(10);
@@ -333,18 +465,24 @@ public class GUI extends Application {
         topSpacer.prefHeightProperty().bind(searchBar.heightProperty());
         tabBar.getChildren().add(topSpacer);
 
+        listCounts.clear();
+        listCounts.putAll(controller.getListCounts());
+        countLabels.clear();
         ToggleGroup tg = new ToggleGroup();
         for (String listName : controller.getAllListNames()) {
             ToggleButton tb = new ToggleButton(listName);
+            tb.setGraphic(countLabel(listName));
+            tb.setContentDisplay(ContentDisplay.RIGHT);
             tb.setToggleGroup(tg);
             if (listName.equals(currentList)) {
                 tb.setSelected(true);
                 tb.setStyle("-fx-background-color: lightgray;");
             }
             tb.setOnAction(evt -> {
-                controller.clearErrorBox();
+                errorMessages.clear();
                 updateErrorDisplay.run();
                 currentList = listName;
+                controller.setLastOpenedList(currentList);
                 // Reset styling on all buttons
                 for (Node node : tabBar.getChildren()) {
                     if (node instanceof ToggleButton tbn) {
@@ -352,16 +490,14 @@ public class GUI extends Application {
                     }
                 }
                 tb.setStyle("-fx-background-color: lightgray;");
-                tableView.setItems(FXCollections.observableArrayList(
-                        controller.listCoins(currentList)
-                ));
+                loadCurrentList();
                 updateErrorDisplay.run();
             });
             tb.setOnContextMenuRequested((ContextMenuEvent event) -> {
                 ContextMenu menu = new ContextMenu();
                 MenuItem deleteDbItem = new MenuItem("Delete Database");
                 deleteDbItem.setOnAction(ev -> {
-                    controller.clearErrorBox();
+                    errorMessages.clear();
                     updateErrorDisplay.run();
                     Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
                     confirm.setTitle("Confirm Delete");
@@ -371,8 +507,9 @@ public class GUI extends Application {
                     if (result.isEmpty() || result.get() != ButtonType.OK) {
                         return;
                     }
-                    boolean success = controller.deleteList(listName);
-                    if (!success) {
+                    Controller.Result deleted = controller.deleteList(listName);
+                    if (!deleted.isOk()) {
+                        errorMessages.addAll(deleted.getMessages());
                         updateErrorDisplay.run();
                         return;
                     }
@@ -396,12 +533,11 @@ public class GUI extends Application {
                     }
                     if (newCurrent != null) {
                         currentList = newCurrent;
-                        tableView.setItems(FXCollections.observableArrayList(
-                                controller.listCoins(currentList)
-                        ));
+                        controller.setLastOpenedList(currentList);
+                        loadCurrentList();
                     } else {
-                        tableView.setItems(FXCollections.observableArrayList());
                         currentList = null;
+                        loadCurrentList();
                     }
                     updateErrorDisplay.run();
                 });
@@ -416,7 +552,7 @@ public class GUI extends Application {
         ToggleButton addBtn = new ToggleButton("+");
         addBtn.setToggleGroup(tg);
         addBtn.setOnAction(e -> {
-            controller.clearErrorBox();
+            errorMessages.clear();
             updateErrorDisplay.run();
             TextInputDialog dialog = new TextInputDialog();
             dialog.setTitle("New List");
@@ -426,27 +562,28 @@ public class GUI extends Application {
                 if (name == null || name.trim().isEmpty()) return;
                 controller.createList(name);
                 ToggleButton newTb = new ToggleButton(name);
+                newTb.setGraphic(countLabel(name));
+                newTb.setContentDisplay(ContentDisplay.RIGHT);
                 newTb.setToggleGroup(tg);
                 newTb.setOnAction(evt2 -> {
-                    controller.clearErrorBox();
+                    errorMessages.clear();
                     updateErrorDisplay.run();
                     currentList = name;
+                    controller.setLastOpenedList(currentList);
                     for (Node node : tabBar.getChildren()) {
                         if (node instanceof ToggleButton tbn) {
                             tbn.setStyle(null);
                         }
                     }
                     newTb.setStyle("-fx-background-color: lightgray;");
-                    tableView.setItems(FXCollections.observableArrayList(
-                            controller.listCoins(currentList)
-                    ));
+                    loadCurrentList();
                     updateErrorDisplay.run();
                 });
                 newTb.setOnContextMenuRequested((ContextMenuEvent event) -> {
                     ContextMenu menu = new ContextMenu();
                     MenuItem deleteDbItem = new MenuItem("Delete Database");
                     deleteDbItem.setOnAction(ev -> {
-                        controller.clearErrorBox();
+                        errorMessages.clear();
                         updateErrorDisplay.run();
                         Alert confirmDb = new Alert(Alert.AlertType.CONFIRMATION);
                         confirmDb.setTitle("Confirm Delete");
@@ -456,8 +593,9 @@ public class GUI extends Application {
                         if (dbResult.isEmpty() || dbResult.get() != ButtonType.OK) {
                             return;
                         }
-                        boolean successDb = controller.deleteList(name);
-                        if (!successDb) {
+                        Controller.Result deletedDb = controller.deleteList(name);
+                        if (!deletedDb.isOk()) {
+                            errorMessages.addAll(deletedDb.getMessages());
                             updateErrorDisplay.run();
                             return;
                         }
@@ -481,12 +619,11 @@ public class GUI extends Application {
                         }
                         if (newCurrentDb != null) {
                             currentList = newCurrentDb;
-                            tableView.setItems(FXCollections.observableArrayList(
-                                    controller.listCoins(currentList)
-                            ));
+                            controller.setLastOpenedList(currentList);
+                            loadCurrentList();
                         } else {
-                            tableView.setItems(FXCollections.observableArrayList());
                             currentList = null;
+                            loadCurrentList();
                         }
                         updateErrorDisplay.run();
                     });
@@ -502,9 +639,8 @@ public class GUI extends Application {
                 }
                 newTb.setStyle("-fx-background-color: lightgray;");
                 currentList = name;
-                tableView.setItems(FXCollections.observableArrayList(
-                        controller.listCoins(currentList)
-                ));
+                controller.setLastOpenedList(currentList);
+                loadCurrentList();
                 updateErrorDisplay.run();
             });
         });
@@ -515,16 +651,167 @@ public class GUI extends Application {
         listPane.setLeft(tabBar);
         listPane.setCenter(combined);
         rootPane.setCenter(listPane);
+        listPage = listPane;
 
         updateErrorDisplay.run();
     }
 
+    /** Reads the whole of currentList into `rows` and shows it; for list switches only. */
+    private void loadCurrentList() {
+        rowsLoad++;
+        rows.setAll(currentList == null ? List.of() : controller.listCoins(currentList));
+        tableView.setItems(rows);
+    }
+
+    /** Leaves the coin form for the list page as it was (selection, scroll, search), already up to date. */
+    private void returnToListPage() {
+        if (listPage == null) {
+            showListPage();
+        } else {
+            rootPane.setCenter(listPage);
+        }
+    }
+
+    /**
+     * Applies one committed change to the tab counts and the table, on the FX thread.  Rows are
+     * edited in place, so selection and scroll position survive.  A search result on screen gets
+     * updates and removals but no new rows.  The handlers that create or delete a list add or
+     * remove its tab themselves.
+     */
+    private void applyChange(ChangeEvent event) {
+        updateCounts(event);
+        if (tableView == null || !event.touches(currentList)) {
+            return;
+        }
+        rowsPatched = true;
+        List<ObservableList<Coin>> shown = tableView.getItems() == rows
+                ? List.of(rows) : List.of(rows, tableView.getItems());
+        Coin coin = event.coin();
+        switch (event.type()) {
+            case COIN_INSERTED -> addRow(coin);
+            case COIN_UPDATED -> shown.forEach(list -> replaceRow(list, coin));
+            case COIN_DELETED -> shown.forEach(list -> removeRow(list, coin));
+            case COIN_MOVED -> {
+                if (currentList.equals(event.fromList())) {
+                    shown.forEach(list -> removeRow(list, coin));
+                } else {
+                    addRow(coin);
+                }
+            }
+            case LIST_CREATED, LIST_DELETED -> { }
+        }
+    }
+
+    /** The grey “(n)” next to a list's name in the tab bar. */
+    private Label countLabel(String listName) {
+        Label label = new Label("(" + listCounts.getOrDefault(listName, 0L) + ")");
+        label.setTextFill(Color.GRAY);
+        countLabels.put(listName, label);
+        return label;
+    }
+
+    private void updateCounts(ChangeEvent event) {
+        switch (event.type()) {
+            case COIN_INSERTED, COIN_DELETED, COIN_MOVED, LIST_CREATED -> recount();
+            case LIST_DELETED -> {
+                listCounts.remove(event.listName());
+                countLabels.remove(event.listName());
+            }
+            case COIN_UPDATED -> { }
+        }
+    }
+
+    /**
+     * Re-reads every list's count off the FX thread and shows it.  Events are published after
+     * their commit, so a read started after one sees it; a change arriving during a read gets
+     * one more read when it is done.
+     */
+    private void recount() {
+        if (recounting) {
+            recountAgain = true;
+            return;
+        }
+        recounting = true;
+        CompletableFuture.supplyAsync(controller::getListCounts).whenComplete((counts, err) -> Platform.runLater(() -> {
+            recounting = false;
+            if (counts != null) {
+                listCounts.clear();
+                listCounts.putAll(counts);
+                countLabels.forEach((listName, label) ->
+                        label.setText("(" + listCounts.getOrDefault(listName, 0L) + ")"));
+            }
+            if (recountAgain) {
+                recountAgain = false;
+                recount();
+            }
+        }));
+    }
+
+    private void addRow(Coin coin) {
+        if (indexOf(rows, coin) < 0) {     // already there if the list was read after the commit
+            rows.add(coin);
+        }
+    }
+
+    private void replaceRow(ObservableList<Coin> list, Coin coin) {
+        int i = indexOf(list, coin);
+        if (i >= 0) {
+            boolean wasSelected = tableView.getItems() == list && tableView.getSelectionModel().isSelected(i);
+            list.set(i, coin);
+            if (wasSelected) {
+                tableView.getSelectionModel().select(i);
+            }
+        }
+    }
+
+    private void removeRow(ObservableList<Coin> list, Coin coin) {
+        int i = indexOf(list, coin);
+        if (i >= 0) {
+            list.remove(i);
+        }
+    }
+
+    /** Position of `coin` in `rows` or in the search result on screen, by id; -1 if absent. */
+    private int indexOf(ObservableList<Coin> list, Coin coin) {
+        if (list == rows) {
+            return rowIndex.indexOf(coin);
+        }
+        if (searchIndex == null || searchIndex.list != list) {
+            searchIndex = new RowIndex(list);
+        }
+        return searchIndex.indexOf(coin);
+    }
+
+    /** Matches of `attr`/`val` in every list, in a dialog with a List column. */
+    private void showGlobalSearch(String attr, String val) {
+        TableView<Controller.ListMatch> results = new TableView<>(
+                FXCollections.observableArrayList(controller.searchAllLists(attr, val, 500)));
+        results.setPrefWidth(600);
+        results.setPrefHeight(300);
+        TableColumn<Controller.ListMatch, String> listCol = new TableColumn<>("List");
+        listCol.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().listName()));
+        results.getColumns().add(listCol);
+        for (String a : List.of("name", "date", "grade", "denomination")) {
+            TableColumn<Controller.ListMatch, String> col = new TableColumn<>(
+                    Character.toUpperCase(a.charAt(0)) + a.substring(1));
+            col.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().coin().getAttributeValue(a)));
+            results.getColumns().add(col);
+        }
+        results.setPlaceholder(new Label("No coin in any list matches"));
+
+        Alert dialog = new Alert(Alert.AlertType.INFORMATION);
+        dialog.setTitle("Search All Lists");
+        dialog.setHeaderText(results.getItems().size() + " match(es) for " + attr + " \"" + val + "\"");
+        dialog.getDialogPane().setContent(results);
+        dialog.showAndWait();
+    }
+
     /**
      * Unified form for creating a new coin or editing an existing one.
      * If coinToEdit is null, we are adding; otherwise, we are editing.
      */
     private void showCoinForm(Coin coinToEdit) {
-        controller.clearErrorBox();
+        errorMessages.clear();
 
         // Build a GridPane with one row per attribute
         GridPane formGrid = new GridPane();
@@ -594,7 +881,7 @@ public class GUI extends Application {
 
         Button saveBtn = new Button(coinToEdit == null ? "Save" : "Save Changes");
         Button cancelBtn = new Button("Cancel");
-        cancelBtn.setOnAction(e -> showListPage());
+        cancelBtn.setOnAction(e -> returnToListPage());
 
         VBox localErrorBox = new VBox(5);
         Label messageLabel = new Label();
@@ -658,6 +945,10 @@ public class GUI extends Application {
             if (coinToEdit == null) {
                 // Create new coin
                 Controller.ValidationResult vr = controller.createCoinInList(currentList, rawFields);
+                if (!vr.isValid()) {
+                    messageLabel.setText(String.join("; ", vr.getMessages()));
+                    return;
+                }
                 messageLabel.setText("Coin added (ID: " + vr.getCreatedId() + ")");
                 // Clear inputs
                 for (String attr : attrs) {
@@ -679,18 +970,45 @@ public class GUI extends Application {
                     String val = rawFields.get(attr);
                     coinToEdit.setAttributeValue(attr, val);
                 }
-                controller.saveCoin(currentList, coinToEdit);
-                showListPage();
+                Controller.Result saved = controller.saveCoin(currentList, coinToEdit);
+                if (!saved.isOk()) {
+                    messageLabel.setText(String.join("; ", saved.getMessages()));
+                    return;
+                }
+                returnToListPage();
             }
         });
 
         HBox buttonRow = new HBox(10, saveBtn, cancelBtn);
         VBox layout = new VBox(10, formGrid, localErrorBox, messageLabel, buttonRow);
         layout.setPadding(new Insets(20));
+        if (coinToEdit != null) {
+            HBox photos = new HBox(10, photoView(coinToEdit, ImageIngestor.Side.OBVERSE),
+                    photoView(coinToEdit, ImageIngestor.Side.REVERSE));
+            layout.getChildren().add(1, photos);
+        }
 
         rootPane.setCenter(layout);
     }
 
+    /**
+     * A thumbnail of one side of `coin`, filled in once decoded.  The PNG is decoded straight
+     * from the image cache's off-heap view, on a background thread.
+     */
+    private ImageView photoView(Coin coin, ImageIngestor.Side side) {
+        ImageView view = new ImageView();
+        view.setFitWidth(160);
+        view.setFitHeight(160);
+        view.setPreserveRatio(true);
+        String list = currentList;
+        CompletableFuture.supplyAsync(() -> {
+            try (ImageCache.Lease png = controller.getImage(list, coin.getId().toString(), side)) {
+                return png == null ? null : new Image(png.openStream(), 320, 320, true, true);
+            }
+        }).thenAccept(image -> Platform.runLater(() -> view.setImage(image)));
+        return view;
+    }
+
     /** Renders a single red Text node. */
     private Text createRedText(String content) {
         Text t = new Text(content);
@@ -699,4 +1017,43 @@ public class GUI extends Application {
     }
 
     // showMovePanel method removed: moving is now handled via context menu submenu.
-}
\ No newline at end of file
+
+    /**
+     * Coin id → position in a table's list, kept current by a listener, so that applyChange finds
+     * a row without scanning the list: a burst of events (a write-behind flush, an image import)
+     * stays proportional to the events, not to events × rows.  Appends and in-place updates cost
+     * O(1); a removal renumbers the rows after it, as the list itself has to move them anyway.
+     */
+    private static final class RowIndex {
+        final ObservableList<Coin> list;
+        private final Map<UUID, Integer> positions = new HashMap<>();
+
+        RowIndex(ObservableList<Coin> list) {
+            this.list = list;
+            renumber(0, list.size());
+            list.addListener((ListChangeListener<Coin>) this::changed);
+        }
+
+        int indexOf(Coin coin) {
+            Integer i = positions.get(coin.getId());
+            return i == null ? -1 : i;
+        }
+
+        private void changed(ListChangeListener.Change<? extends Coin> c) {
+            while (c.next()) {
+                for (Coin removed : c.getRemoved()) {
+                    positions.remove(removed.getId());
+                }
+                // same size (set, permutation): only the changed range moved; otherwise everything after it
+                boolean sameSize = c.wasPermutated() || c.getAddedSize() == c.getRemovedSize();
+                renumber(c.getFrom(), sameSize ? c.getTo() : list.size());
+            }
+        }
+
+        private void renumber(int from, int to) {
+            for (int i = from; i < to; i++) {
+                positions.put(list.get(i).getId(), i);
+            }
+        }
+    }
+}
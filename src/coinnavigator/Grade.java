@@ -0,0 +1,69 @@
+package coinnavigator;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Numeric (Sheldon 1–70) value of a free-text grade, so grades can be compared, range-filtered
+ * and sorted.  The text itself stays what the user typed; Database stores this number next to it
+ * in the indexed grade_num column.
+ *
+ *   "MS-65", "ms65", "MS 65+", "PF-70 DCAM", "VF30"   → 65, 65, 65, 70, 30
+ *   "AU", "VF", "G"   (a bare adjectival grade)         → the lowest number of its range: 50, 20, 4
+ *   "63"                                               → 63
+ *   "N/A", "", "cleaned", "MS-99"                      → 0 (no grade)
+ */
+public final class Grade {
+
+    /** Lowest Sheldon number of each adjectival grade (also the value of the bare prefix). */
+    private static final Map<String, Integer> PREFIXES = Map.ofEntries(
+            Map.entry("MS", 60), Map.entry("PF", 60), Map.entry("PR", 60), Map.entry("PRF", 60),
+            Map.entry("PROOF", 60), Map.entry("SP", 60),
+            Map.entry("AU", 50), Map.entry("XF", 40), Map.entry("EF", 40), Map.entry("VF", 20),
+            Map.entry("F", 12), Map.entry("VG", 8), Map.entry("G", 4), Map.entry("AG", 3),
+            Map.entry("FR", 2), Map.entry("FA", 2), Map.entry("PO", 1), Map.entry("P", 1));
+
+    // prefix, optional separator, optional number; anything after (+, PL, CAM, RD, …) is ignored
+    private static final Pattern GRADE = Pattern.compile("([A-Z]*)[\\s-]*(\\d{1,2})?(?:\\D.*)?");
+
+    public static final int MIN = 1;
+    public static final int MAX = 70;
+
+    private Grade() {}
+
+    /** The Sheldon number of `text`, or 0 if it is not a recognisable grade. */
+    public static int parse(String text) {
+        if (text == null) {
+            return 0;
+        }
+        Matcher m = GRADE.matcher(text.trim().toUpperCase());
+        if (!m.matches()) {
+            return 0;
+        }
+        String prefix = m.group(1);
+        Integer base = prefix.isEmpty() ? null : PREFIXES.get(prefix);
+        if (!prefix.isEmpty() && base == null) {
+            return 0;                   // "N/A", "Cleaned", …
+        }
+        if (m.group(2) == null) {
+            return base == null ? 0 : base;
+        }
+        int n = Integer.parseInt(m.group(2));
+        return n >= MIN && n <= MAX ? n : 0;
+    }
+
+    /**
+     * Parses a grade bound typed by a user ("MS-63", "63"); unlike parse(), an unrecognisable
+     * bound is an error rather than 0.
+     *
+     * @throws IllegalArgumentException if `text` is not a grade
+     */
+    public static int parseBound(String text) {
+        int n = parse(text);
+        if (n == 0) {
+            throw new IllegalArgumentException("Not a grade: " + text + " (e.g. MS-63, VF30 or 45)");
+        }
+        return n;
+    }
+}
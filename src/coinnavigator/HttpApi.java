@@ -0,0 +1,613 @@
+package coinnavigator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Local HTTP/JSON API over Controller, on the JDK's built-in com.sun.net.httpserver.
+ * Every request runs on its own virtual thread; at most `maxConcurrent` run at once, the rest
+ * get 503 + Retry-After straight away.  Per-route timings show up in Metrics as "Http.*".
+ *
+ *   GET    /api/lists                                   list names
+ *   POST   /api/lists                {"name": …}       create a list
+ *   DELETE /api/lists/{list}                           delete a list
+ *   GET    /api/lists/{list}/coins                     all coins, streamed (chunked JSON array)
+ *   GET    /api/lists/{list}/coins?limit=&offset=      one page: {"total", "offset", "limit", "coins"}
+ *   GET    /api/lists/{list}/coins?attr=&q=            search, streamed
+ *   GET    /api/lists/{list}/coins?attr=&q=&match=fuzzy  typo-tolerant search, best matches first
+ *   GET    /api/lists/{list}/coins?minGrade=&maxGrade=&limit=&offset=  grade range (e.g. minGrade=MS-63), best first
+ *   GET    /api/lists/{list}/coins?sort=&limit=&offset=[&attr=&q=]  sorted in the database (sort=weight:desc,name), optionally filtered
+ *   POST   /api/lists/{list}/coins   {attr: value…}    create a coin → 201 {"id"}
+ *   GET    /api/lists/{list}/coins/{id}                one coin
+ *   PUT    /api/lists/{list}/coins/{id} {attr: value…} partial update
+ *   DELETE /api/lists/{list}/coins/{id}                delete
+ *   POST   /api/lists/{list}/coins/{id}/move {"to": …} move to another list
+ *   GET    /api/lists/{list}/coins/{id}/obverse|reverse  PNG, with ETag / If-None-Match → 304
+ *   GET    /api/search?attr=&q=&limit=                 search every list → [{"list", coin…}] (limit 100)
+ *   GET    /api/changes?since=&limit=                  change log after seq `since` → {"latest", "changes": [{"seq", "list", "id", "op"}]}
+ *   GET    /api/metrics                                operation metrics
+ *
+ * Errors are {"error": message} (plus "errors" for validation failures).
+ * Configured by coinnavigator.http.host (default 127.0.0.1), .port (8080) and .maxConcurrent (64).
+ */
+public class HttpApi {
+
+    private static final int MAX_PAGE = 1000;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int STREAM_CHUNK = 500;     // coins per read of a streamed list
+
+    // ─── Request metrics (see Metrics) ─────────────────────────────────────────────
+    private static final Metrics.OperationStats LISTS = Metrics.op("Http.lists");
+    private static final Metrics.OperationStats CREATE_LIST = Metrics.op("Http.createList");
+    private static final Metrics.OperationStats DELETE_LIST = Metrics.op("Http.deleteList");
+    private static final Metrics.OperationStats COINS = Metrics.op("Http.coins");
+    private static final Metrics.OperationStats COINS_PAGE = Metrics.op("Http.coinsPage");
+    private static final Metrics.OperationStats COINS_BY_GRADE = Metrics.op("Http.coinsByGrade");
+    private static final Metrics.OperationStats COINS_SORTED = Metrics.op("Http.coinsSorted");
+    private static final Metrics.OperationStats CREATE_COIN = Metrics.op("Http.createCoin");
+    private static final Metrics.OperationStats GET_COIN = Metrics.op("Http.getCoin");
+    private static final Metrics.OperationStats UPDATE_COIN = Metrics.op("Http.updateCoin");
+    private static final Metrics.OperationStats DELETE_COIN = Metrics.op("Http.deleteCoin");
+    private static final Metrics.OperationStats MOVE_COIN = Metrics.op("Http.moveCoin");
+    private static final Metrics.OperationStats IMAGE = Metrics.op("Http.image");
+    private static final Metrics.OperationStats SEARCH = Metrics.op("Http.search");
+    private static final Metrics.OperationStats CHANGES = Metrics.op("Http.changes");
+    private static final Metrics.OperationStats METRICS = Metrics.op("Http.metrics");
+    private static final Metrics.OperationStats OTHER = Metrics.op("Http.other");
+    private static final Metrics.OperationStats REJECTED = Metrics.op("Http.rejected");
+
+    private final Controller controller;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+
+    public HttpApi(Controller controller, InetSocketAddress address, int maxConcurrent) throws IOException {
+        this.controller = controller;
+        this.permits = new Semaphore(maxConcurrent);
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = Config.getString("http.host", "127.0.0.1");
+        int port = Config.getInt("http.port", 8080);
+        Controller controller = new Controller();
+        HttpApi api = new HttpApi(controller, new InetSocketAddress(host, port), Config.getInt("http.maxConcurrent", 64));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.stop();
+            controller.shutdown();
+        }));
+        api.start();
+        System.out.println("CoinNavigator API listening on http://" + host + ":" + api.getPort() + "/api/");
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** Stops accepting requests, gives running ones up to a second to finish. */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // ─── Routing ───────────────────────────────────────────────────────────────────
+
+    private void handle(HttpExchange ex) throws IOException {
+        if (!permits.tryAcquire()) {
+            long start = System.nanoTime();
+            ex.getResponseHeaders().set("Retry-After", "1");
+            sendError(ex, 503, "Too many concurrent requests");
+            REJECTED.record(start);
+            return;
+        }
+        long start = System.nanoTime();
+        Metrics.OperationStats op = OTHER;
+        try {
+            List<String> path = pathSegments(ex);      // after "api"
+            String method = ex.getRequestMethod();
+            int n = path.size();
+
+            if (n == 1 && path.get(0).equals("metrics") && method.equals("GET")) {
+                op = METRICS;
+                metrics(ex);
+            } else if (n == 1 && path.get(0).equals("search") && method.equals("GET")) {
+                op = SEARCH;
+                searchAll(ex, query(ex));
+            } else if (n == 1 && path.get(0).equals("changes") && method.equals("GET")) {
+                op = CHANGES;
+                changes(ex, query(ex));
+            } else if (n == 1 && path.get(0).equals("lists")) {
+                op = method.equals("POST") ? CREATE_LIST : LISTS;
+                switch (method) {
+                    case "GET" -> sendJson(ex, 200, listsJson());
+                    case "POST" -> createList(ex);
+                    default -> methodNotAllowed(ex);
+                }
+            } else if (n == 2 && path.get(0).equals("lists") && method.equals("DELETE")) {
+                op = DELETE_LIST;
+                deleteList(ex, path.get(1));
+            } else if (n == 3 && path.get(0).equals("lists") && path.get(2).equals("coins")) {
+                String list = path.get(1);
+                Map<String, String> query = query(ex);
+                if (method.equals("POST")) {
+                    op = CREATE_COIN;
+                    createCoin(ex, list);
+                } else if (!method.equals("GET")) {
+                    methodNotAllowed(ex);
+                } else if (query.containsKey("minGrade") || query.containsKey("maxGrade")) {
+                    op = COINS_BY_GRADE;
+                    coinsByGrade(ex, list, query);
+                } else if (query.containsKey("sort")) {
+                    op = COINS_SORTED;
+                    coinsSorted(ex, list, query);
+                } else if (query.containsKey("limit") || query.containsKey("offset")) {
+                    op = COINS_PAGE;
+                    coinsPage(ex, list, query);
+                } else {
+                    op = COINS;
+                    streamCoins(ex, list, query);
+                }
+            } else if (n == 4 && path.get(0).equals("lists") && path.get(2).equals("coins")) {
+                switch (method) {
+                    case "GET" -> { op = GET_COIN; getCoin(ex, path.get(1), path.get(3)); }
+                    case "PUT" -> { op = UPDATE_COIN; updateCoin(ex, path.get(1), path.get(3)); }
+                    case "DELETE" -> { op = DELETE_COIN; deleteCoin(ex, path.get(1), path.get(3)); }
+                    default -> methodNotAllowed(ex);
+                }
+            } else if (n == 5 && path.get(0).equals("lists") && path.get(2).equals("coins")) {
+                String action = path.get(4);
+                if (action.equals("move") && method.equals("POST")) {
+                    op = MOVE_COIN;
+                    moveCoin(ex, path.get(1), path.get(3));
+                } else if ((action.equals("obverse") || action.equals("reverse")) && method.equals("GET")) {
+                    op = IMAGE;
+                    image(ex, path.get(1), path.get(3), action.equals("obverse"));
+                } else {
+                    sendError(ex, 404, "Not found");
+                }
+            } else {
+                sendError(ex, 404, "Not found");
+            }
+        } catch (IllegalArgumentException e) {
+            if (ex.getResponseCode() < 0) {
+                sendError(ex, 400, e.getMessage());
+            } else {
+                op.error();
+                e.printStackTrace();
+            }
+        } catch (UncheckedIOException e) {
+            // client went away mid-stream; nothing left to send
+            op.error();
+        } catch (RuntimeException e) {
+            op.error();
+            e.printStackTrace();
+            // once a streamed 200 is under way, closing the exchange (below) cuts it short instead
+            if (ex.getResponseCode() < 0) {
+                sendError(ex, 500, "Internal error");
+            }
+        } finally {
+            ex.close();
+            op.record(start);
+            permits.release();
+        }
+    }
+
+    // ─── Lists ─────────────────────────────────────────────────────────────────────
+
+    private String listsJson() {
+        List<String> names = controller.getAllListNames();
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(Json.string(names.get(i)));
+        }
+        return sb.append(']').toString();
+    }
+
+    private void createList(HttpExchange ex) throws IOException {
+        String name = body(ex).get("name");
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("\"name\" is required");
+        }
+        if (controller.getAllListNames().contains(name)) {
+            sendError(ex, 409, "List already exists: " + name);
+            return;
+        }
+        Controller.Result result = controller.createList(name);
+        if (!result.isOk()) {
+            sendError(ex, 500, String.join("; ", result.getMessages()));
+            return;
+        }
+        sendJson(ex, 201, Json.object(List.of("name"), List.of(name)));
+    }
+
+    private void deleteList(HttpExchange ex, String list) throws IOException {
+        if (!requireList(ex, list)) return;
+        Controller.Result result = controller.deleteList(list);
+        if (!result.isOk()) {
+            sendError(ex, 409, String.join("; ", result.getMessages()));
+            return;
+        }
+        sendNoContent(ex);
+    }
+
+    // ─── Coins ─────────────────────────────────────────────────────────────────────
+
+    /** Whole list (or search result) as a chunked JSON array, read STREAM_CHUNK coins at a time. */
+    private void streamCoins(HttpExchange ex, String list, Map<String, String> query) throws IOException {
+        if (!requireList(ex, list)) return;
+        String attr = query.get("attr");
+        String value = query.get("q");
+        if (attr != null && (value == null || !Coin.getAttributeNamesInOrder().contains(attr))) {
+            throw new IllegalArgumentException("Search needs attr (one of " + Coin.getAttributeNamesInOrder() + ") and q");
+        }
+
+        if ("fuzzy".equalsIgnoreCase(query.get("match")) && attr != null) {
+            StringBuilder sb = new StringBuilder("[");
+            for (Coin c : controller.searchCoins(list, attr, value, MatchMode.FUZZY)) {
+                if (sb.length() > 1) sb.append(',');
+                sb.append(Json.object(RecordWriter.COIN_COLUMNS, RecordWriter.coinRow(c)));
+            }
+            sendJson(ex, 200, sb.append(']').toString());
+            return;
+        }
+
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(200, 0);      // 0 = chunked
+        BufferedWriter w = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), 1 << 16);
+        RecordWriter out = RecordWriter.forFormat("json", w, true);
+        out.begin(RecordWriter.COIN_COLUMNS);
+        // in chunks: a client that stops reading must not keep a pooled reader (there are only
+        // db.readers of them) or the WAL snapshot while the socket is blocked
+        controller.streamCoins(list, attr, value, STREAM_CHUNK, c -> {
+            try {
+                out.row(RecordWriter.coinRow(c));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.end();
+        w.flush();
+    }
+
+    private void searchAll(HttpExchange ex, Map<String, String> query) throws IOException {
+        String attr = query.get("attr");
+        String value = query.get("q");
+        if (attr == null || value == null || !Coin.getAttributeNamesInOrder().contains(attr)) {
+            throw new IllegalArgumentException("Search needs attr (one of " + Coin.getAttributeNamesInOrder() + ") and q");
+        }
+        int limit = (int) Math.max(1, Math.min(MAX_PAGE, number(query, "limit", 100)));
+        List<String> keys = new ArrayList<>();
+        keys.add("list");
+        keys.addAll(RecordWriter.COIN_COLUMNS);
+
+        StringBuilder sb = new StringBuilder("[");
+        for (Controller.ListMatch m : controller.searchAllLists(attr, value, limit)) {
+            if (sb.length() > 1) sb.append(',');
+            List<Object> values = new ArrayList<>();
+            values.add(m.listName());
+            values.addAll(RecordWriter.coinRow(m.coin()));
+            sb.append(Json.object(keys, values));
+        }
+        sendJson(ex, 200, sb.append(']').toString());
+    }
+
+    /** One page of the change log; a client polls with `since` = the last seq it has seen. */
+    private void changes(HttpExchange ex, Map<String, String> query) throws IOException {
+        long since = number(query, "since", 0);
+        int limit = (int) Math.max(1, Math.min(MAX_PAGE, number(query, "limit", MAX_PAGE)));
+        long latest = controller.getLatestChangeSeq();
+        List<String> keys = List.of("seq", "list", "id", "op");
+
+        StringBuilder sb = new StringBuilder("{\"latest\":").append(latest).append(",\"changes\":[");
+        List<Database.Change> changes = controller.getChangesSince(since, limit);
+        for (int i = 0; i < changes.size(); i++) {
+            Database.Change c = changes.get(i);
+            if (i > 0) sb.append(',');
+            sb.append(Json.object(keys, Arrays.asList(c.seq(), c.listName(), c.coinId(), c.op().name().toLowerCase())));
+        }
+        sendJson(ex, 200, sb.append("]}").toString());
+    }
+
+    private void coinsPage(HttpExchange ex, String list, Map<String, String> query) throws IOException {
+        if (!requireList(ex, list)) return;
+        int limit = (int) Math.min(MAX_PAGE, number(query, "limit", 100));
+        long offset = number(query, "offset", 0);
+        List<Coin> coins = controller.listCoinsPage(list, limit, offset);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"total\":").append(controller.countCoins(list))
+          .append(",\"offset\":").append(offset)
+          .append(",\"limit\":").append(limit)
+          .append(",\"coins\":[");
+        for (int i = 0; i < coins.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(Json.object(RecordWriter.COIN_COLUMNS, RecordWriter.coinRow(coins.get(i))));
+        }
+        sendJson(ex, 200, sb.append("]}").toString());
+    }
+
+    private void coinsByGrade(HttpExchange ex, String list, Map<String, String> query) throws IOException {
+        if (!requireList(ex, list)) return;
+        int min = query.containsKey("minGrade") ? Grade.parseBound(query.get("minGrade")) : Grade.MIN;
+        int max = query.containsKey("maxGrade") ? Grade.parseBound(query.get("maxGrade")) : Grade.MAX;
+        int limit = (int) Math.min(MAX_PAGE, number(query, "limit", 100));
+        long offset = number(query, "offset", 0);
+
+        StringBuilder sb = new StringBuilder("[");
+        for (Coin c : controller.listCoinsByGrade(list, min, max, limit, offset)) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(Json.object(RecordWriter.COIN_COLUMNS, RecordWriter.coinRow(c)));
+        }
+        sendJson(ex, 200, sb.append(']').toString());
+    }
+
+    private void coinsSorted(HttpExchange ex, String list, Map<String, String> query) throws IOException {
+        if (!requireList(ex, list)) return;
+        List<SortKey> order = SortKey.parse(query.get("sort"));
+        String attr = query.get("attr");
+        if (attr != null && (!Coin.getAttributeNamesInOrder().contains(attr) || !query.containsKey("q"))) {
+            throw new IllegalArgumentException("Filter needs attr (one of " + Coin.getAttributeNamesInOrder() + ") and q");
+        }
+        int limit = (int) Math.min(MAX_PAGE, number(query, "limit", 100));
+        long offset = number(query, "offset", 0);
+
+        StringBuilder sb = new StringBuilder("[");
+        for (Coin c : controller.listCoinsSorted(list, attr, query.get("q"), order, limit, offset)) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(Json.object(RecordWriter.COIN_COLUMNS, RecordWriter.coinRow(c)));
+        }
+        sendJson(ex, 200, sb.append(']').toString());
+    }
+
+    private void getCoin(HttpExchange ex, String list, String id) throws IOException {
+        Coin coin = requireCoin(ex, list, id);
+        if (coin == null) return;
+        sendJson(ex, 200, Json.object(RecordWriter.COIN_COLUMNS, RecordWriter.coinRow(coin)));
+    }
+
+    private void createCoin(HttpExchange ex, String list) throws IOException {
+        if (!requireList(ex, list)) return;
+        Controller.ValidationResult result = controller.createCoinInList(list, body(ex));
+        if (!result.isValid()) {
+            sendValidationErrors(ex, result);
+            return;
+        }
+        sendJson(ex, 201, Json.object(List.of("id"), List.of(result.getCreatedId().toString())));
+    }
+
+    private void updateCoin(HttpExchange ex, String list, String id) throws IOException {
+        Coin coin = requireCoin(ex, list, id);
+        if (coin == null) return;
+        Map<String, String> fields = body(ex);
+        fields.remove("id");
+        Controller.ValidationResult result = controller.editCoin(list, coin, fields);
+        if (!result.isValid()) {
+            sendValidationErrors(ex, result);
+            return;
+        }
+        sendJson(ex, 200, Json.object(RecordWriter.COIN_COLUMNS, RecordWriter.coinRow(coin)));
+    }
+
+    private void deleteCoin(HttpExchange ex, String list, String id) throws IOException {
+        Coin coin = requireCoin(ex, list, id);
+        if (coin == null) return;
+        Controller.Result result = controller.deleteCoin(list, coin);
+        if (!result.isOk()) {
+            sendError(ex, 500, String.join("; ", result.getMessages()));
+            return;
+        }
+        sendNoContent(ex);
+    }
+
+    private void moveCoin(HttpExchange ex, String list, String id) throws IOException {
+        String to = body(ex).get("to");
+        if (to == null) {
+            throw new IllegalArgumentException("\"to\" is required");
+        }
+        Coin coin = requireCoin(ex, list, id);
+        if (coin == null || !requireList(ex, to)) return;
+        Controller.Result result = controller.moveCoin(list, to, coin);
+        if (!result.isOk()) {
+            sendError(ex, 409, String.join("; ", result.getMessages()));
+            return;
+        }
+        sendNoContent(ex);
+    }
+
+    /** PNG bytes with a content-hash ETag, so clients can revalidate for a 304 instead of refetching. */
+    private void image(HttpExchange ex, String list, String id, boolean obverse) throws IOException {
+        Coin coin = requireCoin(ex, list, id);
+        if (coin == null) return;
+        try (ImageCache.Lease image = controller.getImage(list, id,
+                obverse ? ImageIngestor.Side.OBVERSE : ImageIngestor.Side.REVERSE)) {
+            if (image == null) {
+                sendError(ex, 404, "No " + (obverse ? "obverse" : "reverse") + " image");
+                return;
+            }
+            ByteBuffer png = image.buffer();
+            String etag = "\"" + sha256(png.duplicate()) + "\"";
+            ex.getResponseHeaders().set("ETag", etag);
+            ex.getResponseHeaders().set("Cache-Control", "no-cache");
+            String ifNoneMatch = ex.getRequestHeaders().getFirst("If-None-Match");
+            if (ifNoneMatch != null && (ifNoneMatch.equals("*") || List.of(ifNoneMatch.split("\\s*,\\s*")).contains(etag))) {
+                ex.sendResponseHeaders(304, -1);
+                return;
+            }
+            ex.getResponseHeaders().set("Content-Type", "image/png");
+            ex.sendResponseHeaders(200, png.remaining());
+            // straight from the cache's off-heap view, through the channel's small transfer buffer
+            try (OutputStream os = ex.getResponseBody()) {
+                Channels.newChannel(os).write(png.duplicate());
+            }
+            IMAGE.addBytesWritten(png.remaining());
+        }
+    }
+
+    private void metrics(HttpExchange ex) throws IOException {
+        List<String> keys = List.of("operation", "count", "errors", "mean_us", "p50_us", "p99_us", "max_us",
+                "rows_read", "rows_written", "bytes_read", "bytes_written");
+        StringBuilder sb = new StringBuilder("[");
+        for (Metrics.OperationStats s : Metrics.all().values()) {
+            if (sb.length() > 1) sb.append(",\n");
+            sb.append(Json.object(keys, List.of(s.getName(), s.getCount(), s.getErrors(), s.getMeanMicros(),
+                    s.getP50Micros(), s.getP99Micros(), s.getMaxMicros(), s.getRowsRead(), s.getRowsWritten(),
+                    s.getBytesRead(), s.getBytesWritten())));
+        }
+        sendJson(ex, 200, sb.append(']').toString());
+    }
+
+    // ─── Helpers ───────────────────────────────────────────────────────────────────
+
+    private boolean requireList(HttpExchange ex, String list) throws IOException {
+        if (!controller.getAllListNames().contains(list)) {
+            sendError(ex, 404, "No such list: " + list);
+            return false;
+        }
+        return true;
+    }
+
+    /** The coin, or null after sending 404. */
+    private Coin requireCoin(HttpExchange ex, String list, String id) throws IOException {
+        if (!requireList(ex, list)) return null;
+        try {
+            UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 404, "Not a coin id: " + id);
+            return null;
+        }
+        Coin coin = controller.getCoinById(list, id);
+        if (coin == null) {
+            sendError(ex, 404, "No coin " + id + " in " + list);
+        }
+        return coin;
+    }
+
+    /** Path segments after /api/, URL-decoded. */
+    private static List<String> pathSegments(HttpExchange ex) {
+        List<String> segments = new ArrayList<>();
+        String raw = ex.getRequestURI().getRawPath().substring("/api/".length());
+        for (String s : raw.split("/")) {
+            if (!s.isEmpty()) {
+                segments.add(decode(s));
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> map = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw != null) {
+            for (String pair : raw.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    map.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+                }
+            }
+        }
+        return map;
+    }
+
+    private static String decode(String s) {
+        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+
+    private static long number(Map<String, String> query, String key, long def) {
+        String v = query.get(key);
+        if (v == null) return def;
+        try {
+            long n = Long.parseLong(v);
+            if (n < 0) throw new NumberFormatException();
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a non-negative integer");
+        }
+    }
+
+    /** The request body as a flat JSON object. */
+    private static Map<String, String> body(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return Json.parseFlatObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String sha256(ByteBuffer bytes) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(bytes);
+            byte[] digest = md.digest();
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);      // every JDK ships SHA-256
+        }
+    }
+
+    private static void sendJson(HttpExchange ex, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange ex, int status, String message) throws IOException {
+        sendJson(ex, status, Json.object(List.of("error"), List.of(message)));
+    }
+
+    private static void sendValidationErrors(HttpExchange ex, Controller.ValidationResult result) throws IOException {
+        StringBuilder sb = new StringBuilder("{\"error\":")
+                .append(Json.string(String.join("; ", result.getMessages())))
+                .append(",\"errors\":[");
+        List<Controller.FieldError> errors = result.getErrors();
+        for (int i = 0; i < errors.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(Json.object(List.of("field", "expected"),
+                    List.of(errors.get(i).getField(), errors.get(i).getExpectedType())));
+        }
+        sendJson(ex, 400, sb.append("]}").toString());
+    }
+
+    private static void sendNoContent(HttpExchange ex) throws IOException {
+        ex.sendResponseHeaders(204, -1);
+    }
+
+    private static void methodNotAllowed(HttpExchange ex) throws IOException {
+        sendError(ex, 405, "Method not allowed");
+    }
+}
@@ -0,0 +1,296 @@
+package coinnavigator;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Off-heap cache of coin images (PNG bytes), keyed by list, coin id and side.
+ *
+ * All images live in one direct buffer allocated up front (image.cacheBytes, 64 MB), divided
+ * into 16 KB blocks; an image takes a contiguous run of blocks, found first-fit in a bitmap of
+ * the free ones.  When no run is long enough, least recently used images are evicted until one
+ * is.  So however many images are viewed, the heap only ever sees the transient array of a
+ * miss, and the garbage collector never sees the cached bytes at all.
+ *
+ * get() and put() return a Lease on a read-only view of the cached bytes – no copy.  An image
+ * evicted or invalidated while leased keeps its blocks until the last lease is closed, so a
+ * view never changes under its reader.  Hit, miss and eviction counts are published over JMX
+ * as "coinnavigator:type=ImageCache" and in summary().  All methods are synchronized.
+ */
+public final class ImageCache {
+
+    private static final int BLOCK = 16 * 1024;
+
+    /** What an image is of. */
+    record Key(String listName, String coinId, boolean obverse) {}
+
+    /** Cached bytes at blocks [first, first + blocks) of the arena. */
+    private static final class Entry {
+        final Key key;
+        final int first;
+        final int blocks;
+        final int length;
+        int leases;
+        boolean dropped;     // no longer in `entries`; blocks are freed with the last lease
+
+        Entry(Key key, int first, int blocks, int length) {
+            this.key = key;
+            this.first = first;
+            this.blocks = blocks;
+            this.length = length;
+        }
+    }
+
+    private final ByteBuffer arena;
+    private final int blockCount;
+    private final BitSet used;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);    // LRU first
+    private long seq = -1;          // the change-log seq (Database.getChangesSince) this cache reflects
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ImageCache() {
+        this(Config.getLong("image.cacheBytes", 64L << 20));
+    }
+
+    public ImageCache(long capacityBytes) {
+        this.blockCount = (int) Math.max(1, Math.min(Integer.MAX_VALUE / BLOCK, capacityBytes / BLOCK));
+        this.arena = ByteBuffer.allocateDirect(blockCount * BLOCK);
+        this.used = new BitSet(blockCount);
+        register();
+    }
+
+    /** A leased image, or null (counted as a miss) if it is not cached. */
+    synchronized Lease get(Key key) {
+        Entry e = entries.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return lease(e);
+    }
+
+    synchronized long getSeq() {
+        return seq;
+    }
+
+    synchronized void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    /**
+     * Copies `png`, read from the database at change-log seq `readAt` or later, into the cache
+     * and leases it.  It is not cached – the lease then wraps `png` itself – if the cache has
+     * since moved past `readAt` (the image may already be stale), if it is bigger than a
+     * quarter of the cache, or if it cannot be placed because everything evictable is leased.
+     */
+    synchronized Lease put(Key key, byte[] png, long readAt) {
+        if (readAt != seq) {
+            return new Lease(null, ByteBuffer.wrap(png).asReadOnlyBuffer());
+        }
+        remove(key);
+        int blocks = Math.max(1, (png.length + BLOCK - 1) / BLOCK);
+        if (blocks > blockCount / 4) {
+            return new Lease(null, ByteBuffer.wrap(png).asReadOnlyBuffer());
+        }
+        int first = findRun(blocks);
+        Iterator<Entry> lru = entries.values().iterator();
+        while (first < 0 && lru.hasNext()) {
+            Entry victim = lru.next();
+            if (victim.leases == 0) {
+                lru.remove();
+                drop(victim);
+                evictions++;
+                first = findRun(blocks);
+            }
+        }
+        if (first < 0) {
+            return new Lease(null, ByteBuffer.wrap(png).asReadOnlyBuffer());
+        }
+        used.set(first, first + blocks);
+        arena.put(first * BLOCK, png);
+        Entry e = new Entry(key, first, blocks, png.length);
+        entries.put(key, e);
+        usedBytes += (long) blocks * BLOCK;
+        return lease(e);
+    }
+
+    /** Forgets both sides of one coin. */
+    synchronized void invalidate(String listName, String coinId) {
+        remove(new Key(listName, coinId, true));
+        remove(new Key(listName, coinId, false));
+    }
+
+    /** Forgets every image of one list. */
+    synchronized void invalidateList(String listName) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.key.listName().equals(listName)) {
+                it.remove();
+                drop(e);
+            }
+        }
+    }
+
+    synchronized void clear() {
+        entries.values().forEach(this::drop);
+        entries.clear();
+    }
+
+    private void remove(Key key) {
+        Entry e = entries.remove(key);
+        if (e != null) {
+            drop(e);
+        }
+    }
+
+    /** Frees an entry's blocks now, or when its last lease closes. */
+    private void drop(Entry e) {
+        e.dropped = true;
+        if (e.leases == 0) {
+            used.clear(e.first, e.first + e.blocks);
+            usedBytes -= (long) e.blocks * BLOCK;
+        }
+    }
+
+    /** First index of `blocks` consecutive free blocks, or -1. */
+    private int findRun(int blocks) {
+        int from = 0;
+        while (from + blocks <= blockCount) {
+            int start = used.nextClearBit(from);
+            if (start + blocks > blockCount) {
+                return -1;
+            }
+            int end = used.nextSetBit(start);
+            if (end < 0 || end - start >= blocks) {
+                return start;
+            }
+            from = end;
+        }
+        return -1;
+    }
+
+    private Lease lease(Entry e) {
+        e.leases++;
+        return new Lease(e, arena.slice(e.first * BLOCK, e.length).asReadOnlyBuffer());
+    }
+
+    private synchronized void release(Entry e) {
+        if (--e.leases == 0 && e.dropped) {
+            drop(e);
+        }
+    }
+
+    // ─── Stats ─────────────────────────────────────────────────────────────────────
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized long getUsedBytes() { return usedBytes; }
+    public synchronized int getEntries() { return entries.size(); }
+    public long getCapacityBytes() { return (long) blockCount * BLOCK; }
+
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    /** One line for the metrics report. */
+    public synchronized String summary() {
+        return String.format("Image cache: %d image(s), %d of %d KB, %d hit(s), %d miss(es) (%.1f%% hits), %d eviction(s)%n",
+                entries.size(), usedBytes >> 10, getCapacityBytes() >> 10, hits, misses, 100 * getHitRate(), evictions);
+    }
+
+    public interface ImageCacheMXBean {
+        long getHits();
+        long getMisses();
+        double getHitRate();
+        long getEvictions();
+        long getUsedBytes();
+        long getCapacityBytes();
+        int getEntries();
+    }
+
+    private void register() {
+        ImageCacheMXBean view = new ImageCacheMXBean() {
+            @Override public long getHits() { return ImageCache.this.getHits(); }
+            @Override public long getMisses() { return ImageCache.this.getMisses(); }
+            @Override public double getHitRate() { return ImageCache.this.getHitRate(); }
+            @Override public long getEvictions() { return ImageCache.this.getEvictions(); }
+            @Override public long getUsedBytes() { return ImageCache.this.getUsedBytes(); }
+            @Override public long getCapacityBytes() { return ImageCache.this.getCapacityBytes(); }
+            @Override public int getEntries() { return ImageCache.this.getEntries(); }
+        };
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(view, new ObjectName("coinnavigator:type=ImageCache"));
+        } catch (InstanceAlreadyExistsException e) {
+            // a second cache in this JVM (tests, tools) – only the first is visible over JMX
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ─── Lease ─────────────────────────────────────────────────────────────────────
+
+    /** A read-only view of one image; close it when done reading, so the blocks can be reused. */
+    public final class Lease implements AutoCloseable {
+        private final Entry entry;          // null when not cached
+        private final ByteBuffer buffer;
+        private boolean closed;
+
+        private Lease(Entry entry, ByteBuffer buffer) {
+            this.entry = entry;
+            this.buffer = buffer;
+        }
+
+        /** The PNG bytes, position 0 to limit; read-only, and valid until close(). */
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+
+        /** The bytes as a stream, for decoders that take one (javafx.scene.image.Image, ImageIO). */
+        public InputStream openStream() {
+            ByteBuffer b = buffer.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return b.hasRemaining() ? b.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] dst, int off, int len) {
+                    if (!b.hasRemaining()) {
+                        return len == 0 ? 0 : -1;
+                    }
+                    int n = Math.min(len, b.remaining());
+                    b.get(dst, off, n);
+                    return n;
+                }
+
+                @Override
+                public int available() {
+                    return b.remaining();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (!closed && entry != null) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+}
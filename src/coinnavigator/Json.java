@@ -0,0 +1,182 @@
+package coinnavigator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for RecordWriter and HttpApi: writing strings/flat objects, and parsing a
+ * flat request object.  Values are Strings or Numbers (numbers are written unquoted).
+ */
+public final class Json {
+
+    private Json() {}
+
+    /** Writes `s` as a JSON string literal. */
+    public static void writeString(Writer out, String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"':  out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (ch < 0x20) {
+                        out.write(String.format("\\u%04x", (int) ch));
+                    } else {
+                        out.write(ch);
+                    }
+            }
+        }
+        out.write('"');
+    }
+
+    /** Writes a String, Number (non-finite ones as strings) or null. */
+    public static void writeValue(Writer out, Object v) throws IOException {
+        if (v == null) {
+            out.write("null");
+        } else if (v instanceof Number n && Double.isFinite(n.doubleValue())) {
+            out.write(v.toString());
+        } else {
+            writeString(out, v.toString());
+        }
+    }
+
+    /** Writes {keys[0]: values[0], …}. */
+    public static void writeObject(Writer out, List<String> keys, List<?> values) throws IOException {
+        out.write('{');
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) out.write(',');
+            writeString(out, keys.get(i));
+            out.write(':');
+            writeValue(out, values.get(i));
+        }
+        out.write('}');
+    }
+
+    /** {keys[0]: values[0], …} as a String. */
+    public static String object(List<String> keys, List<?> values) {
+        StringWriter sw = new StringWriter();
+        try {
+            writeObject(sw, keys, values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);     // cannot happen with a StringWriter
+        }
+        return sw.toString();
+    }
+
+    /** `s` as a JSON string literal. */
+    public static String string(String s) {
+        StringWriter sw = new StringWriter();
+        try {
+            writeString(sw, s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sw.toString();
+    }
+
+    /**
+     * Parses a flat JSON object ({"name": "x", "date": 1909, …}) into key → value text.
+     * Strings are unescaped, numbers/true/false keep their literal text, null maps to null.
+     * Nested objects or arrays are rejected.
+     *
+     * @throws IllegalArgumentException if `text` is not such an object
+     */
+    public static Map<String, String> parseFlatObject(String text) {
+        Parser p = new Parser(text);
+        Map<String, String> map = new LinkedHashMap<>();
+        p.expect('{');
+        if (!p.consume('}')) {
+            do {
+                String key = p.string();
+                p.expect(':');
+                map.put(key, p.scalar());
+            } while (p.consume(','));
+            p.expect('}');
+        }
+        p.skipSpace();
+        if (p.pos != text.length()) {
+            throw new IllegalArgumentException("Trailing characters after JSON object");
+        }
+        return map;
+    }
+
+    private static final class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) { this.s = s; }
+
+        void skipSpace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        boolean consume(char ch) {
+            skipSpace();
+            if (pos < s.length() && s.charAt(pos) == ch) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char ch) {
+            if (!consume(ch)) {
+                throw new IllegalArgumentException("Expected '" + ch + "' at offset " + pos);
+            }
+        }
+
+        String scalar() {
+            skipSpace();
+            if (pos >= s.length()) throw new IllegalArgumentException("Unexpected end of JSON");
+            char ch = s.charAt(pos);
+            if (ch == '"') return string();
+            if (ch == '{' || ch == '[') throw new IllegalArgumentException("Nested values are not supported");
+            int from = pos;
+            while (pos < s.length() && ",}".indexOf(s.charAt(pos)) < 0 && !Character.isWhitespace(s.charAt(pos))) pos++;
+            String literal = s.substring(from, pos);
+            if (literal.equals("null")) return null;
+            if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                return literal;
+            }
+            throw new IllegalArgumentException("Bad JSON value at offset " + from);
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < s.length()) {
+                char ch = s.charAt(pos++);
+                if (ch == '"') return sb.toString();
+                if (ch != '\\') {
+                    sb.append(ch);
+                    continue;
+                }
+                if (pos >= s.length()) break;
+                char esc = s.charAt(pos++);
+                switch (esc) {
+                    case 'n' -> sb.append('\n');
+                    case 't' -> sb.append('\t');
+                    case 'r' -> sb.append('\r');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > s.length()) throw new IllegalArgumentException("Bad \\u escape");
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> sb.append(esc);      // \" \\ \/
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+    }
+}
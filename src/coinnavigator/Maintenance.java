@@ -0,0 +1,321 @@
+package coinnavigator;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background upkeep of the database file, so its size and query plans stay healthy over months
+ * of use.  One low-priority thread wakes every maintenance.tickSeconds (60) and, if nothing has
+ * read or written for maintenance.idleSeconds (60), runs whichever of these is due, in order:
+ *
+ *   trim        the change log down to its newest maintenance.keepChanges (100000) entries
+ *   vacuum      incremental_vacuum, maintenance.vacuumPages (1024) at a time, once more than
+ *               maintenance.vacuumFreePercent (10) of the file is free; a file created before
+ *               auto_vacuum=INCREMENTAL is converted instead, by one full VACUUM
+ *   analyze     ANALYZE once maintenance.analyzeChanges (1000) changes were logged since the last
+ *               one.  Not `PRAGMA optimize`: that only considers tables its own connection has
+ *               queried, and the writer's connection never queries any.
+ *   checkpoint  wal_checkpoint(TRUNCATE), so the -wal file does not stay at its high-water mark
+ *   quickCheck  PRAGMA quick_check every maintenance.checkHours (24); a failure goes to stderr
+ *   backup      a hot backup (see Backups) every backup.everyHours, if that is set – only when
+ *               due, even on runNow()
+ *
+ * Writes go through the Database's writer queue, so an ordinary write waits for a maintenance
+ * step instead of failing with SQLITE_BUSY; every step is short (the vacuum is chunked) except
+ * the one-off conversion.  Use of the database during a run stops it before its next step.
+ * When each task last ran is kept in the `maintenance` table, so daily checks survive restarts;
+ * what ran since start-up is in summary(), getStatus() and over JMX as
+ * "coinnavigator:type=Maintenance".  Disable with -Dcoinnavigator.maintenance=false.
+ */
+public final class Maintenance implements AutoCloseable {
+
+    private static final Metrics.OperationStats RUN = Metrics.op("Maintenance.run");
+
+    static final String TRIM = "trim";
+    static final String VACUUM = "vacuum";
+    static final String ANALYZE = "analyze";
+    static final String CHECKPOINT = "checkpoint";
+    static final String QUICK_CHECK = "quickCheck";
+    static final String BACKUP = "backup";
+
+    private static final long KEEP_CHANGES = Config.getLong("maintenance.keepChanges", 100_000);
+    private static final int VACUUM_PAGES = Config.getInt("maintenance.vacuumPages", 1024);
+    private static final int VACUUM_FREE_PERCENT = Config.getInt("maintenance.vacuumFreePercent", 10);
+    private static final long ANALYZE_CHANGES = Config.getLong("maintenance.analyzeChanges", 1000);
+    private static final int ANALYSIS_LIMIT = Config.getInt("maintenance.analysisLimit", 1000);
+    private static final long CHECK_MILLIS = TimeUnit.HOURS.toMillis(Config.getLong("maintenance.checkHours", 24));
+
+    /** What one task has done since start-up; `lastRun` is epoch millis (0 = not yet). */
+    public record TaskStatus(String task, long runs, long errors, long lastRun, String lastResult) {}
+
+    private final Database db;
+    private final Backups backups;              // null, or getEveryMillis() 0: no scheduled backups
+    private final long idleMillis;
+    private volatile boolean closed;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-maintenance");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    // guarded by `this`
+    private final Map<String, TaskStatus> status = new LinkedHashMap<>();
+    private Database.StorageStats storage;      // as of the last run
+    private long ticks;
+    private long busyTicks;
+    private long reclaimedBytes;
+    private long trimmedChanges;
+    private long checkpointedPages;
+    private long quickCheckFailures;
+
+    Maintenance(Database db, Backups backups, long tickMillis, long idleMillis) {
+        this.db = db;
+        this.backups = backups != null && backups.getEveryMillis() > 0 ? backups : null;
+        this.idleMillis = idleMillis;
+        for (String task : List.of(TRIM, VACUUM, ANALYZE, CHECKPOINT, QUICK_CHECK, BACKUP)) {
+            if (!task.equals(BACKUP) || this.backups != null) {
+                status.put(task, new TaskStatus(task, 0, 0, 0, ""));
+            }
+        }
+        register();
+        timer.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** The scheduler configured by -Dcoinnavigator.maintenance.*, or null if it is switched off. */
+    public static Maintenance fromConfig(Database db, Backups backups) {
+        if (!Config.getBoolean("maintenance", true)) {
+            return null;
+        }
+        return new Maintenance(db, backups,
+                TimeUnit.SECONDS.toMillis(Math.max(1, Config.getLong("maintenance.tickSeconds", 60))),
+                TimeUnit.SECONDS.toMillis(Config.getLong("maintenance.idleSeconds", 60)));
+    }
+
+    /** Runs every task now, idle or not, and waits for it; returns summary(). */
+    public String runNow() {
+        try {
+            timer.submit(() -> run(true)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        }
+        return summary();
+    }
+
+    /** Stops the scheduler, letting a step in progress finish first. */
+    @Override
+    public void close() {
+        closed = true;
+        timer.shutdown();
+        try {
+            timer.awaitTermination(60, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void tick() {
+        synchronized (this) {
+            ticks++;
+        }
+        if (busy(false)) {
+            synchronized (this) {
+                busyTicks++;
+            }
+            return;
+        }
+        run(false);
+    }
+
+    /** True once maintenance should stop: closing, or (unless forced) the database is in use. */
+    private boolean busy(boolean force) {
+        return closed || (!force && db.getIdleMillis() < idleMillis);
+    }
+
+    /** Runs the tasks that are due (all of them if `force`). */
+    private void run(boolean force) {
+        long start = System.nanoTime();
+        try {
+            Database.StorageStats before = db.getStorageStats();
+            if (before == null) {
+                RUN.error();
+                return;
+            }
+            Map<String, Database.MaintenanceRun> runs = db.getMaintenanceRuns();
+            long now = System.currentTimeMillis();
+
+            if (before.changeLogEntries() > KEEP_CHANGES) {
+                long n = db.trimChanges(KEEP_CHANGES);
+                synchronized (this) {
+                    trimmedChanges += Math.max(0, n);
+                }
+                done(TRIM, n >= 0, n + " entries deleted");
+            }
+
+            if (busy(force)) return;
+            Database.StorageStats s = db.getStorageStats();
+            if (s != null && s.freePages() > 0
+                    && (force || s.freePages() * 100 >= (long) VACUUM_FREE_PERCENT * s.pages())) {
+                boolean ok;
+                if (s.autoVacuum() == 2) {
+                    long freed;
+                    do {
+                        freed = db.incrementalVacuum(VACUUM_PAGES);
+                    } while (freed > 0 && !busy(force));
+                    ok = freed >= 0;
+                } else {
+                    ok = db.enableIncrementalVacuum();
+                }
+                Database.StorageStats after = db.getStorageStats();
+                long bytes = after == null ? 0 : s.fileBytes() - after.fileBytes();
+                synchronized (this) {
+                    reclaimedBytes += Math.max(0, bytes);
+                }
+                done(VACUUM, ok, (bytes >> 10) + " KB reclaimed" + (s.autoVacuum() == 2 ? "" : " (full VACUUM)"));
+            }
+
+            if (busy(force)) return;
+            Database.MaintenanceRun analyzed = runs.get(ANALYZE);
+            if (force || analyzed == null || before.latestChangeSeq() - analyzed.lastSeq() >= ANALYZE_CHANGES) {
+                boolean ok = db.analyze(ANALYSIS_LIMIT);
+                if (ok) {
+                    db.recordMaintenanceRun(ANALYZE, new Database.MaintenanceRun(now, before.latestChangeSeq()));
+                }
+                done(ANALYZE, ok, ok ? "ok" : "failed");
+            }
+
+            if (busy(force)) return;
+            Database.CheckpointResult cp = db.checkpoint();
+            if (cp != null) {
+                synchronized (this) {
+                    checkpointedPages += Math.max(0, cp.checkpointedPages());
+                }
+            }
+            done(CHECKPOINT, cp != null, cp == null ? "failed"
+                    : cp.busy() ? "busy (" + cp.walPages() + " WAL pages)" : cp.checkpointedPages() + " pages");
+
+            if (busy(force)) return;
+            Database.MaintenanceRun checked = runs.get(QUICK_CHECK);
+            if (force || checked == null || now - checked.lastRun() >= CHECK_MILLIS) {
+                String result = db.quickCheck(10);
+                boolean ok = "ok".equals(result);
+                if (result != null) {
+                    db.recordMaintenanceRun(QUICK_CHECK, new Database.MaintenanceRun(now, before.latestChangeSeq()));
+                }
+                if (!ok) {
+                    synchronized (this) {
+                        quickCheckFailures++;
+                    }
+                    System.err.println("Database quick_check failed: " + (result == null ? "could not run" : result));
+                }
+                done(QUICK_CHECK, ok, result == null ? "failed" : result);
+            }
+
+            if (busy(force) || backups == null) return;
+            Database.MaintenanceRun backedUp = runs.get(BACKUP);
+            if (backedUp == null || now - backedUp.lastRun() >= backups.getEveryMillis()) {
+                try {
+                    Backups.Info info = backups.create();
+                    db.recordMaintenanceRun(BACKUP, new Database.MaintenanceRun(now, before.latestChangeSeq()));
+                    done(BACKUP, true, info.file().getFileName() + ", " + (info.bytes() >> 10) + " KB");
+                } catch (IOException e) {
+                    System.err.println("Scheduled backup failed: " + e.getMessage());
+                    done(BACKUP, false, e.getMessage());
+                }
+            }
+        } finally {
+            Database.StorageStats s = db.getStorageStats();
+            synchronized (this) {
+                if (s != null) storage = s;
+            }
+            RUN.record(start);
+        }
+    }
+
+    private synchronized void done(String task, boolean ok, String result) {
+        TaskStatus s = status.get(task);
+        status.put(task, new TaskStatus(task, s.runs() + 1, s.errors() + (ok ? 0 : 1),
+                System.currentTimeMillis(), result));
+    }
+
+    // ─── Stats ─────────────────────────────────────────────────────────────────────
+
+    /** One row per task, in the order they run. */
+    public synchronized List<TaskStatus> getStatus() {
+        return new ArrayList<>(status.values());
+    }
+
+    public synchronized long getTicks() { return ticks; }
+    public synchronized long getBusyTicks() { return busyTicks; }
+    public synchronized long getReclaimedBytes() { return reclaimedBytes; }
+    public synchronized long getTrimmedChanges() { return trimmedChanges; }
+    public synchronized long getCheckpointedPages() { return checkpointedPages; }
+    public synchronized long getQuickCheckFailures() { return quickCheckFailures; }
+    public synchronized long getFileBytes() { return storage == null ? 0 : storage.fileBytes(); }
+    public synchronized long getFreeBytes() { return storage == null ? 0 : storage.freeBytes(); }
+    public synchronized String getLastQuickCheck() { return status.get(QUICK_CHECK).lastResult(); }
+
+    /** A few lines for the metrics report. */
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Maintenance: %d tick(s), %d skipped (database in use)", ticks, busyTicks));
+        if (storage != null) {
+            sb.append(String.format(", file %d KB with %d KB free, change log %d entries",
+                    storage.fileBytes() >> 10, storage.freeBytes() >> 10, storage.changeLogEntries()));
+        }
+        sb.append(String.format("; %d KB reclaimed, %d change(s) trimmed, %d page(s) checkpointed%n",
+                reclaimedBytes >> 10, trimmedChanges, checkpointedPages));
+        for (TaskStatus s : status.values()) {
+            sb.append(String.format("  %-10s %5d run(s) %3d error(s)   %s%n", s.task(), s.runs(), s.errors(),
+                    s.lastRun() == 0 ? "" : String.format("%tF %<tT  %s", s.lastRun(), s.lastResult())));
+        }
+        return sb.toString();
+    }
+
+    public interface MaintenanceMXBean {
+        long getTicks();
+        long getBusyTicks();
+        long getReclaimedBytes();
+        long getTrimmedChanges();
+        long getCheckpointedPages();
+        long getQuickCheckFailures();
+        long getFileBytes();
+        long getFreeBytes();
+        String getLastQuickCheck();
+    }
+
+    private void register() {
+        MaintenanceMXBean view = new MaintenanceMXBean() {
+            @Override public long getTicks() { return Maintenance.this.getTicks(); }
+            @Override public long getBusyTicks() { return Maintenance.this.getBusyTicks(); }
+            @Override public long getReclaimedBytes() { return Maintenance.this.getReclaimedBytes(); }
+            @Override public long getTrimmedChanges() { return Maintenance.this.getTrimmedChanges(); }
+            @Override public long getCheckpointedPages() { return Maintenance.this.getCheckpointedPages(); }
+            @Override public long getQuickCheckFailures() { return Maintenance.this.getQuickCheckFailures(); }
+            @Override public long getFileBytes() { return Maintenance.this.getFileBytes(); }
+            @Override public long getFreeBytes() { return Maintenance.this.getFreeBytes(); }
+            @Override public String getLastQuickCheck() { return Maintenance.this.getLastQuickCheck(); }
+        };
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(view, new ObjectName("coinnavigator:type=Maintenance"));
+        } catch (InstanceAlreadyExistsException e) {
+            // a second scheduler in this JVM (tests, tools) – only the first is visible over JMX
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+}
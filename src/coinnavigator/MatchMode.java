@@ -0,0 +1,16 @@
+package coinnavigator;
+
+/**
+ * How Controller.searchCoins compares a text attribute with the search value.  Numeric
+ * attributes always match exactly, whatever the mode.
+ */
+public enum MatchMode {
+    /** Case-insensitive substring ("morgan" finds "Morgan Dollar"). */
+    CONTAINS,
+    /**
+     * Typo-tolerant: every word of the value must be within a small edit distance (insertions,
+     * deletions, substitutions, swapped neighbours) of, or a substring of, a word of the
+     * attribute.  Best matches first.  See TrigramIndex.
+     */
+    FUZZY
+}
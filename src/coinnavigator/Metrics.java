@@ -0,0 +1,206 @@
+package coinnavigator;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide operation timing metrics.
+ *
+ * Every instrumented method owns one OperationStats (usually a static final field) and calls
+ * record(start) in a finally block.  Recording is lock-free (LongAdders + a log-linear bucket
+ * histogram), so it is cheap enough to stay on in production.
+ *
+ * Each OperationStats is registered as a JMX MXBean under "coinnavigator:type=Operation,name=…",
+ * so jconsole / VisualVM can watch it live; report() renders the same numbers as a text table.
+ */
+public final class Metrics {
+
+    private static final String JMX_DOMAIN = "coinnavigator";
+    private static final Map<String, OperationStats> OPS = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    /** Returns the stats for `name`, creating (and registering with JMX) on first use. */
+    public static OperationStats op(String name) {
+        return OPS.computeIfAbsent(name, n -> {
+            OperationStats stats = new OperationStats(n);
+            register(stats);
+            return stats;
+        });
+    }
+
+    /** All operations recorded so far, sorted by name. */
+    public static Map<String, OperationStats> all() {
+        return new TreeMap<>(OPS);
+    }
+
+    /** Clears every counter and histogram. */
+    public static void resetAll() {
+        OPS.values().forEach(OperationStats::reset);
+    }
+
+    /** Renders every operation with at least one call as a fixed-width text table. */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-34s %9s %10s %10s %10s %10s %9s %9s %11s %11s%n",
+                "operation", "count", "mean us", "p50 us", "p99 us", "max us",
+                "rows in", "rows out", "bytes in", "bytes out"));
+        for (OperationStats s : all().values()) {
+            if (s.getCount() == 0) continue;
+            sb.append(String.format("%-34s %9d %10.1f %10.1f %10.1f %10.1f %9d %9d %11d %11d%n",
+                    s.getName(), s.getCount(), s.getMeanMicros(), s.getP50Micros(), s.getP99Micros(),
+                    s.getMaxMicros(), s.getRowsRead(), s.getRowsWritten(), s.getBytesRead(), s.getBytesWritten()));
+        }
+        return sb.toString();
+    }
+
+    private static void register(OperationStats stats) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(stats, new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + ObjectName.quote(stats.getName())));
+        } catch (InstanceAlreadyExistsException e) {
+            // another class loader got there first – the local copy still counts, it just isn't visible over JMX
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ─── JMX VIEW ──────────────────────────────────────────────────────────────────
+    public interface OperationStatsMXBean {
+        String getName();
+        long getCount();
+        long getErrors();
+        double getMeanMicros();
+        double getP50Micros();
+        double getP99Micros();
+        double getMaxMicros();
+        long getRowsRead();
+        long getRowsWritten();
+        long getBytesRead();
+        long getBytesWritten();
+        void reset();
+    }
+
+    // ─── ONE OPERATION ─────────────────────────────────────────────────────────────
+    /**
+     * Counters plus a latency histogram for one operation.
+     *
+     * The histogram has 8 linear sub-buckets per power of two of nanoseconds, so a reported
+     * percentile is within ~12% of the true value.
+     */
+    public static final class OperationStats implements OperationStatsMXBean {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        private final LongAdder rowsRead = new LongAdder();
+        private final LongAdder rowsWritten = new LongAdder();
+        private final LongAdder bytesRead = new LongAdder();
+        private final LongAdder bytesWritten = new LongAdder();
+
+        OperationStats(String name) {
+            this.name = name;
+        }
+
+        /** Records one call that started at `startNanos` (a System.nanoTime() value). */
+        public void record(long startNanos) {
+            long nanos = Math.max(0, System.nanoTime() - startNanos);
+            count.increment();
+            totalNanos.add(nanos);
+            histogram.incrementAndGet(bucketOf(nanos));
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // retry
+            }
+        }
+
+        public void error() { errors.increment(); }
+        public void addRowsRead(long n) { rowsRead.add(n); }
+        public void addRowsWritten(long n) { rowsWritten.add(n); }
+        public void addBytesRead(long n) { bytesRead.add(n); }
+        public void addBytesWritten(long n) { bytesWritten.add(n); }
+
+        @Override public String getName() { return name; }
+        @Override public long getCount() { return count.sum(); }
+        @Override public long getErrors() { return errors.sum(); }
+        @Override public long getRowsRead() { return rowsRead.sum(); }
+        @Override public long getRowsWritten() { return rowsWritten.sum(); }
+        @Override public long getBytesRead() { return bytesRead.sum(); }
+        @Override public long getBytesWritten() { return bytesWritten.sum(); }
+        @Override public double getMaxMicros() { return maxNanos.get() / 1000.0; }
+        @Override public double getP50Micros() { return percentileNanos(0.50) / 1000.0; }
+        @Override public double getP99Micros() { return percentileNanos(0.99) / 1000.0; }
+
+        @Override
+        public double getMeanMicros() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1000.0 / n;
+        }
+
+        @Override
+        public void reset() {
+            count.reset();
+            errors.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+            rowsRead.reset();
+            rowsWritten.reset();
+            bytesRead.reset();
+            bytesWritten.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.set(i, 0);
+            }
+        }
+
+        /** Upper bound of the bucket holding the q-th quantile (capped at the observed max). */
+        private long percentileNanos(double q) {
+            long total = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = histogram.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(q * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        // Values below SUB_BUCKETS get their own bucket; above that, bucket = (exponent, top SUB_BITS of mantissa).
+        static int bucketOf(long nanos) {
+            if (nanos < SUB_BUCKETS) return (int) nanos;
+            int exp = 63 - Long.numberOfLeadingZeros(nanos);          // >= SUB_BITS
+            int sub = (int) (nanos >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        static long bucketUpperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long sub = bucket % SUB_BUCKETS;
+            long lower = (1L << exp) | (sub << (exp - SUB_BITS));
+            return lower + (1L << (exp - SUB_BITS)) - 1;
+        }
+    }
+}
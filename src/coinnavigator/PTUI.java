@@ -0,0 +1,1085 @@
+package coinnavigator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.Scanner;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Plain-text UI for CoinNavigator.
+ *
+ * With no arguments on a terminal it runs the interactive menu.  Otherwise it runs in batch
+ * mode: commands come from the command line (separated by a lone ";"), from a script file
+ * (--script FILE) or from stdin (--script -, or when stdin is not a terminal), one per line.
+ * Results go to stdout in tsv/csv/json (--format); errors go to stderr and make the exit
+ * status non-zero.  See usage() for the command set.
+ */
+public class PTUI {
+
+    private final Controller controller;
+    private final Scanner scanner;
+    private String currentList;
+
+    public PTUI() {
+        this(new Controller());
+    }
+
+    public PTUI(Controller controller) {
+        this.controller = controller;
+        scanner = new Scanner(System.in);
+        String last = controller.getLastOpenedList();
+        currentList = last != null && controller.getAllListNames().contains(last) ? last : "Owned";
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0 && System.console() != null) {
+            PTUI ptui = new PTUI();
+            ptui.run();
+            ptui.controller.shutdown();
+            return;
+        }
+        System.exit(runBatch(args));
+    }
+
+    private void printMenu() {
+        System.out.println("\n=== Available Commands ===");
+        System.out.println("Current list: " + currentList);
+        System.out.println("LISTS    - Show all lists");
+        System.out.println("USE      - Switch to another list");
+        System.out.println("ADD      - Add a new coin");
+        System.out.println("LIST     - List all coins");
+        System.out.println("SEARCH   - Search coins by attribute");
+        System.out.println("EDIT     - Edit a coin");
+        System.out.println("DELETE   - Delete a coin");
+        System.out.println("STATS    - Show statistics of the current list");
+        System.out.println("METRICS  - Show operation timings");
+        System.out.println("HELP     - Show this menu");
+        System.out.println("EXIT     - Exit");
+        System.out.println("==========================");
+    }
+
+    private void run() {
+        printMenu();
+        while (true) {
+            System.out.print("> ");
+            String choice = scanner.nextLine().trim();
+
+            switch (choice.toUpperCase()) {
+                case "LISTS":
+                    for (String name : controller.getAllListNames()) {
+                        System.out.println((name.equals(currentList) ? "* " : "  ") + name);
+                    }
+                    break;
+                case "USE":
+                    useList();
+                    break;
+                case "ADD":
+                    addCoin();
+                    break;
+                case "LIST":
+                    listAllCoins();
+                    break;
+                case "SEARCH":
+                    searchCoins();
+                    break;
+                case "EDIT":
+                    editCoin();
+                    break;
+                case "DELETE":
+                    deleteCoin();
+                    break;
+                case "STATS":
+                    CollectionStats stats = controller.getStats(currentList);
+                    System.out.print(stats == null ? "No statistics for \"" + currentList + "\"\n" : stats.summary());
+                    break;
+                case "METRICS":
+                    System.out.print(controller.getMetricsReport());
+                    break;
+                case "HELP":
+                    printMenu();
+                    break;
+                case "EXIT":
+                    System.out.println("Exiting. Goodbye!");
+                    return;
+                default:
+                    // Invalid command: re-prompt
+                    break;
+            }
+        }
+    }
+
+    private void useList() {
+        List<String> names = controller.getAllListNames();
+        while (true) {
+            System.out.print("Enter list name " + names + " (or 'back'): ");
+            String name = scanner.nextLine().trim();
+            if (name.equalsIgnoreCase("back")) return;
+            if (names.contains(name)) {
+                currentList = name;
+                controller.setLastOpenedList(name);
+                System.out.println("Now using \"" + name + "\"");
+                return;
+            }
+            System.out.println("Invalid input");
+        }
+    }
+
+    private void addCoin() {
+        while (true) {
+            System.out.print("Enter coin name (or 'back'): ");
+            String name = scanner.nextLine().trim();
+            if (name.equalsIgnoreCase("back")) return;
+            if (!name.isEmpty()) {
+                // Build a minimal rawFields map for createCoin
+                Map<String, String> raw = new HashMap<>();
+                raw.put("name", name);
+                raw.put("date", "0");      // default date
+                raw.put("grade", "N/A");   // default grade
+                // other fields can be left blank or absent
+
+                Controller.ValidationResult vr = controller.createCoinInList(currentList, raw);
+                if (!vr.isValid()) {
+                    // This should not happen since date="0" and grade="N/A" are valid,
+                    // but we print any unexpected errors:
+                    for (Controller.FieldError fe : vr.getErrors()) {
+                        System.out.printf("Error: invalid '%s' (expected %s)%n",
+                            fe.getField(), fe.getExpectedType());
+                    }
+                } else {
+                    UUID id = vr.getCreatedId();
+                    System.out.println("Coin added with ID: " + id);
+                    return;
+                }
+            }
+            // Otherwise re-prompt
+        }
+    }
+
+    private void listAllCoins() {
+        List<Coin> coins = controller.listCoins(currentList);
+        System.out.println("\nAll Coins (by name):");
+        if (coins.isEmpty()) {
+            System.out.println("  [No coins in the database]");
+        } else {
+            for (int i = 0; i < coins.size(); i++) {
+                Coin c = coins.get(i);
+                System.out.printf("  %d. %s (ID: %s)%n", i + 1, c.getName(), c.getId());
+            }
+        }
+        System.out.println();  // blank line
+
+        // Prompt until valid input
+        while (true) {
+            System.out.print("Type 'back' to return or 'view' to view a coin: ");
+            String input = scanner.nextLine().trim();
+            if (input.equalsIgnoreCase("back")) {
+                return;
+            } else if (input.equalsIgnoreCase("view")) {
+                // View loop
+                while (true) {
+                    System.out.print("Enter coin number to view (or 'back'): ");
+                    String idxStr = scanner.nextLine().trim();
+                    if (idxStr.equalsIgnoreCase("back")) {
+                        return;
+                    }
+                    try {
+                        int index = Integer.parseInt(idxStr) - 1;
+                        if (index < 0 || index >= coins.size()) {
+                            System.out.println("Invalid input");
+                            continue;
+                        }
+                        Coin selected = coins.get(index);
+                        System.out.println("\nCoin Details:");
+                        System.out.println(selected.toString());
+                        System.out.println(); // blank line
+                        return;
+                    } catch (NumberFormatException e) {
+                        System.out.println("Invalid input");
+                    }
+                }
+            } else {
+                System.out.println("Invalid input");
+            }
+        }
+    }
+
+    private void searchCoins() {
+        while (true) {
+            System.out.println();  // blank line before showing attributes
+            System.out.println("Searchable attributes:");
+            System.out.println("id");
+            System.out.println("name");
+            System.out.println("date");
+            System.out.println("thickness");
+            System.out.println("diameter");
+            System.out.println("grade");
+            System.out.println("composition");
+            System.out.println("denomination");
+            System.out.println("edge");
+            System.out.println("weight");
+            System.out.println();  // blank line before prompt
+            System.out.print("Enter attribute to search by (or 'back'): ");
+            String attr = scanner.nextLine().trim().toLowerCase();
+            if (attr.equalsIgnoreCase("back")) return;
+
+            Set<String> validAttrs = Set.of(
+                    "id", "name", "date", "thickness", "diameter",
+                    "grade", "composition", "denomination", "edge", "weight"
+            );
+            if (!validAttrs.contains(attr)) {
+                System.out.println("Invalid input");
+                continue;
+            }
+
+            while (true) {
+                System.out.print("Enter value to search for (or 'back'): ");
+                String value = scanner.nextLine().trim();
+                if (value.equalsIgnoreCase("back")) return;
+
+                List<Coin> matches = controller.searchCoins(currentList, attr, value);
+                System.out.println("\nMatching Coins:");
+                if (matches.isEmpty()) {
+                    System.out.println("  [No coins match that attribute/value pair]");
+                } else {
+                    for (int i = 0; i < matches.size(); i++) {
+                        Coin c = matches.get(i);
+                        System.out.printf("  %d. %s (ID: %s)%n", i + 1, c.getName(), c.getId());
+                    }
+                }
+                System.out.println();  // blank line
+                // Prompt until valid input
+                while (true) {
+                    System.out.print("Type 'back' to return or 'view' to view a coin: ");
+                    String input2 = scanner.nextLine().trim();
+                    if (input2.equalsIgnoreCase("back")) {
+                        return;
+                    } else if (input2.equalsIgnoreCase("view")) {
+                        while (true) {
+                            System.out.print("Enter coin number to view (or 'back'): ");
+                            String idxStr = scanner.nextLine().trim();
+                            if (idxStr.equalsIgnoreCase("back")) {
+                                return;
+                            }
+                            try {
+                                int index = Integer.parseInt(idxStr) - 1;
+                                List<Coin> matchesList = controller.searchCoins(currentList, attr, value);
+                                if (index < 0 || index >= matchesList.size()) {
+                                    System.out.println("Invalid input");
+                                    continue;
+                                }
+                                Coin selected = matchesList.get(index);
+                                System.out.println("\nCoin Details:");
+                                System.out.println(selected.toString());
+                                System.out.println(); // blank line
+                                return;
+                            } catch (NumberFormatException e) {
+                                System.out.println("Invalid input");
+                            }
+                        }
+                    } else {
+                        System.out.println("Invalid input");
+                    }
+                }
+                // End prompt loop
+            }
+        }
+    }
+
+    private void editCoin() {
+        while (true) {
+            System.out.print("Would you like to 'search' by attribute or 'list' all coins? (or 'back'): ");
+            String choice = scanner.nextLine().trim().toLowerCase();
+            if (choice.equalsIgnoreCase("back")) return;
+
+            List<Coin> candidates;
+            if (choice.equals("search")) {
+                candidates = performSearchForEdit();
+                if (candidates == null) return;
+                if (candidates.isEmpty()) continue;
+            } else if (choice.equals("list")) {
+                candidates = controller.listCoins(currentList);
+                if (candidates.isEmpty()) continue;
+            } else {
+                continue;
+            }
+
+            while (true) {
+                System.out.println("Select a coin by index (or 'back'):");
+                for (int i = 0; i < candidates.size(); i++) {
+                    Coin c = candidates.get(i);
+                    System.out.printf("  %d) %s (ID: %s)%n", i + 1, c.getName(), c.getId());
+                }
+                System.out.print("> ");
+                String idxStr = scanner.nextLine().trim();
+                if (idxStr.equalsIgnoreCase("back")) return;
+
+                int index;
+                try {
+                    index = Integer.parseInt(idxStr) - 1;
+                    if (index < 0 || index >= candidates.size()) continue;
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+
+                Coin coinToEdit = candidates.get(index);
+                Set<String> editableAttrs = Set.of(
+                        "name", "date", "thickness", "diameter", "grade",
+                        "composition", "denomination", "edge", "weight"
+                );
+
+                while (true) {
+                    System.out.println("Editable attributes: name, date, thickness, diameter, grade, composition, denomination, edge, weight");
+                    System.out.print("Enter attribute to change (or 'back'): ");
+                    String attr = scanner.nextLine().trim().toLowerCase();
+                    if (attr.equalsIgnoreCase("back")) return;
+                    if (!editableAttrs.contains(attr)) continue;
+
+                    while (true) {
+                        System.out.print("Enter new value for '" + attr + "' (or 'back'): ");
+                        String newValue = scanner.nextLine().trim();
+                        if (newValue.equalsIgnoreCase("back")) return;
+
+                        boolean success = setAttribute(coinToEdit, attr, newValue);
+                        if (success) {
+                            controller.saveCoin(currentList, coinToEdit);
+                            break;
+                        }
+                        // Otherwise re-prompt newValue
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Coin> performSearchForEdit() {
+        while (true) {
+            System.out.println("Searchable attributes:");
+            System.out.println("id");
+            System.out.println("name");
+            System.out.println("date");
+            System.out.println("thickness");
+            System.out.println("diameter");
+            System.out.println("grade");
+            System.out.println("composition");
+            System.out.println("denomination");
+            System.out.println("edge");
+            System.out.println("weight");
+            System.out.print("Enter attribute to search by (or 'back'): ");
+            String attr = scanner.nextLine().trim().toLowerCase();
+            if (attr.equalsIgnoreCase("back")) return null;
+
+            Set<String> validAttrs = Set.of(
+                    "id", "name", "date", "thickness", "diameter",
+                    "grade", "composition", "denomination", "edge", "weight"
+            );
+            if (!validAttrs.contains(attr)) {
+                System.out.println("Invalid input");
+                continue;
+            }
+
+            while (true) {
+                System.out.print("Enter value to search for (or 'back'): ");
+                String value = scanner.nextLine().trim();
+                if (value.equalsIgnoreCase("back")) return null;
+
+                return controller.searchCoins(currentList, attr, value);
+            }
+        }
+    }
+
+    private boolean setAttribute(Coin c, String attr, String newValue) {
+        try {
+            switch (attr) {
+                case "name":
+                    if (!newValue.isEmpty()) {
+                        c.setName(newValue);
+                        return true;
+                    }
+                    return false;
+                case "date":
+                    c.setDate(Integer.parseInt(newValue));
+                    return true;
+                case "thickness":
+                    c.setThickness(Double.parseDouble(newValue));
+                    return true;
+                case "diameter":
+                    c.setDiameter(Double.parseDouble(newValue));
+                    return true;
+                case "grade":
+                    if (!newValue.isEmpty()) {
+                        c.setGrade(newValue);
+                        return true;
+                    }
+                    return false;
+                case "composition":
+                    if (!newValue.isEmpty()) {
+                        c.setComposition(newValue);
+                        return true;
+                    }
+                    return false;
+                case "denomination":
+                    if (!newValue.isEmpty()) {
+                        c.setDenomination(newValue);
+                        return true;
+                    }
+                    return false;
+                case "edge":
+                    if (!newValue.isEmpty()) {
+                        c.setEdge(newValue);
+                        return true;
+                    }
+                    return false;
+                case "weight":
+                    c.setWeight(Double.parseDouble(newValue));
+                    return true;
+                default:
+                    return false;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void deleteCoin() {
+        while (true) {
+            System.out.print("Would you like to 'search' by attribute or 'list' all coins? (or 'back'): ");
+            String choice = scanner.nextLine().trim().toLowerCase();
+            if (choice.equalsIgnoreCase("back")) return;
+
+            List<Coin> candidates;
+            if (choice.equals("search")) {
+                candidates = performSearchForEdit();
+                if (candidates == null) return;
+                if (candidates.isEmpty()) continue;
+            } else if (choice.equals("list")) {
+                candidates = controller.listCoins(currentList);
+                if (candidates.isEmpty()) continue;
+            } else {
+                continue;
+            }
+
+            while (true) {
+                System.out.println("Select a coin to delete by index (or 'back'):");
+                for (int i = 0; i < candidates.size(); i++) {
+                    Coin c = candidates.get(i);
+                    System.out.printf("  %d) %s (ID: %s)%n", i + 1, c.getName(), c.getId());
+                }
+                System.out.print("> ");
+                String idxStr = scanner.nextLine().trim();
+                if (idxStr.equalsIgnoreCase("back")) return;
+
+                int index;
+                try {
+                    index = Integer.parseInt(idxStr) - 1;
+                    if (index < 0 || index >= candidates.size()) continue;
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+
+                Coin coinToDelete = candidates.get(index);
+
+                while (true) {
+                    System.out.println();  // blank line
+                    System.out.printf(
+                            "Are you sure you want to delete '%s' (ID: %s)? (yes/no): ",
+                            coinToDelete.getName(), coinToDelete.getId()
+                    );
+                    String confirm = scanner.nextLine().trim().toLowerCase();
+                    if (confirm.equals("yes") || confirm.equals("y")) {
+                        controller.deleteCoin(currentList, coinToDelete);
+                        System.out.println("Coin deleted.");
+                        return;
+                    } else if (confirm.equals("no") || confirm.equals("n") || confirm.equalsIgnoreCase("back")) {
+                        return;
+                    }
+                    // Otherwise re-prompt confirmation
+                }
+            }
+        }
+    }
+
+    // ─── BATCH MODE ────────────────────────────────────────────────────────────────
+
+    private static final String USAGE = """
+        Usage: PTUI [--format tsv|csv|json] [--no-header] [--keep-going] [--script FILE|-] [COMMAND [; COMMAND]...]
+
+        Commands (one per script line; quote arguments containing spaces, # starts a comment):
+          lists                          all list names; those of archives (db.attach) as ALIAS.LIST, read-only
+          archives                       archive files mounted read-only, by alias
+          list LIST                      every coin in LIST (streamed)
+          search LIST ATTR VALUE         coins whose ATTR matches VALUE (partial for text, exact for numbers)
+          fuzzy LIST ATTR VALUE          typo-tolerant search of a text attribute, best matches first
+          grade LIST MIN [MAX]           coins graded MIN (e.g. MS-63) or better, up to MAX; best first
+          top LIST SORT N [ATTR VALUE]   the first N coins in SORT order (e.g. weight:desc,name), sorted
+                                         by the database; only those matching ATTR VALUE if given
+          search-all ATTR VALUE [LIMIT]  the same over every list at once (default limit 100), with a list column
+          get LIST ID                    one coin
+          add LIST ATTR=VALUE...         new coin (name, date and grade required); prints its id
+          edit LIST ID ATTR=VALUE...     change attributes of a coin
+          delete LIST ID                 delete a coin
+          move FROM TO ID                move a coin to another list
+          image LIST ID SIDE FILE        set a coin's obverse or reverse (SIDE) photo; scaled down, stored as PNG
+          images LIST DIR                import every photo in DIR, named after its coin's id or name
+                                         plus an optional side ("Morgan Dollar_reverse.jpg")
+          create-list NAME               new empty list
+          delete-list NAME               delete a list and its coins (not Owned or Wishlist)
+          stats [LIST]                   coins and weight per list, or LIST's breakdown by
+                                         denomination, composition, decade and year
+          metrics                        operation timings
+          maintenance [run]              what background maintenance (ANALYZE, vacuum, checkpoint,
+                                         quick_check) has done; with run, do all of it now
+          backup                         hot backup of the whole database, checked before it is kept
+          backups                        existing backups, newest first
+          restore FILE                   replace the whole database with a backup, once it passes a check
+          help                           this text
+
+        Exit status: 0 on success, 1 if a command failed, 2 for bad options.
+        """;
+
+    private static final List<String> ATTRIBUTES = Coin.getAttributeNamesInOrder();
+    private static final List<String> COIN_COLUMNS = RecordWriter.COIN_COLUMNS;
+
+    /** Runs batch mode with the given command-line arguments; returns the exit status. */
+    static int runBatch(String[] args) {
+        String format = "tsv";
+        boolean header = true;
+        boolean keepGoing = false;
+        String script = null;
+
+        int i = 0;
+        try {
+            for (; i < args.length && args[i].startsWith("--"); i++) {
+                switch (args[i]) {
+                    case "--format":     format = args[++i]; break;
+                    case "--script":     script = args[++i]; break;
+                    case "--no-header":  header = false; break;
+                    case "--keep-going": keepGoing = true; break;
+                    case "--help":       System.out.print(USAGE); return 0;
+                    default:             throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e instanceof IllegalArgumentException ? e.getMessage() : "Missing value for " + args[i - 1]);
+            System.err.print(USAGE);
+            return 2;
+        }
+
+        // FileDescriptor.out rather than System.out: PrintStream swallows errors, and we want a
+        // closed pipe (e.g. `| head`) to stop a long listing instead of reading it to the end.
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new java.io.FileOutputStream(java.io.FileDescriptor.out), StandardCharsets.UTF_8), 1 << 16);
+        RecordWriter out;
+        try {
+            out = RecordWriter.forFormat(format, writer, header);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+
+        Controller controller = new Controller();
+        Batch batch = new Batch(controller, out, keepGoing);
+        try {
+            // Commands on the command line, separated by ";"
+            List<String> cmd = new ArrayList<>();
+            for (; i < args.length; i++) {
+                if (args[i].equals(";")) {
+                    if (!batch.run(cmd, "argument")) return 1;
+                    cmd = new ArrayList<>();
+                } else {
+                    cmd.add(args[i]);
+                }
+            }
+            boolean hadArgs = !cmd.isEmpty() || args.length > 0 && args[args.length - 1].equals(";");
+            if (!batch.run(cmd, "argument")) return 1;
+
+            // Then the script, if any (stdin when nothing else was given)
+            if (script == null && !hadArgs) {
+                script = "-";
+            }
+            if (script != null) {
+                try (Reader r = script.equals("-")
+                        ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                        : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+                    BufferedReader lines = new BufferedReader(r);
+                    String line;
+                    int lineNo = 0;
+                    while ((line = lines.readLine()) != null) {
+                        lineNo++;
+                        if (!batch.runLine(line, "line " + lineNo)) return 1;
+                    }
+                }
+            }
+            if (!batch.drain()) return 1;
+            return batch.failed ? 1 : 0;
+        } catch (IOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            return 1;
+        } finally {
+            controller.shutdown();
+            try {
+                writer.flush();
+            } catch (IOException ignored) {
+                // stdout already gone
+            }
+        }
+    }
+
+    /**
+     * Splits one script line into words: whitespace separates, '…' and "…" group, backslash
+     * escapes the next character (outside single quotes), and an unquoted # starts a comment.
+     */
+    static List<String> tokenize(String line) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = null;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quote != 0) {
+                if (ch == quote) {
+                    quote = 0;
+                } else if (ch == '\\' && quote == '"' && i + 1 < line.length()) {
+                    word.append(line.charAt(++i));
+                } else {
+                    word.append(ch);
+                }
+            } else if (Character.isWhitespace(ch)) {
+                if (word != null) {
+                    words.add(word.toString());
+                    word = null;
+                }
+            } else if (ch == '#' && word == null) {
+                break;
+            } else {
+                if (word == null) word = new StringBuilder();
+                if (ch == '\'' || ch == '"') {
+                    quote = ch;
+                } else if (ch == '\\' && i + 1 < line.length()) {
+                    word.append(line.charAt(++i));
+                } else {
+                    word.append(ch);
+                }
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        if (word != null) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    /** Executes batch commands against one Controller, writing results to `out`. */
+    private static final class Batch {
+        private final Controller controller;
+        private final RecordWriter out;
+        private final boolean keepGoing;
+        private boolean failed;
+        // adds not yet committed (with -Dcoinnavigator.writeBehind=true), with where they came from
+        private final List<Map.Entry<String, CompletableFuture<Controller.ValidationResult>>> pendingAdds =
+                new ArrayList<>();
+
+        Batch(Controller controller, RecordWriter out, boolean keepGoing) {
+            this.controller = controller;
+            this.out = out;
+            this.keepGoing = keepGoing;
+        }
+
+        /** Tokenizes and runs one script line. */
+        boolean runLine(String line, String where) throws IOException {
+            List<String> cmd;
+            try {
+                cmd = tokenize(line);
+            } catch (IllegalArgumentException e) {
+                System.err.println(where + ": " + e.getMessage());
+                failed = true;
+                return keepGoing;
+            }
+            return run(cmd, where);
+        }
+
+        /**
+         * Runs one command (empty = no-op).  A failing command is reported on stderr; returns
+         * false if processing should stop because of it.
+         */
+        boolean run(List<String> cmd, String where) throws IOException {
+            if (cmd.isEmpty()) {
+                return true;
+            }
+            // runs of adds are committed together; anything else first reports how they went
+            if (!cmd.get(0).equalsIgnoreCase("add") && !drain()) {
+                return false;
+            }
+            try {
+                execute(cmd.get(0).toLowerCase(), cmd.subList(1, cmd.size()), where);
+            } catch (IllegalArgumentException e) {
+                out.flush();
+                System.err.println(where + ": " + cmd.get(0) + ": " + e.getMessage());
+                failed = true;
+                return keepGoing;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+            return true;
+        }
+
+        /**
+         * Waits for pending adds and prints their ids, in order.  Returns false if one failed and
+         * processing should stop because of it.
+         */
+        boolean drain() throws IOException {
+            boolean ok = true;
+            for (Map.Entry<String, CompletableFuture<Controller.ValidationResult>> add : pendingAdds) {
+                Controller.ValidationResult vr = add.getValue().join();
+                if (vr.isValid()) {
+                    out.begin(List.of("id"));
+                    out.row(List.of(vr.getCreatedId().toString()));
+                    out.end();
+                } else {
+                    out.flush();
+                    System.err.println(add.getKey() + ": add: " + String.join("; ", vr.getMessages()));
+                    failed = true;
+                    ok = false;
+                }
+            }
+            pendingAdds.clear();
+            out.flush();
+            return ok || keepGoing;
+        }
+
+        private void execute(String command, List<String> a, String where) throws IOException {
+            switch (command) {
+                case "lists" -> {
+                    arity(a, 0, "lists");
+                    out.begin(List.of("name"));
+                    for (String name : controller.getAllListNames()) {
+                        out.row(List.of(name));
+                    }
+                    out.end();
+                }
+                case "archives" -> {
+                    arity(a, 0, "archives");
+                    out.begin(List.of("alias", "file"));
+                    for (Map.Entry<String, Path> archive : controller.getArchives().entrySet()) {
+                        out.row(List.of(archive.getKey(), archive.getValue().toString()));
+                    }
+                    out.end();
+                }
+                case "list" -> {
+                    arity(a, 1, "list LIST");
+                    streamCoins(requireList(a.get(0)), null, null);
+                }
+                case "search" -> {
+                    arity(a, 3, "search LIST ATTR VALUE");
+                    if (!ATTRIBUTES.contains(a.get(1))) {
+                        throw new IllegalArgumentException("Unknown attribute " + a.get(1) + "; one of " + ATTRIBUTES);
+                    }
+                    streamCoins(requireList(a.get(0)), a.get(1), a.get(2));
+                }
+                case "fuzzy" -> {
+                    arity(a, 3, "fuzzy LIST ATTR VALUE");
+                    if (!ATTRIBUTES.contains(a.get(1))) {
+                        throw new IllegalArgumentException("Unknown attribute " + a.get(1) + "; one of " + ATTRIBUTES);
+                    }
+                    out.begin(COIN_COLUMNS);
+                    for (Coin c : controller.searchCoins(requireList(a.get(0)), a.get(1), a.get(2), MatchMode.FUZZY)) {
+                        out.row(RecordWriter.coinRow(c));
+                    }
+                    out.end();
+                }
+                case "grade" -> {
+                    if (a.size() != 2 && a.size() != 3) usage("grade LIST MIN [MAX]");
+                    String list = requireList(a.get(0));
+                    int min = Grade.parseBound(a.get(1));
+                    int max = a.size() == 3 ? Grade.parseBound(a.get(2)) : Grade.MAX;
+                    out.begin(COIN_COLUMNS);
+                    controller.streamCoinsByGrade(list, min, max, c -> {
+                        try {
+                            out.row(RecordWriter.coinRow(c));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    out.end();
+                }
+                case "top" -> {
+                    if (a.size() != 3 && a.size() != 5) usage("top LIST SORT N [ATTR VALUE]");
+                    String list = requireList(a.get(0));
+                    List<SortKey> order = SortKey.parse(a.get(1));
+                    int n = positive(a.get(2), "N");
+                    String attr = a.size() == 5 ? a.get(3) : null;
+                    if (attr != null && !ATTRIBUTES.contains(attr)) {
+                        throw new IllegalArgumentException("Unknown attribute " + attr + "; one of " + ATTRIBUTES);
+                    }
+                    out.begin(COIN_COLUMNS);
+                    for (Coin c : controller.listCoinsSorted(list, attr, attr == null ? null : a.get(4), order, n, 0)) {
+                        out.row(RecordWriter.coinRow(c));
+                    }
+                    out.end();
+                }
+                case "search-all" -> {
+                    if (a.size() != 2 && a.size() != 3) usage("search-all ATTR VALUE [LIMIT]");
+                    if (!ATTRIBUTES.contains(a.get(0))) {
+                        throw new IllegalArgumentException("Unknown attribute " + a.get(0) + "; one of " + ATTRIBUTES);
+                    }
+                    int limit = a.size() == 3 ? positive(a.get(2), "LIMIT") : 100;
+                    List<String> columns = new ArrayList<>();
+                    columns.add("list");
+                    columns.addAll(COIN_COLUMNS);
+                    out.begin(columns);
+                    for (Controller.ListMatch m : controller.searchAllLists(a.get(0), a.get(1), limit)) {
+                        List<Object> row = new ArrayList<>();
+                        row.add(m.listName());
+                        row.addAll(RecordWriter.coinRow(m.coin()));
+                        out.row(row);
+                    }
+                    out.end();
+                }
+                case "get" -> {
+                    arity(a, 2, "get LIST ID");
+                    Coin coin = requireCoin(a.get(0), a.get(1));
+                    out.begin(COIN_COLUMNS);
+                    out.row(RecordWriter.coinRow(coin));
+                    out.end();
+                }
+                case "add" -> {
+                    if (a.isEmpty()) usage("add LIST ATTR=VALUE...");
+                    String list = requireList(a.get(0));
+                    CompletableFuture<Controller.ValidationResult> added =
+                            controller.createCoinInListAsync(list, keyValues(a.subList(1, a.size())));
+                    // invalid input is known right away; only commit failures wait for drain()
+                    if (added.isDone() && added.join().getCreatedId() == null) {
+                        throw new IllegalArgumentException(String.join("; ", added.join().getMessages()));
+                    }
+                    pendingAdds.add(Map.entry(where, added));
+                }
+                case "edit" -> {
+                    if (a.size() < 3) usage("edit LIST ID ATTR=VALUE...");
+                    Coin coin = requireCoin(a.get(0), a.get(1));
+                    check(controller.editCoin(a.get(0), coin, keyValues(a.subList(2, a.size()))));
+                }
+                case "delete" -> {
+                    arity(a, 2, "delete LIST ID");
+                    check(controller.deleteCoin(a.get(0), requireCoin(a.get(0), a.get(1))));
+                }
+                case "move" -> {
+                    arity(a, 3, "move FROM TO ID");
+                    Coin coin = requireCoin(a.get(0), a.get(2));
+                    check(controller.moveCoin(a.get(0), requireList(a.get(1)), coin));
+                }
+                case "image" -> {
+                    arity(a, 4, "image LIST ID SIDE FILE");
+                    Coin coin = requireCoin(a.get(0), a.get(1));
+                    ImageIngestor.Side side = switch (a.get(2).toLowerCase()) {
+                        case "obverse" -> ImageIngestor.Side.OBVERSE;
+                        case "reverse" -> ImageIngestor.Side.REVERSE;
+                        default -> throw new IllegalArgumentException("Side must be obverse or reverse");
+                    };
+                    check(controller.attachImage(a.get(0), coin, side, Paths.get(a.get(3))));
+                }
+                case "images" -> {
+                    arity(a, 2, "images LIST DIR");
+                    Controller.ImageImportResult result = controller.attachImageFolder(requireList(a.get(0)), Paths.get(a.get(1)));
+                    out.begin(List.of("attached"));
+                    out.row(List.of(result.getAttached()));
+                    out.end();
+                    check(result);
+                }
+                case "create-list" -> {
+                    arity(a, 1, "create-list NAME");
+                    if (a.get(0).isBlank() || controller.getAllListNames().contains(a.get(0))) {
+                        throw new IllegalArgumentException("List already exists or name is empty: " + a.get(0));
+                    }
+                    check(controller.createList(a.get(0)));
+                }
+                case "delete-list" -> {
+                    arity(a, 1, "delete-list NAME");
+                    check(controller.deleteList(requireList(a.get(0))));
+                }
+                case "stats" -> {
+                    if (a.size() > 1) usage("stats [LIST]");
+                    if (a.isEmpty()) {
+                        out.begin(List.of("list", "coins", "total_weight", "average_weight"));
+                        for (String name : controller.getAllListNames()) {
+                            CollectionStats stats = controller.getStats(name);
+                            if (stats != null) {
+                                out.row(List.of(name, stats.getCount(), stats.getTotalWeight(), stats.getAverageWeight()));
+                            }
+                        }
+                        out.end();
+                    } else {
+                        CollectionStats stats = controller.getStats(requireList(a.get(0)));
+                        if (stats == null) {
+                            throw new IllegalArgumentException("No statistics for " + a.get(0));
+                        }
+                        out.begin(List.of("dimension", "key", "coins", "total_weight", "average_weight"));
+                        statsRow("total", "", stats.getTotal());
+                        for (Map.Entry<String, CollectionStats.Bucket> e : stats.getByDenomination().entrySet()) {
+                            statsRow("denomination", e.getKey(), e.getValue());
+                        }
+                        for (Map.Entry<String, CollectionStats.Bucket> e : stats.getByComposition().entrySet()) {
+                            statsRow("composition", e.getKey(), e.getValue());
+                        }
+                        for (Map.Entry<Integer, CollectionStats.Bucket> e : stats.getByDecade().entrySet()) {
+                            statsRow("decade", e.getKey(), e.getValue());
+                        }
+                        for (Map.Entry<Integer, CollectionStats.Bucket> e : stats.getByYear().entrySet()) {
+                            statsRow("year", e.getKey(), e.getValue());
+                        }
+                        out.end();
+                    }
+                }
+                case "metrics" -> {
+                    arity(a, 0, "metrics");
+                    out.begin(List.of("operation", "count", "errors", "mean_us", "p50_us", "p99_us", "max_us",
+                            "rows_read", "rows_written", "bytes_read", "bytes_written"));
+                    for (Metrics.OperationStats op : Metrics.all().values()) {
+                        out.row(List.of(op.getName(), op.getCount(), op.getErrors(), op.getMeanMicros(),
+                                op.getP50Micros(), op.getP99Micros(), op.getMaxMicros(), op.getRowsRead(),
+                                op.getRowsWritten(), op.getBytesRead(), op.getBytesWritten()));
+                    }
+                    out.end();
+                }
+                case "maintenance" -> {
+                    if (a.size() > 1 || (a.size() == 1 && !a.get(0).equalsIgnoreCase("run"))) {
+                        usage("maintenance [run]");
+                    }
+                    if (!a.isEmpty() && controller.runMaintenance() == null) {
+                        throw new IllegalArgumentException("maintenance is switched off (-Dcoinnavigator.maintenance=false)");
+                    }
+                    out.begin(List.of("task", "runs", "errors", "last_run", "last_result"));
+                    for (Maintenance.TaskStatus t : controller.getMaintenanceStatus()) {
+                        out.row(List.of(t.task(), t.runs(), t.errors(),
+                                t.lastRun() == 0 ? "" : Instant.ofEpochMilli(t.lastRun()).toString(), t.lastResult()));
+                    }
+                    out.end();
+                }
+                case "backup" -> {
+                    arity(a, 0, "backup");
+                    Controller.BackupResult r = controller.backup();
+                    if (!r.isOk()) {
+                        throw new IllegalArgumentException(String.join("; ", r.getMessages()));
+                    }
+                    backupRows(List.of(r.getBackup()));
+                }
+                case "backups" -> {
+                    arity(a, 0, "backups");
+                    backupRows(controller.listBackups());
+                }
+                case "restore" -> {
+                    arity(a, 1, "restore FILE");
+                    Controller.Result r = controller.restoreBackup(Paths.get(a.get(0)));
+                    if (!r.isOk()) {
+                        throw new IllegalArgumentException(String.join("; ", r.getMessages()));
+                    }
+                }
+                case "help" -> {
+                    out.flush();
+                    System.out.print(USAGE);
+                    System.out.flush();
+                }
+                default -> throw new IllegalArgumentException("Unknown command (try 'help')");
+            }
+        }
+
+        private void backupRows(List<Backups.Info> backups) throws IOException {
+            out.begin(List.of("file", "bytes", "created", "compressed"));
+            for (Backups.Info b : backups) {
+                out.row(List.of(b.file().toString(), b.bytes(), b.created().toString(), b.compressed()));
+            }
+            out.end();
+        }
+
+        private void statsRow(String dimension, Object key, CollectionStats.Bucket b) throws IOException {
+            out.row(List.of(dimension, key, b.count(), b.totalWeight(), b.averageWeight()));
+        }
+
+        private void streamCoins(String list, String attr, String value) throws IOException {
+            out.begin(COIN_COLUMNS);
+            controller.streamCoins(list, attr, value, c -> {
+                try {
+                    out.row(RecordWriter.coinRow(c));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.end();
+        }
+
+        private String requireList(String list) {
+            if (!controller.getAllListNames().contains(list)) {
+                throw new IllegalArgumentException("No such list: " + list);
+            }
+            return list;
+        }
+
+        private Coin requireCoin(String list, String id) {
+            requireList(list);
+            try {
+                UUID.fromString(id);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Not a coin id: " + id);
+            }
+            Coin coin = controller.getCoinById(list, id);
+            if (coin == null) {
+                throw new IllegalArgumentException("No coin " + id + " in " + list);
+            }
+            return coin;
+        }
+
+        private static int positive(String word, String what) {
+            try {
+                int n = Integer.parseInt(word);
+                if (n > 0) return n;
+            } catch (NumberFormatException ignored) {
+                // reported below
+            }
+            throw new IllegalArgumentException(what + " must be a positive integer");
+        }
+
+        /** Turns a failed Controller result into a command error. */
+        private static void check(Controller.Result result) {
+            if (!result.isOk()) {
+                throw new IllegalArgumentException(String.join("; ", result.getMessages()));
+            }
+        }
+
+        private static Map<String, String> keyValues(List<String> words) {
+            Map<String, String> map = new HashMap<>();
+            for (String word : words) {
+                int eq = word.indexOf('=');
+                String key = eq < 0 ? word : word.substring(0, eq);
+                if (eq < 0 || !ATTRIBUTES.contains(key)) {
+                    throw new IllegalArgumentException("Expected ATTR=VALUE with ATTR one of " + ATTRIBUTES + ", got " + word);
+                }
+                map.put(key, word.substring(eq + 1));
+            }
+            return map;
+        }
+
+        private static void arity(List<String> args, int n, String usage) {
+            if (args.size() != n) usage(usage);
+        }
+
+        private static void usage(String usage) {
+            throw new IllegalArgumentException("usage: " + usage);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package coinnavigator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes result sets in a machine-readable format, one row at a time (nothing is buffered
+ * beyond the underlying Writer, so arbitrarily large results stream straight through).
+ *
+ *  – tsv:  header line, tab-separated; tab, newline and backslash escaped as \t \n \\
+ *  – csv:  RFC 4180 (header line, fields quoted when needed)
+ *  – json: one array of objects per result set; numbers stay unquoted
+ *
+ * Values are Strings or Numbers; null is written as an empty field (JSON null).
+ */
+public abstract class RecordWriter {
+
+    protected final Writer out;
+    protected final boolean header;
+    protected List<String> columns;
+
+    protected RecordWriter(Writer out, boolean header) {
+        this.out = out;
+        this.header = header;
+    }
+
+    /** The writer for "tsv", "csv" or "json"; throws IllegalArgumentException for anything else. */
+    public static RecordWriter forFormat(String format, Writer out, boolean header) {
+        switch (format.toLowerCase()) {
+            case "tsv":  return new Delimited(out, header, '\t');
+            case "csv":  return new Delimited(out, header, ',');
+            case "json": return new JsonArray(out, header);
+            default:     throw new IllegalArgumentException("Unknown format: " + format + " (tsv, csv or json)");
+        }
+    }
+
+    // ─── Coin rows ─────────────────────────────────────────────────────────────────
+    private static final List<String> ATTRIBUTES = Coin.getAttributeNamesInOrder();
+
+    /** Columns of a coin row: id, then every attribute in getAttributeNamesInOrder() order. */
+    public static final List<String> COIN_COLUMNS;
+    static {
+        List<String> columns = new ArrayList<>();
+        columns.add("id");
+        columns.addAll(ATTRIBUTES);
+        COIN_COLUMNS = List.copyOf(columns);
+    }
+
+    /** The values of a coin row, lined up with COIN_COLUMNS (numerics stay numbers). */
+    public static List<Object> coinRow(Coin c) {
+        List<Object> row = new ArrayList<>(COIN_COLUMNS.size());
+        row.add(c.getId().toString());
+        for (String attr : ATTRIBUTES) {
+            // getters instead of getAttributeValue(): no reflection per field on million-row listings
+            row.add(switch (attr) {
+                case "name" -> c.getName();
+                case "date" -> c.getDate();
+                case "grade" -> c.getGrade();
+                case "diameter" -> c.getDiameter();
+                case "thickness" -> c.getThickness();
+                case "edge" -> c.getEdge();
+                case "weight" -> c.getWeight();
+                case "composition" -> c.getComposition();
+                case "denomination" -> c.getDenomination();
+                default -> c.getAttributeValue(attr);
+            });
+        }
+        return row;
+    }
+
+    /** Starts a result set with the given column names. */
+    public void begin(List<String> columns) throws IOException {
+        this.columns = columns;
+    }
+
+    /** Writes one row; `values` line up with the columns given to begin(). */
+    public abstract void row(List<?> values) throws IOException;
+
+    /** Ends the current result set. */
+    public void end() throws IOException {
+        columns = null;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    // ─── TSV / CSV ─────────────────────────────────────────────────────────────────
+    private static final class Delimited extends RecordWriter {
+        private final char sep;
+
+        Delimited(Writer out, boolean header, char sep) {
+            super(out, header);
+            this.sep = sep;
+        }
+
+        @Override
+        public void begin(List<String> columns) throws IOException {
+            super.begin(columns);
+            if (header) {
+                row(columns);
+            }
+        }
+
+        @Override
+        public void row(List<?> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) out.write(sep);
+                Object v = values.get(i);
+                if (v != null) {
+                    field(v.toString());
+                }
+            }
+            out.write('\n');
+        }
+
+        private void field(String s) throws IOException {
+            if (sep == '\t') {
+                for (int i = 0; i < s.length(); i++) {
+                    char ch = s.charAt(i);
+                    switch (ch) {
+                        case '\t': out.write("\\t"); break;
+                        case '\n': out.write("\\n"); break;
+                        case '\r': out.write("\\r"); break;
+                        case '\\': out.write("\\\\"); break;
+                        default:   out.write(ch);
+                    }
+                }
+            } else if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(s.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(s);
+            }
+        }
+    }
+
+    // ─── JSON ──────────────────────────────────────────────────────────────────────
+    private static final class JsonArray extends RecordWriter {
+        private boolean first;
+
+        JsonArray(Writer out, boolean header) {
+            super(out, header);
+        }
+
+        @Override
+        public void begin(List<String> columns) throws IOException {
+            super.begin(columns);
+            out.write('[');
+            first = true;
+        }
+
+        @Override
+        public void row(List<?> values) throws IOException {
+            out.write(first ? "\n" : ",\n");
+            first = false;
+            Json.writeObject(out, columns, values);
+        }
+
+        @Override
+        public void end() throws IOException {
+            out.write(first ? "]\n" : "\n]\n");
+            super.end();
+        }
+    }
+}
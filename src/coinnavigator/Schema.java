@@ -0,0 +1,422 @@
+package coinnavigator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Versioned schema for coins.db, tracked in SQLite's `PRAGMA user_version`.
+ *
+ * Database calls bootstrap() once per construction: a single PRAGMA read when the file is
+ * already current, otherwise every pending migration inside one IMMEDIATE transaction.
+ * To change the schema, append a migration to MIGRATIONS – never edit an existing one.
+ */
+final class Schema {
+
+    /** One schema step; runs inside the bootstrap transaction. */
+    private interface Migration {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            // 1: metadata table + the two default lists (IF NOT EXISTS, so pre-versioning files adopt cleanly)
+            conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS lists (
+                            name TEXT PRIMARY KEY
+                        );
+                        """);
+                }
+                for (String list : List.of("Owned", "Wishlist")) {
+                    createListTable(conn, list);
+                }
+            },
+            // 2: per-list change counter, bumped by triggers (so writes from any process count)
+            conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE lists ADD COLUMN changes INTEGER NOT NULL DEFAULT 0");
+                }
+                for (String list : listNames(conn)) {
+                    createChangeTriggers(conn, list);
+                }
+            },
+            // 3: change log – one row per coin insert/update/delete (triggers) and per list
+            //    created/deleted (Database's write paths); AUTOINCREMENT so a seq is never reused
+            conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS changes (
+                            seq     INTEGER PRIMARY KEY AUTOINCREMENT,
+                            list    TEXT    NOT NULL,
+                            coin_id TEXT,
+                            op      TEXT    NOT NULL
+                        );
+                        """);
+                }
+                for (String list : listNames(conn)) {
+                    createLogTriggers(conn, list);
+                }
+            },
+            // 4: per-list aggregates (see CollectionStats) – counted once here with GROUP BY,
+            //    afterwards kept current by triggers
+            conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS stats (
+                            list       TEXT    NOT NULL,
+                            dim        TEXT    NOT NULL,
+                            key        TEXT    NOT NULL,
+                            n          INTEGER NOT NULL DEFAULT 0,
+                            weight_sum REAL    NOT NULL DEFAULT 0,
+                            weighed    INTEGER NOT NULL DEFAULT 0,
+                            PRIMARY KEY (list, dim, key)
+                        ) WITHOUT ROWID;
+                        """);
+                }
+                for (String list : listNames(conn)) {
+                    backfillStats(conn, list);
+                    createStatsTriggers(conn, list);
+                }
+            },
+            // 5: grade_num – the Sheldon number of grade (see Grade), indexed, for range queries
+            //    and sorting; the write paths keep it in step with grade
+            conn -> {
+                for (String list : listNames(conn)) {
+                    addGradeColumn(conn, list);
+                    backfillGrades(conn, list);
+                }
+            },
+            // 6: indexes for server-side sorting (Database.getCoinsSorted) on the usual sort keys
+            conn -> {
+                for (String list : listNames(conn)) {
+                    createSortIndexes(conn, list);
+                }
+            },
+            // 7: when each background maintenance task (see Maintenance) last ran, so intervals
+            //    of hours or days hold across restarts
+            conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS maintenance (
+                            task     TEXT    PRIMARY KEY,
+                            last_run INTEGER NOT NULL,
+                            last_seq INTEGER NOT NULL DEFAULT 0
+                        ) WITHOUT ROWID;
+                        """);
+                }
+            },
+            // 8: a random id for this database file, so files kept outside it (snapshots) can
+            //    tell which database they were made from
+            conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS identity (id TEXT NOT NULL)");
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO identity(id) SELECT ? WHERE NOT EXISTS (SELECT 1 FROM identity)")) {
+                    pstmt.setString(1, UUID.randomUUID().toString());
+                    pstmt.executeUpdate();
+                }
+            }
+    );
+
+    /**
+     * The dimensions kept in `stats`: name → grouping expression, where %s is the row prefix
+     * ("NEW.", "OLD." in triggers, "" in the backfill).  "total" has a single group, "".
+     */
+    private static final Map<String, String> STATS_DIMENSIONS = new LinkedHashMap<>();
+    static {
+        STATS_DIMENSIONS.put("total", "''");
+        STATS_DIMENSIONS.put("denomination", "IFNULL(%sdenomination, '')");
+        STATS_DIMENSIONS.put("composition", "IFNULL(%scomposition, '')");
+        STATS_DIMENSIONS.put("year", "IFNULL(%sdate, 0)");
+    }
+
+    /** The version a fully migrated file reports. */
+    static final int CURRENT_VERSION = MIGRATIONS.size();
+
+    private Schema() {}
+
+    /** The CREATE TABLE statement for one list (= one coin table). */
+    static String listTableDdl(String listName) {
+        return String.format("""
+            CREATE TABLE IF NOT EXISTS "%s" (
+                id           TEXT    PRIMARY KEY,
+                name         TEXT    NOT NULL,
+                date         INTEGER,
+                thickness    REAL,
+                diameter     REAL,
+                grade        TEXT,
+                composition  TEXT,
+                denomination TEXT,
+                edge         TEXT,
+                weight       REAL,
+                obverse_png  BLOB,
+                inverse_png  BLOB
+            );
+            """, listName);
+    }
+
+    /**
+     * Creates the coin table for listName and records it in “lists” (both idempotent).
+     * Used by migrations, so it must only rely on what migration 1 created.
+     */
+    static void createListTable(Connection conn, String listName) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(listTableDdl(listName));
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT OR IGNORE INTO lists(name) VALUES(?)")) {
+            pstmt.setString(1, listName);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /** Creates a list on a fully migrated database: table, metadata row, triggers and log entry. */
+    static void createList(Connection conn, String listName) throws SQLException {
+        createListTable(conn, listName);
+        createChangeTriggers(conn, listName);
+        createLogTriggers(conn, listName);
+        createStatsTriggers(conn, listName);
+        if (!hasColumn(conn, listName, "grade_num")) {
+            addGradeColumn(conn, listName);
+        }
+        createSortIndexes(conn, listName);
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT OR IGNORE INTO stats(list, dim, key) VALUES(?, 'total', '')")) {
+            pstmt.setString(1, listName);
+            pstmt.executeUpdate();
+        }
+        logListChange(conn, listName, "list_created");
+    }
+
+    /** Appends a list-level entry ("list_created" / "list_deleted") to the change log. */
+    static void logListChange(Connection conn, String listName, String op) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO changes(list, op) VALUES(?, ?)")) {
+            pstmt.setString(1, listName);
+            pstmt.setString(2, op);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /** Triggers that bump lists.changes on every insert/update/delete in the list's table. */
+    private static void createChangeTriggers(Connection conn, String listName) throws SQLException {
+        String bump = String.format("UPDATE lists SET changes = changes + 1 WHERE name = '%s';",
+                listName.replace("'", "''"));
+        try (Statement stmt = conn.createStatement()) {
+            for (String op : List.of("INSERT", "UPDATE", "DELETE")) {
+                stmt.execute(String.format("""
+                    CREATE TRIGGER IF NOT EXISTS "%1$s_changes_%2$s" AFTER %2$s ON "%1$s"
+                    BEGIN %3$s END;
+                    """, listName, op.toLowerCase(), bump));
+            }
+        }
+    }
+
+    /** Triggers that append every insert/update/delete in the list's table to the change log. */
+    private static void createLogTriggers(Connection conn, String listName) throws SQLException {
+        String list = listName.replace("'", "''");
+        try (Statement stmt = conn.createStatement()) {
+            for (String op : List.of("insert", "update", "delete")) {
+                String row = op.equals("delete") ? "OLD" : "NEW";
+                stmt.execute(String.format("""
+                    CREATE TRIGGER IF NOT EXISTS "%1$s_log_%2$s" AFTER %3$s ON "%1$s"
+                    BEGIN INSERT INTO changes(list, coin_id, op) VALUES ('%4$s', %5$s.id, '%2$s'); END;
+                    """, listName, op, op.toUpperCase(), list, row));
+            }
+        }
+    }
+
+    /**
+     * Triggers that add every inserted row to the list's `stats` groups and take every deleted
+     * row out of them; an update does both, but only when a column that is counted changes.
+     */
+    private static void createStatsTriggers(Connection conn, String listName) throws SQLException {
+        String list = listName.replace("'", "''");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(String.format("""
+                CREATE TRIGGER IF NOT EXISTS "%1$s_stats_insert" AFTER INSERT ON "%1$s"
+                BEGIN %2$s END;
+                """, listName, statsUpsert(list, "NEW.", 1)));
+            stmt.execute(String.format("""
+                CREATE TRIGGER IF NOT EXISTS "%1$s_stats_delete" AFTER DELETE ON "%1$s"
+                BEGIN %2$s END;
+                """, listName, statsUpsert(list, "OLD.", -1)));
+            stmt.execute(String.format("""
+                CREATE TRIGGER IF NOT EXISTS "%1$s_stats_update"
+                AFTER UPDATE OF date, weight, denomination, composition ON "%1$s"
+                BEGIN %2$s %3$s END;
+                """, listName, statsUpsert(list, "OLD.", -1), statsUpsert(list, "NEW.", 1)));
+        }
+    }
+
+    /** One UPSERT per dimension adding `sign` × the row with prefix `row` to its group. */
+    private static String statsUpsert(String quotedList, String row, int sign) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> dim : STATS_DIMENSIONS.entrySet()) {
+            sb.append(String.format("""
+                INSERT INTO stats(list, dim, key, n, weight_sum, weighed)
+                VALUES ('%1$s', '%2$s', %3$s, %5$d, %5$d * IFNULL(%4$sweight, 0), %5$d * (IFNULL(%4$sweight, 0) > 0))
+                ON CONFLICT(list, dim, key) DO UPDATE SET n = n + excluded.n,
+                    weight_sum = weight_sum + excluded.weight_sum, weighed = weighed + excluded.weighed;
+                """, quotedList, dim.getKey(), String.format(dim.getValue(), row), row, sign));
+        }
+        return sb.toString();
+    }
+
+    /** Counts an existing list into `stats`, one GROUP BY per dimension. */
+    private static void backfillStats(Connection conn, String listName) throws SQLException {
+        for (Map.Entry<String, String> dim : STATS_DIMENSIONS.entrySet()) {
+            String key = String.format(dim.getValue(), "");
+            // no GROUP BY for "total", so an empty list still gets its (zero) row
+            String sql = String.format("""
+                INSERT INTO stats(list, dim, key, n, weight_sum, weighed)
+                SELECT ?, ?, %1$s, COUNT(*), IFNULL(SUM(IFNULL(weight, 0)), 0), IFNULL(SUM(IFNULL(weight, 0) > 0), 0)
+                FROM "%2$s" %3$s
+                """, key, listName, dim.getKey().equals("total") ? "" : "GROUP BY 3");
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, listName);
+                pstmt.setString(2, dim.getKey());
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /** Adds the grade_num column (NULL = no recognisable grade) and its index. */
+    private static void addGradeColumn(Connection conn, String listName) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(String.format("ALTER TABLE \"%s\" ADD COLUMN grade_num INTEGER", listName));
+            stmt.execute(String.format("CREATE INDEX IF NOT EXISTS \"%1$s_grade_num\" ON \"%1$s\"(grade_num)", listName));
+        }
+    }
+
+    /**
+     * Indexes on name (NOCASE, as Database sorts text), date and weight, so sorting by one of
+     * them – the top-K case especially – reads the index in order instead of sorting the table.
+     */
+    private static void createSortIndexes(Connection conn, String listName) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(String.format("CREATE INDEX IF NOT EXISTS \"%1$s_name\" ON \"%1$s\"(name COLLATE NOCASE)", listName));
+            stmt.execute(String.format("CREATE INDEX IF NOT EXISTS \"%1$s_date\" ON \"%1$s\"(date)", listName));
+            stmt.execute(String.format("CREATE INDEX IF NOT EXISTS \"%1$s_weight\" ON \"%1$s\"(weight)", listName));
+        }
+    }
+
+    /**
+     * Fills grade_num from grade for the rows already in a list (parsed in Java, see Grade): one
+     * pass per 500 distinct grade texts, which is one pass for any real collection.  Filling in a
+     * derived column is not a change to the coins, so the update triggers that bump the change
+     * counter and log are suspended meanwhile.
+     */
+    private static void backfillGrades(Connection conn, String listName) throws SQLException {
+        Map<String, Integer> grades = new LinkedHashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(String.format("SELECT DISTINCT grade FROM \"%s\"", listName))) {
+            while (rs.next()) {
+                int n = Grade.parse(rs.getString(1));
+                if (n > 0) grades.put(rs.getString(1), n);
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(String.format("DROP TRIGGER IF EXISTS \"%s_changes_update\"", listName));
+            stmt.execute(String.format("DROP TRIGGER IF EXISTS \"%s_log_update\"", listName));
+        }
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(grades.entrySet());
+        for (int from = 0; from < entries.size(); from += 500) {
+            List<Map.Entry<String, Integer>> chunk = entries.subList(from, Math.min(entries.size(), from + 500));
+            String sql = String.format("UPDATE \"%s\" SET grade_num = CASE grade %s END WHERE grade IN (%s)",
+                    listName, "WHEN ? THEN ? ".repeat(chunk.size()), String.join(",", Collections.nCopies(chunk.size(), "?")));
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int i = 1;
+                for (Map.Entry<String, Integer> e : chunk) {
+                    pstmt.setString(i++, e.getKey());
+                    pstmt.setInt(i++, e.getValue());
+                }
+                for (Map.Entry<String, Integer> e : chunk) {
+                    pstmt.setString(i++, e.getKey());
+                }
+                pstmt.executeUpdate();
+            }
+        }
+        createChangeTriggers(conn, listName);
+        createLogTriggers(conn, listName);
+    }
+
+    private static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM pragma_table_info(?) WHERE name = ?")) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, column);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static List<String> listNames(Connection conn) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name FROM lists")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    static int userVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static boolean isEmpty(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master")) {
+            return rs.next() && rs.getInt(1) == 0;
+        }
+    }
+
+    /**
+     * Brings the database on `conn` up to CURRENT_VERSION.
+     *
+     * @return the number of migrations applied (0 on the fast path)
+     */
+    static int bootstrap(Connection conn) throws SQLException {
+        if (userVersion(conn) >= CURRENT_VERSION) {
+            return 0;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            if (userVersion(conn) == 0 && isEmpty(conn)) {
+                // A new file: switch on incremental auto-vacuum (see Maintenance) while a VACUUM
+                // has nothing to rewrite – journal_mode=WAL has already written the header, so
+                // the pragma alone is too late.  Older files are converted by Maintenance.
+                stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                stmt.execute("VACUUM");
+            }
+            // IMMEDIATE takes the write lock up front, so two processes starting at once
+            // cannot both decide to migrate; re-read the version once we hold it.
+            stmt.execute("BEGIN IMMEDIATE");
+            try {
+                int from = userVersion(conn);
+                for (int v = from; v < CURRENT_VERSION; v++) {
+                    MIGRATIONS.get(v).apply(conn);
+                }
+                stmt.execute("PRAGMA user_version = " + CURRENT_VERSION);
+                stmt.execute("COMMIT");
+                return Math.max(0, CURRENT_VERSION - from);
+            } catch (SQLException | RuntimeException e) {
+                stmt.execute("ROLLBACK");
+                throw e;
+            }
+        }
+    }
+}
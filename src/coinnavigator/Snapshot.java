@@ -0,0 +1,233 @@
+package coinnavigator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Compact, read-only binary snapshot of one list, opened with FileChannel.map.
+ *
+ * SQLite stays the source of truth: a snapshot records the id of the database file it was
+ * made from (Database.getIdentity) and the list's change counter (Database.getChangeCounter)
+ * at the time it was written, and callers must only trust it while both still match.
+ * Images are not included.
+ *
+ * File layout (big-endian):
+ *   header   magic "CNSNAP01", int version, 2 longs database id, long changeCounter,
+ *            int rows, int dictSize
+ *   columns  fixed width, one after another, `rows` entries each:
+ *            ids (2 longs) · name · date · grade · diameter · thickness · edge · weight ·
+ *            composition · denomination    (strings are int indexes into the dictionary)
+ *   dict     int offsets[dictSize + 1], then the UTF-8 bytes of every distinct string
+ *   idIndex  rows × (long msb, long lsb, int row), sorted by id for binary search
+ */
+public final class Snapshot {
+
+    private static final byte[] MAGIC = "CNSNAP01".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = MAGIC.length + 4 + 16 + 8 + 4 + 4;
+    private static final int ID_INDEX_ENTRY = 8 + 8 + 4;
+
+    private final MappedByteBuffer buf;
+    private final UUID database;
+    private final long changeCounter;
+    private final int rows;
+    private final String[] dict;              // decoded lazily, shared by every Coin built from here
+
+    // Column start offsets
+    private final int idsAt, nameAt, dateAt, gradeAt, diameterAt, thicknessAt, edgeAt, weightAt,
+            compositionAt, denominationAt, dictAt, bytesAt, idIndexAt;
+
+    private Snapshot(MappedByteBuffer buf) throws IOException {
+        this.buf = buf;
+        byte[] magic = new byte[MAGIC.length];
+        buf.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC) || buf.getInt(MAGIC.length) != VERSION) {
+            throw new IOException("Not a CoinNavigator snapshot (or an unsupported version)");
+        }
+        database = new UUID(buf.getLong(MAGIC.length + 4), buf.getLong(MAGIC.length + 12));
+        changeCounter = buf.getLong(MAGIC.length + 20);
+        rows = buf.getInt(MAGIC.length + 28);
+        int dictSize = buf.getInt(MAGIC.length + 32);
+        dict = new String[dictSize];
+
+        idsAt = HEADER_BYTES;
+        nameAt = idsAt + rows * 16;
+        dateAt = nameAt + rows * 4;
+        gradeAt = dateAt + rows * 4;
+        diameterAt = gradeAt + rows * 4;
+        thicknessAt = diameterAt + rows * 8;
+        edgeAt = thicknessAt + rows * 8;
+        weightAt = edgeAt + rows * 4;
+        compositionAt = weightAt + rows * 8;
+        denominationAt = compositionAt + rows * 4;
+        dictAt = denominationAt + rows * 4;
+        bytesAt = dictAt + (dictSize + 1) * 4;
+        idIndexAt = bytesAt + buf.getInt(dictAt + dictSize * 4);
+        if (idIndexAt + (long) rows * ID_INDEX_ENTRY != buf.capacity()) {
+            throw new IOException("Truncated or corrupt snapshot");
+        }
+    }
+
+    /** Maps an existing snapshot file read-only. */
+    public static Snapshot open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Snapshot(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    public UUID getDatabase() { return database; }
+    public long getChangeCounter() { return changeCounter; }
+    public int size() { return rows; }
+
+    /** Builds the Coin stored at `row` (no image bytes). */
+    public Coin getCoin(int row) {
+        Coin coin = new Coin(new UUID(buf.getLong(idsAt + row * 16), buf.getLong(idsAt + row * 16 + 8)));
+        coin.setName(string(buf.getInt(nameAt + row * 4)));
+        coin.setDate(buf.getInt(dateAt + row * 4));
+        coin.setGrade(string(buf.getInt(gradeAt + row * 4)));
+        coin.setDiameter(buf.getDouble(diameterAt + row * 8));
+        coin.setThickness(buf.getDouble(thicknessAt + row * 8));
+        coin.setEdge(string(buf.getInt(edgeAt + row * 4)));
+        coin.setWeight(buf.getDouble(weightAt + row * 8));
+        coin.setComposition(string(buf.getInt(compositionAt + row * 4)));
+        coin.setDenomination(string(buf.getInt(denominationAt + row * 4)));
+        return coin;
+    }
+
+    /** Looks a coin up through the id index; null if it is not in the snapshot. */
+    public Coin findById(UUID id) {
+        int lo = 0, hi = rows - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int at = idIndexAt + mid * ID_INDEX_ENTRY;
+            int cmp = compareIds(buf.getLong(at), buf.getLong(at + 8),
+                    id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (cmp == 0) return getCoin(buf.getInt(at + 16));
+            if (cmp < 0) lo = mid + 1; else hi = mid - 1;
+        }
+        return null;
+    }
+
+    /** Every coin, in the order they were written. */
+    public List<Coin> toCoins() {
+        List<Coin> coins = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            coins.add(getCoin(i));
+        }
+        return coins;
+    }
+
+    private String string(int idx) {
+        String s = dict[idx];
+        if (s == null) {
+            int from = buf.getInt(dictAt + idx * 4);
+            int to = buf.getInt(dictAt + (idx + 1) * 4);
+            byte[] utf8 = new byte[to - from];
+            buf.get(bytesAt + from, utf8);
+            s = new String(utf8, StandardCharsets.UTF_8);
+            dict[idx] = s;
+        }
+        return s;
+    }
+
+    private static int compareIds(long msbA, long lsbA, long msbB, long lsbB) {
+        int c = Long.compare(msbA, msbB);
+        return c != 0 ? c : Long.compare(lsbA, lsbB);
+    }
+
+    // ─── WRITING ───────────────────────────────────────────────────────────────────
+
+    /**
+     * Writes `coins` as a snapshot stamped with `database` and `changeCounter`.  The file is
+     * written next to `file` and then atomically renamed over it, so readers never see a
+     * half-written snapshot.
+     */
+    public static void write(Path file, List<Coin> coins, UUID database, long changeCounter) throws IOException {
+        int rows = coins.size();
+
+        // Build the string dictionary
+        Map<String, Integer> ids = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[][] strCols = new int[5][rows];
+        for (int r = 0; r < rows; r++) {
+            Coin c = coins.get(r);
+            String[] values = {c.getName(), c.getGrade(), c.getEdge(), c.getComposition(), c.getDenomination()};
+            for (int k = 0; k < values.length; k++) {
+                String v = values[k] == null ? "" : values[k];
+                strCols[k][r] = ids.computeIfAbsent(v, key -> {
+                    strings.add(key.getBytes(StandardCharsets.UTF_8));
+                    return strings.size() - 1;
+                });
+            }
+        }
+        int dictBytes = 0;
+        for (byte[] b : strings) dictBytes += b.length;
+
+        long size = HEADER_BYTES + (long) rows * (16 + 4 * 6 + 8 * 3)
+                + (strings.size() + 1) * 4L + dictBytes + (long) rows * ID_INDEX_ENTRY;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("List too large for a snapshot (" + size + " bytes)");
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.put(MAGIC).putInt(VERSION)
+                    .putLong(database.getMostSignificantBits()).putLong(database.getLeastSignificantBits())
+                    .putLong(changeCounter).putInt(rows).putInt(strings.size());
+
+            for (Coin c : coins) out.putLong(c.getId().getMostSignificantBits()).putLong(c.getId().getLeastSignificantBits());
+            for (int r = 0; r < rows; r++) out.putInt(strCols[0][r]);
+            for (Coin c : coins) out.putInt(c.getDate());
+            for (int r = 0; r < rows; r++) out.putInt(strCols[1][r]);
+            for (Coin c : coins) out.putDouble(c.getDiameter());
+            for (Coin c : coins) out.putDouble(c.getThickness());
+            for (int r = 0; r < rows; r++) out.putInt(strCols[2][r]);
+            for (Coin c : coins) out.putDouble(c.getWeight());
+            for (int r = 0; r < rows; r++) out.putInt(strCols[3][r]);
+            for (int r = 0; r < rows; r++) out.putInt(strCols[4][r]);
+
+            int offset = 0;
+            for (byte[] b : strings) {
+                out.putInt(offset);
+                offset += b.length;
+            }
+            out.putInt(offset);
+            for (byte[] b : strings) out.put(b);
+
+            Integer[] order = new Integer[rows];
+            for (int r = 0; r < rows; r++) order[r] = r;
+            Arrays.sort(order, (a, b) -> {
+                UUID ia = coins.get(a).getId(), ib = coins.get(b).getId();
+                return compareIds(ia.getMostSignificantBits(), ia.getLeastSignificantBits(),
+                        ib.getMostSignificantBits(), ib.getLeastSignificantBits());
+            });
+            for (int r : order) {
+                UUID id = coins.get(r).getId();
+                out.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).putInt(r);
+            }
+            out.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Where the snapshot for `listName` lives inside `dir` (list names are made filename-safe). */
+    public static Path fileFor(Path dir, String listName) {
+        StringBuilder safe = new StringBuilder();
+        for (char ch : listName.toCharArray()) {
+            safe.append(Character.isLetterOrDigit(ch) || ch == '-' || ch == '_' ? ch : '_');
+        }
+        // suffix with the hash so "My List" and "My_List" do not collide
+        return dir.resolve(safe + "-" + Integer.toHexString(listName.hashCode()) + ".snap");
+    }
+}
@@ -0,0 +1,122 @@
+package coinnavigator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one Snapshot file per list in sync with the Database, for near-instant warm starts.
+ *
+ * A snapshot is rewritten in the background after `everyChanges` writes to its list, and for
+ * every list with unsaved changes on shutdown.  load() only ever returns snapshot data made
+ * from this very database file whose change counter still matches it, so a stale file – or
+ * one of another database that happens to have the same counter – is simply ignored.
+ *
+ * Enabled with -Dcoinnavigator.snapshot=true; also reads coinnavigator.snapshot.dir
+ * (default ~/.coinnavigator/snapshots, in a subdirectory per database other than ~/coins.db;
+ * see Database.dataDir) and coinnavigator.snapshot.everyChanges (default 500).
+ */
+public class SnapshotStore {
+
+    private final Database db;
+    private final Path dir;
+    private final int everyChanges;
+    private final Map<String, Integer> pendingChanges = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "snapshot-writer");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    public SnapshotStore(Database db, Path dir, int everyChanges) {
+        this.db = db;
+        this.dir = dir;
+        this.everyChanges = everyChanges;
+    }
+
+    /** The store configured by system properties, or null when snapshots are switched off. */
+    public static SnapshotStore fromConfig(Database db) {
+        if (!Config.getBoolean("snapshot", false)) {
+            return null;
+        }
+        Path dir = Paths.get(Config.getString("snapshot.dir", db.dataDir("snapshots").toString()));
+        return new SnapshotStore(db, dir, Math.max(1, Config.getInt("snapshot.everyChanges", 500)));
+    }
+
+    /** All coins of `listName` from its snapshot, or null if there is none or it is stale. */
+    public List<Coin> load(String listName) {
+        Path file = Snapshot.fileFor(dir, listName);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            Snapshot snap = Snapshot.open(file);
+            if (!snap.getDatabase().equals(db.getIdentity(listName))
+                    || snap.getChangeCounter() != db.getChangeCounter(listName)) {
+                return null;
+            }
+            return snap.toCoins();
+        } catch (IOException e) {
+            return null;     // unreadable snapshot: fall back to SQLite, the next write replaces it
+        }
+    }
+
+    /** Counts one write to `listName`; schedules a background rewrite every `everyChanges` writes. */
+    public void noteChange(String listName) {
+        int pending = pendingChanges.merge(listName, 1, Integer::sum);
+        if (pending >= everyChanges) {
+            pendingChanges.remove(listName);
+            writer.execute(() -> write(listName));
+        }
+    }
+
+    /** The list is gone: forget its pending changes and delete its snapshot. */
+    public void dropList(String listName) {
+        pendingChanges.remove(listName);
+        writer.execute(() -> {
+            try {
+                Files.deleteIfExists(Snapshot.fileFor(dir, listName));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /** Rewrites the snapshot of every list with unsaved changes and waits for the writer to finish. */
+    public void flush() {
+        for (String listName : pendingChanges.keySet()) {
+            pendingChanges.remove(listName);
+            writer.execute(() -> write(listName));
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Writes the snapshot for one list now (on the calling thread). */
+    public void write(String listName) {
+        // Read the counter *before* the rows: a write in between makes the snapshot look stale, never fresh.
+        UUID database = db.getIdentity(listName);
+        long counter = db.getChangeCounter(listName);
+        if (database == null || counter < 0) {
+            return;
+        }
+        try {
+            Snapshot.write(Snapshot.fileFor(dir, listName), db.getAllCoins(listName), database, counter);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package coinnavigator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One key of a server-side ORDER BY (see Database.getCoinsSorted): an attribute from
+ * Coin.getAttributeNamesInOrder and a direction.  Text attributes sort case-insensitively,
+ * grade by its Sheldon number (see Grade).
+ */
+public record SortKey(String attribute, boolean descending) {
+
+    public SortKey {
+        if (!Coin.getAttributeNamesInOrder().contains(attribute)) {
+            throw new IllegalArgumentException("Unknown attribute: " + attribute);
+        }
+    }
+
+    public static SortKey asc(String attribute) {
+        return new SortKey(attribute, false);
+    }
+
+    public static SortKey desc(String attribute) {
+        return new SortKey(attribute, true);
+    }
+
+    /**
+     * Parses a comma-separated sort spec such as "weight:desc,name" (direction defaults to asc;
+     * "-weight" is short for "weight:desc").  A blank spec is no keys.
+     *
+     * @throws IllegalArgumentException for an unknown attribute or direction
+     */
+    public static List<SortKey> parse(String spec) {
+        List<SortKey> keys = new ArrayList<>();
+        if (spec == null || spec.isBlank()) {
+            return keys;
+        }
+        for (String part : spec.split(",")) {
+            String p = part.trim();
+            boolean descending = false;
+            if (p.startsWith("-")) {
+                descending = true;
+                p = p.substring(1);
+            }
+            int colon = p.indexOf(':');
+            if (colon >= 0) {
+                String dir = p.substring(colon + 1).trim().toLowerCase();
+                if (!dir.equals("asc") && !dir.equals("desc")) {
+                    throw new IllegalArgumentException("Unknown sort direction: " + dir + " (asc or desc)");
+                }
+                descending = dir.equals("desc");
+                p = p.substring(0, colon);
+            }
+            keys.add(new SortKey(p.trim(), descending));
+        }
+        return keys;
+    }
+
+    /** The spec form parse() reads back, e.g. "weight:desc". */
+    @Override
+    public String toString() {
+        return attribute + (descending ? ":desc" : ":asc");
+    }
+}
@@ -0,0 +1,156 @@
+package coinnavigator;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * SQL trace mode and slow-query log for Database.
+ *
+ * Every statement Database runs (including the String.format-built ones) is reported here with
+ * its bind-parameter count, row count and elapsed time.
+ *  – trace mode logs every statement to the "coinnavigator.sql" logger;
+ *  – statements slower than the threshold always go to a rotating slow-query log file,
+ *    optionally followed by their EXPLAIN QUERY PLAN (so full table scans stand out).
+ *
+ * Configured from system properties (see Config), and adjustable at runtime via Database:
+ *   coinnavigator.sql.trace          log every statement                (default false)
+ *   coinnavigator.sql.slowMillis     slow-query threshold, -1 = off     (default 200)
+ *   coinnavigator.sql.explain        add EXPLAIN QUERY PLAN to slow log (default false)
+ *   coinnavigator.sql.slowLog        FileHandler pattern                (default ~/coinnavigator-slow.%g.log)
+ *   coinnavigator.sql.slowLogBytes   rotate after this many bytes       (default 5 MB)
+ *   coinnavigator.sql.slowLogCount   number of rotated files to keep    (default 5)
+ */
+public class SqlTrace {
+
+    private static final Logger TRACE_LOG = Logger.getLogger("coinnavigator.sql");
+    private static final Logger SLOW_LOG = Logger.getLogger("coinnavigator.sql.slow");
+    private static boolean slowLogOpened;
+
+    private volatile boolean traceAll;
+    private volatile long slowNanos;
+    private volatile boolean explain;
+
+    public SqlTrace() {
+        this.traceAll = Config.getBoolean("sql.trace", false);
+        long slowMillis = Config.getLong("sql.slowMillis", 200);
+        this.slowNanos = slowMillis < 0 ? -1 : slowMillis * 1_000_000;
+        this.explain = Config.getBoolean("sql.explain", false);
+    }
+
+    public boolean isTraceAll() { return traceAll; }
+    public void setTraceAll(boolean traceAll) { this.traceAll = traceAll; }
+    public boolean isExplain() { return explain; }
+    public void setExplain(boolean explain) { this.explain = explain; }
+
+    public long getSlowThresholdMillis() {
+        return slowNanos < 0 ? -1 : slowNanos / 1_000_000;
+    }
+
+    /** Statements taking at least this long go to the slow-query log; negative disables it. */
+    public void setSlowThresholdMillis(long millis) {
+        this.slowNanos = millis < 0 ? -1 : millis * 1_000_000;
+    }
+
+    /**
+     * Reports one finished statement.  Must be called while `conn` is still open, since the
+     * query plan (if wanted) is fetched on the same connection.
+     *
+     * @param conn       connection the statement ran on
+     * @param sql        the statement text
+     * @param params     number of bind parameters (per row, times rows for batches)
+     * @param rows       rows returned or affected
+     * @param startNanos System.nanoTime() taken just before execution
+     */
+    public void record(Connection conn, String sql, int params, long rows, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        boolean slow = slowNanos >= 0 && nanos >= slowNanos;
+        if (!traceAll && !slow) {
+            return;
+        }
+
+        String line = String.format("%9.3f ms  rows=%-7d params=%-4d %s",
+                nanos / 1e6, rows, params, oneLine(sql));
+        if (traceAll) {
+            TRACE_LOG.info(line);
+        }
+        if (slow) {
+            StringBuilder entry = new StringBuilder(line);
+            if (explain) {
+                for (String step : explainQueryPlan(conn, sql, params)) {
+                    entry.append(System.lineSeparator()).append("        plan: ").append(step);
+                }
+            }
+            logSlow(entry.toString());
+        }
+    }
+
+    /**
+     * Runs EXPLAIN QUERY PLAN for a DML statement.  Bind parameters are all bound as NULL, which
+     * does not change SQLite's choice between an index search and a table scan.
+     */
+    private static List<String> explainQueryPlan(Connection conn, String sql, int params) {
+        List<String> plan = new ArrayList<>();
+        String verb = sql.strip().split("\\s+", 2)[0].toUpperCase();
+        if (!List.of("SELECT", "INSERT", "UPDATE", "DELETE").contains(verb)) {
+            return plan;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 1; i <= params; i++) {
+                pstmt.setNull(i, java.sql.Types.NULL);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String detail = rs.getString("detail");
+                    plan.add(detail.startsWith("SCAN") ? detail + "   <-- full scan" : detail);
+                }
+            }
+        } catch (SQLException e) {
+            plan.add("(no plan: " + e.getMessage() + ")");
+        }
+        return plan;
+    }
+
+    private static synchronized void logSlow(String entry) {
+        if (!slowLogOpened) {
+            slowLogOpened = true;
+            openSlowLog();
+        }
+        SLOW_LOG.warning(entry);
+    }
+
+    private static void openSlowLog() {
+        String pattern = Config.getString("sql.slowLog",
+                System.getProperty("user.home") + File.separator + "coinnavigator-slow.%g.log");
+        int limit = Config.getInt("sql.slowLogBytes", 5 * 1024 * 1024);
+        int count = Config.getInt("sql.slowLogCount", 5);
+        try {
+            FileHandler handler = new FileHandler(pattern, limit, count, true);
+            handler.setFormatter(new SimpleFormatter() {
+                @Override
+                public String format(LogRecord r) {
+                    return String.format("%1$tF %1$tT  %2$s%n", r.getMillis(), r.getMessage());
+                }
+            });
+            SLOW_LOG.addHandler(handler);
+            SLOW_LOG.setUseParentHandlers(false);
+        } catch (IOException e) {
+            // keep going: slow queries then just end up on the console via the parent logger
+            SLOW_LOG.log(Level.WARNING, "Cannot open slow-query log " + pattern, e);
+        }
+    }
+
+    private static String oneLine(String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+}
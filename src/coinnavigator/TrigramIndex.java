@@ -0,0 +1,262 @@
+package coinnavigator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory trigram index over one text attribute of one list, for MatchMode.FUZZY.
+ *
+ * Each value is lower-cased and split into words; every word, padded as "  word ", contributes
+ * its 3-character substrings.  A search counts, per coin, how many trigrams it shares with the
+ * query (candidate generation touches only the postings of the query's trigrams), verifies the
+ * best-sharing candidates with a word-by-word optimal-string-alignment distance, and returns
+ * them closest first.
+ *
+ * Coins are numbered internally in insertion order, so postings are plain growing int arrays.
+ * Updating or removing a coin only marks its old number dead; dead numbers are dropped from the
+ * postings once they outnumber the live ones.  All methods are synchronized.
+ */
+final class TrigramIndex {
+
+    /** One verified match: `distance` summed over the query words; `shared` trigrams in common. */
+    record Hit(UUID id, int distance, int shared) {}
+
+    /** How many best-sharing candidates are verified per requested result. */
+    private static final int CANDIDATES_PER_RESULT = 20;
+
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final List<UUID> docIds = new ArrayList<>();        // null = dead
+    private final List<String[]> docWords = new ArrayList<>();
+    private final Map<UUID, Integer> docOf = new HashMap<>();
+    private int dead;
+    private long seq = -1;          // the change-log seq (Database.getChangesSince) this index reflects
+
+    /** Indexes (or re-indexes) the attribute value of coin `id`. */
+    synchronized void put(UUID id, String text) {
+        remove(id);
+        int doc = docIds.size();
+        String[] words = words(text);
+        docIds.add(id);
+        docWords.add(words);
+        docOf.put(id, doc);
+        for (long gram : trigrams(words)) {
+            postings.computeIfAbsent(gram, g -> new IntList()).add(doc);
+        }
+    }
+
+    synchronized void remove(UUID id) {
+        Integer doc = docOf.remove(id);
+        if (doc == null) {
+            return;
+        }
+        docIds.set(doc, null);
+        docWords.set(doc, null);
+        dead++;
+        if (dead > 1024 && dead > docOf.size()) {
+            compact();
+        }
+    }
+
+    synchronized int size() {
+        return docOf.size();
+    }
+
+    synchronized long getSeq() {
+        return seq;
+    }
+
+    synchronized void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    /** Up to `limit` coins whose value fuzzily matches `query`, closest first. */
+    synchronized List<Hit> search(String query, int limit) {
+        String[] queryWords = words(query);
+        long[] grams = trigrams(queryWords);
+        if (grams.length == 0 || docOf.isEmpty()) {
+            return List.of();
+        }
+
+        // 1) Candidates: shared-trigram counts, touching only the query's postings
+        int[] shared = new int[docIds.size()];
+        IntList touched = new IntList();
+        for (long gram : grams) {
+            IntList docs = postings.get(gram);
+            if (docs == null) continue;
+            for (int i = 0; i < docs.size; i++) {
+                int doc = docs.values[i];
+                if (docIds.get(doc) == null) continue;
+                if (shared[doc]++ == 0) touched.add(doc);
+            }
+        }
+        // Bucket by shared count (at most grams.length) to visit the best-sharing ones first.
+        // A word one typo away still shares most of its trigrams; far fewer means no match.
+        int minShared = Math.max(1, grams.length / 3);
+        IntList[] byShared = new IntList[grams.length + 1];
+        for (int i = 0; i < touched.size; i++) {
+            int doc = touched.values[i];
+            if (shared[doc] >= minShared) {
+                if (byShared[shared[doc]] == null) byShared[shared[doc]] = new IntList();
+                byShared[shared[doc]].add(doc);
+            }
+        }
+
+        // 2) Verification and ranking by edit distance
+        int verify = Math.max(limit * CANDIDATES_PER_RESULT, 200);
+        List<Hit> hits = new ArrayList<>();
+        for (int count = grams.length; count >= minShared && verify > 0; count--) {
+            IntList docs = byShared[count];
+            for (int i = 0; docs != null && i < docs.size && verify > 0; i++, verify--) {
+                int doc = docs.values[i];
+                int distance = distance(queryWords, docWords.get(doc));
+                if (distance >= 0) {
+                    hits.add(new Hit(docIds.get(doc), distance, count));
+                }
+            }
+        }
+        hits.sort((a, b) -> a.distance() != b.distance()
+                ? Integer.compare(a.distance(), b.distance())
+                : Integer.compare(b.shared(), a.shared()));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    // ─── Matching ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Sum over the query words of the distance to their closest word in `text` (0 when the query
+     * word is a substring of it), or -1 if some query word has no word within its allowance.
+     */
+    static int distance(String[] query, String[] text) {
+        int total = 0;
+        for (String q : query) {
+            int allowed = q.length() <= 3 ? 0 : q.length() <= 5 ? 1 : 2;
+            int bestWord = Integer.MAX_VALUE;
+            for (String t : text) {
+                int d = t.contains(q) ? 0 : osa(q, t, allowed);
+                bestWord = Math.min(bestWord, d);
+                if (bestWord == 0) break;
+            }
+            if (bestWord > allowed) {
+                return -1;
+            }
+            total += bestWord;
+        }
+        return total;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions), or
+     * `max + 1` as soon as it is certain to exceed `max`.
+     */
+    static int osa(String a, String b, int max) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] prev2 = new int[m + 1], prev = new int[m + 1], cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+        int prevMin = 0;
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, prev2[j - 2] + 1);
+                }
+                cur[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            // a transposition reaches back two rows, so both must be past `max`
+            if (rowMin > max && prevMin > max) {
+                return max + 1;
+            }
+            prevMin = rowMin;
+            int[] t = prev2; prev2 = prev; prev = cur; cur = t;
+        }
+        return Math.min(prev[m], max + 1);
+    }
+
+    /** Lower-cased words (letters and digits) of `text`. */
+    static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(w -> !w.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /** The distinct trigrams of the padded words, each packed into a long (3 × 16-bit chars). */
+    private static long[] trigrams(String[] words) {
+        LongSet set = new LongSet();
+        for (String w : words) {
+            String padded = "  " + w + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                set.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+            }
+        }
+        return set.toArray();
+    }
+
+    /** Renumbers the live coins and rebuilds the postings without the dead ones. */
+    private void compact() {
+        List<UUID> ids = new ArrayList<>();
+        List<String[]> words = new ArrayList<>();
+        for (int doc = 0; doc < docIds.size(); doc++) {
+            if (docIds.get(doc) != null) {
+                ids.add(docIds.get(doc));
+                words.add(docWords.get(doc));
+            }
+        }
+        docIds.clear();
+        docWords.clear();
+        docOf.clear();
+        postings.clear();
+        dead = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            docIds.add(ids.get(i));
+            docWords.add(words.get(i));
+            docOf.put(ids.get(i), i);
+            for (long gram : trigrams(words.get(i))) {
+                postings.computeIfAbsent(gram, g -> new IntList()).add(i);
+            }
+        }
+    }
+
+    // ─── Primitive collections ─────────────────────────────────────────────────────
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+    }
+
+    /** Tiny set for a handful of trigrams (one value's worth); linear probing is not worth it. */
+    private static final class LongSet {
+        long[] values = new long[16];
+        int size;
+
+        void add(long v) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == v) return;
+            }
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
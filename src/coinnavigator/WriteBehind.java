@@ -0,0 +1,165 @@
+package coinnavigator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for coin inserts, updates and deletes (enabled with
+ * -Dcoinnavigator.writeBehind=true; see Controller).
+ *
+ * A write is buffered and its future returned at once.  The buffer is written out in one
+ * transaction `windowMillis` after its first write arrived, or as soon as it holds `maxOps`
+ * writes, whichever comes first.  Writes to the same coin collapse while they wait: ten edits
+ * of one coin become one UPDATE, an insert followed by edits one INSERT, an insert followed
+ * by a delete nothing at all.  Every collapsed write's future completes with the write that
+ * absorbed it – true once that is committed, false if it failed.
+ */
+final class WriteBehind implements AutoCloseable {
+
+    // rows in = writes submitted, rows out = writes that reached the database after collapsing
+    private static final Metrics.OperationStats FLUSH = Metrics.op("WriteBehind.flush");
+
+    private final Database db;
+    private final long windowMillis;
+    private final int maxOps;
+
+    /** A coin's net pending write (null `write` = nothing left to do) and everyone waiting on it. */
+    private static final class Pending {
+        Database.CoinWrite write;
+        final List<CompletableFuture<Boolean>> waiters = new ArrayList<>();
+    }
+
+    // guarded by `this`
+    private LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    private int pendingOps;
+    private ScheduledFuture<?> scheduled;
+
+    // flushes run one at a time, so batches commit in the order they were cut
+    private final Object flushLock = new Object();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "write-behind");
+        t.setDaemon(true);
+        return t;
+    });
+
+    WriteBehind(Database db, long windowMillis, int maxOps) {
+        this.db = db;
+        this.windowMillis = windowMillis;
+        this.maxOps = maxOps;
+    }
+
+    /** Buffers `write`; the future completes once it (or the write it collapsed into) is committed. */
+    CompletableFuture<Boolean> submit(Database.CoinWrite write) {
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        synchronized (this) {
+            String key = write.listName() + '\u0000' + write.coin().getId();
+            Pending p = pending.get(key);
+            if (p != null && p.write != null
+                    && p.write.kind() == Database.CoinWrite.Kind.DELETE
+                    && write.kind() == Database.CoinWrite.Kind.INSERT) {
+                // re-insert after delete (rare): keep both, the delete moved aside but still first
+                pending.remove(key);
+                pending.put(key + '\u0000' + pendingOps, p);
+                p = null;
+            }
+            if (p == null) {
+                p = new Pending();
+                p.write = write;
+                pending.put(key, p);
+            } else {
+                p.write = collapse(p.write, write);
+            }
+            p.waiters.add(done);
+            pendingOps++;
+            if (pendingOps >= maxOps) {
+                if (scheduled != null) scheduled.cancel(false);
+                scheduled = null;
+                timer.execute(this::flush);
+            } else if (scheduled == null) {
+                scheduled = timer.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return done;
+    }
+
+    /** The one write that has the effect of `earlier` followed by `later` on the same coin. */
+    private static Database.CoinWrite collapse(Database.CoinWrite earlier, Database.CoinWrite later) {
+        if (earlier == null) {
+            return later;                                             // inserted + deleted, now again
+        }
+        return switch (earlier.kind()) {
+            case INSERT -> switch (later.kind()) {
+                case INSERT, UPDATE -> new Database.CoinWrite(Database.CoinWrite.Kind.INSERT, later.listName(), later.coin());
+                case DELETE -> null;                                  // never reaches the database
+            };
+            case UPDATE -> later;                                     // last update or the delete wins
+            case DELETE -> earlier;                                   // updating a deleted coin is a no-op
+        };
+    }
+
+    /** Writes out everything buffered so far and waits until it is committed. */
+    void flush() {
+        synchronized (flushLock) {
+            Map<String, Pending> batch;
+            int ops;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                ops = pendingOps;
+                pending = new LinkedHashMap<>();
+                pendingOps = 0;
+                if (scheduled != null) scheduled.cancel(false);
+                scheduled = null;
+            }
+
+            long start = System.nanoTime();
+            try {
+                List<Database.CoinWrite> writes = new ArrayList<>();
+                List<Pending> owners = new ArrayList<>();
+                for (Pending p : batch.values()) {
+                    if (p.write != null) {
+                        writes.add(p.write);
+                        owners.add(p);
+                    } else {
+                        p.waiters.forEach(f -> f.complete(true));
+                    }
+                }
+                boolean[] applied = writes.isEmpty() ? new boolean[0] : db.applyWrites(writes);
+                for (int i = 0; i < owners.size(); i++) {
+                    boolean ok = applied[i];
+                    owners.get(i).waiters.forEach(f -> f.complete(ok));
+                }
+                FLUSH.addRowsRead(ops);
+                FLUSH.addRowsWritten(writes.size());
+            } catch (RuntimeException e) {
+                FLUSH.error();
+                batch.values().forEach(p -> p.waiters.forEach(f -> f.completeExceptionally(e)));
+            } finally {
+                FLUSH.record(start);
+            }
+        }
+    }
+
+    /** Flushes what is buffered and stops the timer thread. */
+    @Override
+    public void close() {
+        flush();
+        timer.shutdown();
+        try {
+            timer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();       // anything submitted while shutting down
+    }
+}
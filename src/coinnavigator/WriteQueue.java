@@ -0,0 +1,269 @@
+package coinnavigator;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The single writer of a Database.  Every write is queued to one thread that owns the only
+ * write connection, so writers never contend for SQLite's lock among themselves.
+ *
+ * Group commit: whatever is queued when the writer wakes up (up to `maxBatch` tasks) runs in one
+ * BEGIN IMMEDIATE … COMMIT, so N concurrent writers cost one fsync instead of N.  Each task runs
+ * inside its own SAVEPOINT: a task that fails is rolled back alone and the rest still commit.
+ * If another process holds the lock past busy_timeout, the whole group is retried.
+ *
+ * A task queued with executeAlone() runs by itself in autocommit mode instead, for statements
+ * SQLite refuses inside a transaction (VACUUM, wal_checkpoint); later writes wait for it.
+ */
+final class WriteQueue implements AutoCloseable {
+
+    /** One write; runs inside the group transaction on the writer thread.  Must be re-runnable. */
+    interface Work {
+        void run(Connection conn) throws SQLException;
+    }
+
+    private static final Metrics.OperationStats GROUP_COMMIT = Metrics.op("Database.groupCommit");
+
+    private record Task(Work work, CompletableFuture<Void> done, boolean alone) {}
+    private static final Task STOP = new Task(null, null, false);
+
+    private final ConnectionPool.ConnectionFactory factory;
+    private final int maxBatch;
+    private final int maxAttempts;
+    private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+    private final LongAdder busyRetries = new LongAdder();
+    private final Thread thread;
+    private volatile boolean closed;
+    private Connection conn;       // writer thread only
+
+    WriteQueue(ConnectionPool.ConnectionFactory factory, int maxBatch, int maxAttempts) {
+        this.factory = factory;
+        this.maxBatch = maxBatch;
+        this.maxAttempts = maxAttempts;
+        this.thread = new Thread(this::runLoop, "db-writer");
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /** Queues `work`; the future completes once its group has committed (or it failed). */
+    CompletableFuture<Void> submit(Work work) {
+        return submit(work, false);
+    }
+
+    private CompletableFuture<Void> submit(Work work, boolean alone) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (closed) {
+            done.completeExceptionally(new SQLException("Database is closed"));
+        } else {
+            queue.add(new Task(work, done, alone));
+        }
+        return done;
+    }
+
+    /** Queues `work` and waits for it to commit; a failure is rethrown as the SQLException it was. */
+    void execute(Work work) throws SQLException {
+        join(submit(work, false));
+    }
+
+    /**
+     * Queues `work` to run on the writer's connection outside any transaction, between two
+     * groups, and waits for it.  Not retried on SQLITE_BUSY; the work sees the error itself.
+     */
+    void executeAlone(Work work) throws SQLException {
+        join(submit(work, true));
+    }
+
+    private static void join(CompletableFuture<Void> done) throws SQLException {
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sql) {
+                throw sql;
+            }
+            throw e;
+        }
+    }
+
+    /** How often a group was re-run because another connection held the database lock. */
+    long getBusyRetries() {
+        return busyRetries.sum();
+    }
+
+    /** Commits everything already queued, then stops the writer thread. */
+    @Override
+    public void close() {
+        closed = true;
+        queue.add(STOP);
+        try {
+            thread.join(60_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLoop() {
+        List<Task> group = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(group, maxBatch - 1);
+            stopping = group.remove(STOP);
+            // consecutive ordinary tasks commit together; an `alone` task splits the group
+            int from = 0;
+            for (int i = 0; i <= group.size(); i++) {
+                if (i == group.size() || group.get(i).alone()) {
+                    if (i > from) {
+                        commitGroup(group.subList(from, i));
+                    }
+                    if (i < group.size()) {
+                        runAlone(group.get(i));
+                    }
+                    from = i + 1;
+                }
+            }
+            group.clear();
+        }
+        // Anything queued after STOP (racing with close) fails rather than hanging its caller
+        for (Task t; (t = queue.poll()) != null; ) {
+            if (t != STOP) t.done().completeExceptionally(new SQLException("Database is closed"));
+        }
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private void commitGroup(List<Task> group) {
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            Throwable[] failures = new Throwable[group.size()];
+            try {
+                runGroup(group, failures);
+                int committed = 0;
+                for (int i = 0; i < group.size(); i++) {
+                    if (failures[i] == null) {
+                        group.get(i).done().complete(null);
+                        committed++;
+                    } else {
+                        group.get(i).done().completeExceptionally(failures[i]);
+                    }
+                }
+                GROUP_COMMIT.addRowsWritten(committed);      // tasks rolled back to their savepoint wrote nothing
+                GROUP_COMMIT.record(start);
+                return;
+            } catch (SQLException e) {
+                if (isBusy(e) && attempt < maxAttempts) {
+                    busyRetries.increment();
+                    sleepQuietly(ThreadLocalRandom.current().nextLong(10, 50) * attempt);
+                    continue;
+                }
+                resetConnection();
+                for (Task t : group) {
+                    t.done().completeExceptionally(e);
+                }
+                GROUP_COMMIT.error();
+                GROUP_COMMIT.record(start);
+                return;
+            }
+        }
+    }
+
+    private void runAlone(Task task) {
+        long start = System.nanoTime();
+        try {
+            if (conn == null) {
+                conn = factory.open();
+            }
+            task.work().run(conn);
+            task.done().complete(null);
+        } catch (SQLException | RuntimeException e) {
+            task.done().completeExceptionally(e);
+            GROUP_COMMIT.error();
+        } finally {
+            GROUP_COMMIT.record(start);
+        }
+    }
+
+    /**
+     * One transaction over the whole group.  Per-task failures land in `failures`; an exception
+     * out of here (BEGIN/COMMIT failed, or a task hit SQLITE_BUSY) means nothing was committed.
+     */
+    private void runGroup(List<Task> group, Throwable[] failures) throws SQLException {
+        if (conn == null) {
+            conn = factory.open();
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("BEGIN IMMEDIATE");
+            try {
+                for (int i = 0; i < group.size(); i++) {
+                    stmt.execute("SAVEPOINT task");
+                    try {
+                        group.get(i).work().run(conn);
+                        stmt.execute("RELEASE task");
+                    } catch (SQLException e) {
+                        if (isBusy(e)) throw e;
+                        stmt.execute("ROLLBACK TO task");
+                        stmt.execute("RELEASE task");
+                        failures[i] = e;
+                    } catch (RuntimeException e) {
+                        stmt.execute("ROLLBACK TO task");
+                        stmt.execute("RELEASE task");
+                        failures[i] = e;
+                    }
+                }
+                stmt.execute("COMMIT");
+            } catch (SQLException e) {
+                try {
+                    stmt.execute("ROLLBACK");
+                } catch (SQLException ignored) {
+                    // no transaction left to roll back
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void resetConnection() {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // replaced below anyway
+            }
+            conn = null;
+        }
+    }
+
+    /** SQLITE_BUSY (5) or SQLITE_LOCKED (6), including their extended codes. */
+    static boolean isBusy(SQLException e) {
+        int code = e.getErrorCode() & 0xff;
+        return code == 5 || code == 6;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}